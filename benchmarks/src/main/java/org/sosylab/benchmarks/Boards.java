@@ -0,0 +1,95 @@
+package org.sosylab.benchmarks;
+
+import java.util.Random;
+import org.sosylab.model.BitGame;
+import org.sosylab.model.Game;
+import org.sosylab.model.Grid;
+import org.sosylab.model.HashLifeGame;
+import org.sosylab.model.OffHeapGame;
+import org.sosylab.model.Shapes;
+import org.sosylab.model.SparseGame;
+import org.sosylab.model.TiledGame;
+import org.sosylab.model.VectorGame;
+
+/**
+ * Create and seed the boards measured by the benchmarks.
+ */
+final class Boards {
+
+  //seed of the random soups, so that every run measures the same boards
+  private static final long SOUP_SEED = 42;
+
+  /**
+   * A private constructor that prevents instantiations of the class "Boards".
+   */
+  private Boards() {
+    throw new UnsupportedOperationException("Utility class and cannot be instantiated");
+  }
+
+  /**
+   * Create an empty square board.
+   *
+   * @param engine the name of the implementation of {@link Grid}.
+   * @param size   the number of columns and rows.
+   * @return the board.
+   */
+  static Grid create(String engine, int size) {
+    switch (engine) {
+      case "game":
+        return new Game(size, size);
+      case "bit":
+        return new BitGame(size, size);
+      case "vector":
+        return new VectorGame(size, size);
+      case "tiled":
+        return new TiledGame(size, size);
+      case "offheap":
+        return new OffHeapGame(size, size);
+      case "sparse":
+        return new SparseGame(size, size);
+      case "hashlife":
+        return new HashLifeGame(size, size);
+      default:
+        throw new IllegalArgumentException("Unknown engine " + engine);
+    }
+  }
+
+  /**
+   * Fill a board with a random soup.
+   *
+   * @param grid    the board.
+   * @param density the probability of a cell to be alive.
+   */
+  static void seedSoup(Grid grid, double density) {
+    Random random = new Random(SOUP_SEED);
+    for (int row = 0; row < grid.getRows(); row++) {
+      for (int col = 0; col < grid.getColumns(); col++) {
+        if (random.nextDouble() < density) {
+          grid.setCellAlive(col, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Load one of the shapes of {@link Shapes} into the centre of a board.
+   *
+   * @param grid  the board.
+   * @param shape the name of the shape.
+   */
+  static void seedShape(Grid grid, String shape) {
+    switch (shape) {
+      case "glider":
+        Shapes.loadGlider(grid);
+        break;
+      case "spaceship":
+        Shapes.loadSpaceship(grid);
+        break;
+      case "pulsar":
+        Shapes.loadPulsar(grid);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package org.sosylab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Game;
+
+/**
+ * Measure {@link Game#countLiveCells(Cell)}, the neighbour count of the reference engine, for
+ * every cell of a random soup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CountLiveCellsBenchmark {
+
+  @Param({"64", "256", "1024", "4096", "8192"})
+  private int size;
+
+  @Param({"0.01", "0.10", "0.35"})
+  private double density;
+
+  private Game game;
+
+  private Cell[] cells;
+
+  /**
+   * Create the board, seed it with a soup and collect the cells to count for.
+   */
+  @Setup
+  public void seed() {
+    game = (Game) Boards.create("game", size);
+    Boards.seedSoup(game, density);
+    cells = new Cell[size * size];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        cells[row * size + col] = new Cell(col, row);
+      }
+    }
+  }
+
+  @Benchmark
+  public int countLiveCells() {
+    int liveCells = 0;
+    for (Cell cell : cells) {
+      liveCells += game.countLiveCells(cell);
+    }
+    return liveCells;
+  }
+}
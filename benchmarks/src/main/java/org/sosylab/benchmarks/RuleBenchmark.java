@@ -0,0 +1,82 @@
+package org.sosylab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Game;
+
+/**
+ * Compare the two ways of {@link Game} to compute a generation of a random soup: counting the
+ * neighbours with {@link Game#countLiveCells(Cell)} and applying the rule cell by cell in
+ * {@link Game#applyRules(Cell, int)}, and looking up the cell blocks in the table of
+ * {@link Game#next()}. Run with {@code -prof perfnorm} to compare the branch misses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RuleBenchmark {
+
+  @Param({"256", "1024"})
+  private int size;
+
+  @Param({"0.10", "0.35", "0.50"})
+  private double density;
+
+  private Game game;
+
+  private Cell[] cells;
+
+  private int[] liveCellCounts;
+
+  /**
+   * Create the board and seed it with a soup.
+   */
+  @Setup(Level.Iteration)
+  public void seed() {
+    game = (Game) Boards.create("game", size);
+    //collect the cells of the board itself, since applyRules changes the status of its argument
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        game.setCellAlive(col, row);
+      }
+    }
+    cells = new Cell[size * size];
+    for (Cell cell : game.getPopulation()) {
+      cells[cell.getRow() * size + cell.getColumn()] = cell;
+    }
+    game.clear();
+    Boards.seedSoup(game, density);
+    liveCellCounts = new int[cells.length];
+  }
+
+  @Benchmark
+  public Game branches() {
+    for (int i = 0; i < cells.length; i++) {
+      liveCellCounts[i] = game.countLiveCells(cells[i]);
+    }
+    for (int i = 0; i < cells.length; i++) {
+      game.applyRules(cells[i], liveCellCounts[i]);
+    }
+    return game;
+  }
+
+  @Benchmark
+  public Game lookupTable() {
+    game.next();
+    return game;
+  }
+}
@@ -0,0 +1,63 @@
+package org.sosylab.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Grid;
+import org.sosylab.model.Shapes;
+
+/**
+ * Measure the operations of {@link Grid} on boards of different sizes that hold a single pattern
+ * of {@link Shapes}. These boards are almost empty, which favours engines that skip dead areas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+
+  @Param({"game", "bit", "tiled", "sparse", "hashlife"})
+  private String engine;
+
+  @Param({"64", "256", "1024", "4096", "8192"})
+  private int size;
+
+  @Param({"glider", "spaceship", "pulsar"})
+  private String shape;
+
+  private Grid grid;
+
+  /**
+   * Create the board and load the shape.
+   */
+  @Setup(Level.Iteration)
+  public void seed() {
+    grid = Boards.create(engine, size);
+    Boards.seedShape(grid, shape);
+  }
+
+  @Benchmark
+  public Grid next() {
+    grid.next();
+    return grid;
+  }
+
+  @Benchmark
+  public Collection<Cell> getPopulation() {
+    return grid.getPopulation();
+  }
+}
@@ -0,0 +1,105 @@
+package org.sosylab.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Cell;
+import org.sosylab.model.Grid;
+
+/**
+ * Measure the operations of {@link Grid} on random soups of different sizes and densities. The
+ * board is seeded again before every iteration, so that each iteration starts from the same soup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SoupBenchmark {
+
+  @Param({"game", "bit", "tiled", "offheap", "sparse", "hashlife"})
+  private String engine;
+
+  @Param({"64", "256", "1024", "4096", "8192"})
+  private int size;
+
+  @Param({"0.01", "0.10", "0.35"})
+  private double density;
+
+  private Grid grid;
+
+  /**
+   * Create the board and seed it with a soup.
+   */
+  @Setup(Level.Iteration)
+  public void seed() {
+    grid = Boards.create(engine, size);
+    Boards.seedSoup(grid, density);
+  }
+
+  /**
+   * Close the board, so that the memory of off-heap boards does not pile up.
+   */
+  @TearDown(Level.Iteration)
+  public void close() {
+    grid.close();
+  }
+
+  @Benchmark
+  public Grid next() {
+    grid.next();
+    return grid;
+  }
+
+  @Benchmark
+  public Collection<Cell> getPopulation() {
+    return grid.getPopulation();
+  }
+
+  @Benchmark
+  public long forEachLive() {
+    long[] checksum = new long[1];
+    grid.forEachLive((col, row) -> checksum[0] += col ^ row);
+    return checksum[0];
+  }
+
+  @Benchmark
+  public long iteratePopulationView() {
+    long checksum = 0;
+    for (Cell cell : grid.getPopulationView()) {
+      checksum += cell.getColumn() ^ cell.getRow();
+    }
+    return checksum;
+  }
+
+  @Benchmark
+  public String toStringBoard() {
+    return grid.toString();
+  }
+
+  @Benchmark
+  public int isCellAlive() {
+    int liveCells = 0;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (grid.isCellAlive(col, row)) {
+          liveCells++;
+        }
+      }
+    }
+    return liveCells;
+  }
+}
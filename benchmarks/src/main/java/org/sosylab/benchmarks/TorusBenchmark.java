@@ -0,0 +1,59 @@
+package org.sosylab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Grid;
+
+/**
+ * Measure a generation of a random soup on a bounded board and on a torus. Wrapping around the
+ * edges should cost no more than the edges of a bounded board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TorusBenchmark {
+
+  @Param({"game", "bit", "tiled"})
+  private String engine;
+
+  @Param({"false", "true"})
+  private boolean torus;
+
+  @Param({"256", "2048"})
+  private int size;
+
+  @Param({"0.35"})
+  private double density;
+
+  private Grid grid;
+
+  /**
+   * Create the board with the topology and seed it with a soup.
+   */
+  @Setup(Level.Iteration)
+  public void seed() {
+    grid = Boards.create(engine, size);
+    grid.setTorus(torus);
+    Boards.seedSoup(grid, density);
+  }
+
+  @Benchmark
+  public Grid next() {
+    grid.next();
+    return grid;
+  }
+}
@@ -0,0 +1,60 @@
+package org.sosylab.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosylab.model.Grid;
+import org.sosylab.model.Rule;
+
+/**
+ * Measure a generation of a random soup computed by the scalar kernel of the bit-packed engine
+ * and by its Vector API kernel. The fork adds the incubator module of the Vector API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorBenchmark {
+
+  @Param({"bit", "vector"})
+  private String engine;
+
+  @Param({"B3/S23", "B36/S23"})
+  private String rule;
+
+  @Param({"512", "2048", "8192"})
+  private int size;
+
+  @Param({"0.10", "0.35"})
+  private double density;
+
+  private Grid grid;
+
+  /**
+   * Create the board with the rule and seed it with a soup.
+   */
+  @Setup(Level.Iteration)
+  public void seed() {
+    grid = Boards.create(engine, size);
+    grid.setRule(Rule.parse(rule));
+    Boards.seedSoup(grid, density);
+  }
+
+  @Benchmark
+  public Grid next() {
+    grid.next();
+    return grid;
+  }
+}
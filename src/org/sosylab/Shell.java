@@ -1,12 +1,40 @@
 package org.sosylab;
 
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.sosylab.model.AnsiRenderer;
+import org.sosylab.model.BitGame;
+import org.sosylab.model.BoardRenderer;
+import org.sosylab.model.CheckpointReader;
+import org.sosylab.model.CheckpointWriter;
+import org.sosylab.model.CycleDetector;
+import org.sosylab.model.FramePipeline;
 import org.sosylab.model.Game;
+import org.sosylab.model.GenerationHistory;
 import org.sosylab.model.Grid;
+import org.sosylab.model.HashLifeGame;
+import org.sosylab.model.InfiniteGame;
+import org.sosylab.model.MacrocellReader;
+import org.sosylab.model.MacrocellWriter;
+import org.sosylab.model.OffHeapGame;
+import org.sosylab.model.RleReader;
+import org.sosylab.model.RleWriter;
+import org.sosylab.model.Rule;
 import org.sosylab.model.Shapes;
+import org.sosylab.model.SparseGame;
+import org.sosylab.model.TiledGame;
+import org.sosylab.model.VectorGame;
 
 /**
  * This class provides the utility to let a user play the Game of Life application interactively on
@@ -17,21 +45,88 @@ class Shell {
   private static final String PROMPT = "gol> ";
   private static final String ERROR = "Error! ";
 
+  //frames per second of "animate" unless given
+  private static final int DEFAULT_FRAMES_PER_SECOND = 10;
+
+  //largest period of the oscillators that stop "generate" unless set by "period"
+  private static final int DEFAULT_MAX_PERIOD = 64;
+
+  //number of generations from one keyframe of the history to the next
+  private static final int HISTORY_KEYFRAME_INTERVAL = 32;
+
+  //memory in bytes that the history of generations should not exceed
+  private static final long HISTORY_CAPACITY = 64L << 20;
+
+  //number of frames of "animate" that wait for the terminal
+  private static final int FRAME_BUFFER_SIZE = 8;
+
   private static final String HELP = """
       Game of Life - possible commands:
-      alive i j    set cell in column i and row j alive
+      alive i j    set cell in column i and row j alive, on an infinite board at
+                   the position i and j, which may be negative
+      animate n    show the next n generations on the terminal, redrawing only
+                   the cells that changed; "animate n f" shows f frames per second
+                   instead of 10, see "drop" for the frames the terminal misses
+      checkpoint f save the current game with its generation into file f
       clear        kill all cells and reset generations
-      dead i j     kill cell in column i and row j
-      generate     compute next generation
+      dead i j     kill cell in column i and row j, on an infinite board at the
+                   position i and j
+      drop policy  when "animate" computes faster than the terminal shows, drop
+                   the oldest or the newest waiting frame, or none and wait
+      engine name  compute new games with engine bit, vector, tiled, offheap, sparse,
+                   hashlife or game
+      generate [n] compute the next generation or the next n generations,
+                   "generate n every k" reports progress every k generations;
+                   stops early when the board dies out or repeats itself
+      goto g       go back to generation g, or forward again after "undo"
       help         print this help
-      new x y      start a new game with dimensions x times y
-      print        print the gameboard
+      load file    start a new game with the pattern of an RLE file, or of a
+                   Macrocell file ending in .mc with the hashlife engine
+      new x y      start a new game with dimensions x times y,
+                   "new x y torus" wraps the board around its edges,
+                   "new x y infinite" grows the board as patterns expand
+      period p     let "generate" stop early for oscillators with a period of
+                   up to p generations instead of 64, or never for 0; hashlife
+                   only checks after every k generations of "generate n every k"
+      print        print the gameboard, "print x y w h" prints only the w times h
+                   cells starting at column x and row y
       quit         quit the program
       resize x y   resize current game to dimensions x times y
-      shape name   load initial population""";
+      restore f    continue the game saved into file f by "checkpoint"
+      rule r       compute generations with rule r in B/S notation, for example B36/S23
+      save file    save the current game as an RLE file, or as a Macrocell
+                   file ending in .mc if it runs on the hashlife engine
+      shape name   load initial population
+      threads n    compute generations on n threads
+      undo [n]     go back one generation or n generations""";
 
   private Grid game;
 
+  //the standard output, written without going through System.out
+  private final WritableByteChannel stdout = new FileOutputStream(FileDescriptor.out).getChannel();
+
+  //prints boards straight to the standard output, reusing its buffer for every board
+  private final BoardRenderer renderer = new BoardRenderer(stdout);
+
+  //"generate" stops early for oscillators up to this period, 0 if it never stops early
+  private int maxPeriod = DEFAULT_MAX_PERIOD;
+
+  //the last generations, which "undo" and "goto" go back to
+  private final GenerationHistory history =
+      new GenerationHistory(HISTORY_KEYFRAME_INTERVAL, HISTORY_CAPACITY);
+
+  //what "animate" does with frames when the terminal falls behind
+  private FramePipeline.DropPolicy dropPolicy = FramePipeline.DropPolicy.DROP_OLDEST;
+
+  //the engine that computes new games
+  private Engine engine = Engine.BIT;
+
+  //number of threads that compute a generation, also applied to new games
+  private int threads = 1;
+
+  //the rule that computes generations, also applied to new games
+  private Rule rule = Rule.CONWAY;
+
 
   /**
    * The main loop that handles the shell interaction. It takes commands from the user and executes
@@ -81,6 +176,21 @@ class Shell {
         case GENERATE:
           commandGenerate(subStrings);
           break;
+        case ANIMATE:
+          commandAnimate(subStrings);
+          break;
+        case DROP:
+          commandDrop(subStrings);
+          break;
+        case PERIOD:
+          commandPeriod(subStrings);
+          break;
+        case UNDO:
+          commandUndo(subStrings);
+          break;
+        case GOTO:
+          commandGoto(subStrings);
+          break;
         case CLEAR:
           commandClear(subStrings);
           break;
@@ -96,6 +206,27 @@ class Shell {
         case HELP:
           commandHelp(subStrings);
           break;
+        case THREADS:
+          commandThreads(subStrings);
+          break;
+        case ENGINE:
+          commandEngine(subStrings);
+          break;
+        case RULE:
+          commandRule(subStrings);
+          break;
+        case LOAD:
+          commandLoad(subStrings);
+          break;
+        case SAVE:
+          commandSave(subStrings);
+          break;
+        case CHECKPOINT:
+          commandCheckpoint(subStrings);
+          break;
+        case RESTORE:
+          commandRestore(subStrings);
+          break;
         case QUIT:
           quit = commandQuit(subStrings);
           break;
@@ -142,13 +273,14 @@ class Shell {
   }
 
   /**
-   * Handle the command "NEW x y". It checks the input to see whether it has valid arguments.
-   * If the input has valid arguments, create a new game.
+   * Handle the command "NEW x y [torus]". It checks the input to see whether it has valid
+   * arguments. If the input has valid arguments, create a new game, whose edges wrap around if
+   * "torus" is given.
    *
    * @param subStrings the input needs to be checked
    */
   private void commandNew(String[] subStrings) {
-    if (subStrings.length > 3) {
+    if (subStrings.length > 4) {
       System.out.println(ERROR + "Invalid arguments: too many arguments for command \"NEW\".");
       return;
     }
@@ -158,11 +290,40 @@ class Shell {
       return;
     }
 
+    boolean torus = subStrings.length == 4 && subStrings[3].equalsIgnoreCase("torus");
+    boolean infinite = subStrings.length == 4 && subStrings[3].equalsIgnoreCase("infinite");
+    if (subStrings.length == 4 && !torus && !infinite) {
+      System.out.println(ERROR + "Invalid arguments: invalid topology, only \"torus\" and "
+          + "\"infinite\" are known.");
+      return;
+    }
+
     if (isNumeric(subStrings[1]) && isNumeric(subStrings[2])) {
       int columns = Integer.parseInt(subStrings[1]);
       int rows = Integer.parseInt(subStrings[2]);
+      if (infinite && (columns > InfiniteGame.MAX_SIZE || rows > InfiniteGame.MAX_SIZE)) {
+        System.out.println(ERROR + "Invalid arguments: an infinite board should start with at "
+            + "most " + InfiniteGame.MAX_SIZE + " columns and rows.");
+        return;
+      }
       if (columns > 0 && rows > 0) {
-        game = new Game(columns, rows);
+        Grid newGame = infinite ? new InfiniteGame(columns, rows) : createGame(columns, rows);
+        if (torus) {
+          try {
+            newGame.setTorus(true);
+          } catch (UnsupportedOperationException e) {
+            System.out.println(ERROR + e.getMessage() + " by this engine.");
+            newGame.close();
+            return;
+          }
+        }
+        replaceGame(newGame);
+        if (threads > 1) {
+          applyThreads();
+        }
+        if (!rule.equals(Rule.CONWAY)) {
+          applyRule(rule);
+        }
       } else {
         System.out.println(ERROR + "Invalid arguments: columns or rows should be positive.");
       }
@@ -172,6 +333,67 @@ class Shell {
 
   }
 
+  /**
+   * Replace the current game by a new one. The current game is closed, so that the memory it
+   * holds outside of the heap is freed at once, and its history is forgotten.
+   *
+   * @param newGame the new game, or null for no active game.
+   */
+  private void replaceGame(Grid newGame) {
+    if (game != null) {
+      game.close();
+    }
+    game = newGame;
+    history.clear();
+  }
+
+  /**
+   * Create a new game with the selected engine, which is about to replace the current game. If
+   * there is not enough memory for both, the current game is closed first, so that there is no
+   * active game if the new one cannot be set up afterwards.
+   *
+   * @param columns the size of the columns.
+   * @param rows    the size of the rows.
+   * @return the new game.
+   */
+  private Grid createGame(int columns, int rows) {
+    try {
+      return createGameOfEngine(columns, rows);
+    } catch (OutOfMemoryError e) {
+      if (game == null) {
+        throw e;
+      }
+      replaceGame(null);
+      return createGameOfEngine(columns, rows);
+    }
+  }
+
+  /**
+   * Create a new game with the selected engine.
+   *
+   * @param columns the size of the columns.
+   * @param rows    the size of the rows.
+   * @return the new game.
+   */
+  private Grid createGameOfEngine(int columns, int rows) {
+    switch (engine) {
+      case GAME:
+        return new Game(columns, rows);
+      case SPARSE:
+        return new SparseGame(columns, rows);
+      case HASHLIFE:
+        return new HashLifeGame(columns, rows);
+      case VECTOR:
+        return new VectorGame(columns, rows);
+      case TILED:
+        return new TiledGame(columns, rows);
+      case OFFHEAP:
+        return new OffHeapGame(columns, rows);
+      default:
+        return new BitGame(columns, rows);
+    }
+  }
+
   /**
    * A method to check whether the input "number string" is numeric.
    * namely, it is not null, and it contains only numbers (as strings)
@@ -184,6 +406,17 @@ class Shell {
     return str != null && str.matches("[0-9]+");
   }
 
+  /**
+   * Check whether the input string is a number that may be negative, with at most nine digits
+   * so that it fits into an int.
+   *
+   * @param str the input string needs to be checked
+   * @return true if the input string is a signed number, false if not.
+   */
+  private boolean isSignedNumeric(String str) {
+    return str != null && str.matches("-?[0-9]{1,9}");
+  }
+
   /**
    * Handle the command "ALIVE i j". It checks the input command to see
    * whether it has valid arguments. If the input command has valid arguments,
@@ -205,7 +438,20 @@ class Shell {
       System.out.println(ERROR + "Invalid arguments: too few arguments for command \"ALIVE\".");
       return;
     }
-    if (isNumeric(subStrings[1]) && isNumeric(subStrings[2])) {
+    if (game.isUnbounded() && isSignedNumeric(subStrings[1]) && isSignedNumeric(subStrings[2])) {
+      int x = Integer.parseInt(subStrings[1]);
+      int y = Integer.parseInt(subStrings[2]);
+      if (game.isCellAliveAt(x, y)) {
+        System.out.println(ERROR + "Cell is already alive.");
+        return;
+      }
+      try {
+        game.setCellAliveAt(x, y);
+      } catch (IllegalArgumentException e) {
+        System.out.println(ERROR + "Invalid arguments: the position should lie from -2^30 to "
+            + "2^30 - 65.");
+      }
+    } else if (isNumeric(subStrings[1]) && isNumeric(subStrings[2])) {
       int column = Integer.parseInt(subStrings[1]);
       int row = Integer.parseInt(subStrings[2]);
       if (column < 0 || row < 0) {
@@ -250,7 +496,15 @@ class Shell {
       return;
     }
 
-    if (isNumeric(subStrings[1]) && isNumeric(subStrings[2])) {
+    if (game.isUnbounded() && isSignedNumeric(subStrings[1]) && isSignedNumeric(subStrings[2])) {
+      int x = Integer.parseInt(subStrings[1]);
+      int y = Integer.parseInt(subStrings[2]);
+      if (!game.isCellAliveAt(x, y)) {
+        System.out.println(ERROR + "Cell is already dead.");
+        return;
+      }
+      game.setCellDeadAt(x, y);
+    } else if (isNumeric(subStrings[1]) && isNumeric(subStrings[2])) {
       int column = Integer.parseInt(subStrings[1]);
       int row = Integer.parseInt(subStrings[2]);
       if (column < 0 || row < 0) {
@@ -290,8 +544,9 @@ class Shell {
   }
 
   /**
-   * Handle the command "PRINT". It checks the input command to see whether it has redundant
-   * arguments. If yes, output error message; if not, print the game state.
+   * Handle the command "PRINT [x y w h]". It checks the input command to see whether it has
+   * valid arguments. If yes, print the game state, or only the w times h cells starting at
+   * column x and row y; the region is cut off at the edges of the board.
    *
    * @param subStrings the input command needs to be checked
    */
@@ -301,12 +556,49 @@ class Shell {
       System.out.println(ERROR + "No active game.");
       return;
     }
-    if (subStrings.length == 1) {
-      System.out.println(game);
-    } else {
-      System.out.println(ERROR + "Invalid arguments: redundant arguments for command \"PRINT\".");
+    if (subStrings.length > 5) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"PRINT\".");
+      return;
+    }
+    if (subStrings.length > 1 && subStrings.length < 5) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"PRINT\".");
+      return;
+    }
+
+    int column = 0;
+    int row = 0;
+    int width = game.getColumns();
+    int height = game.getRows();
+    if (subStrings.length == 5) {
+      for (int index = 1; index < subStrings.length; index++) {
+        if (!isNumeric(subStrings[index])) {
+          System.out.println(ERROR + "Invalid arguments: invalid arguments for the region.");
+          return;
+        }
+      }
+      column = Integer.parseInt(subStrings[1]);
+      row = Integer.parseInt(subStrings[2]);
+      if (column >= game.getColumns() || row >= game.getRows()) {
+        System.out.println(ERROR + "row/column index should be smaller than row/column size.");
+        return;
+      }
+      width = Math.min(Integer.parseInt(subStrings[3]), game.getColumns() - column);
+      height = Math.min(Integer.parseInt(subStrings[4]), game.getRows() - row);
+      if (width <= 0 || height <= 0) {
+        System.out.println(ERROR + "Invalid arguments: width or height should be positive.");
+        return;
+      }
     }
 
+    //the prompt and messages go through System.out, so they have to be written before the board
+    System.out.flush();
+    try {
+      renderer.render(game, column, row, width, height);
+    } catch (IOException e) {
+      System.out.println(ERROR + "Cannot print the board.");
+      return;
+    }
+    System.out.println();
   }
 
   /**
@@ -346,9 +638,11 @@ class Shell {
   }
 
   /**
-   * Handle the command "GENERATE". It checks the input command to see whether it has redundant
-   * arguments. If yes, output error message;
-   * if no, calculates the next generation according to the rules of the gam
+   * Handle the command "GENERATE [n [EVERY k]]". It checks the input command to see whether it
+   * has valid arguments. If not, output error message;
+   * if yes, calculates the next generation, or the next n generations at once, according to the
+   * rules of the game. For n generations the throughput is reported, and with "EVERY k" also the
+   * progress after every k generations.
    *
    * @param subStrings the input command needs to be checked
    */
@@ -358,13 +652,294 @@ class Shell {
       System.out.println(ERROR + "No active game.");
       return;
     }
+    if (subStrings.length > 4) {
+      System.out.println(ERROR
+          + "Invalid arguments: too many arguments for command \"GENERATE\".");
+      return;
+    }
     if (subStrings.length == 1) {
+      history.continueFrom(game);
       game.next();
+      history.record(game);
       System.out.println("Generation: " + game.getGenerations());
-    } else {
-      System.out.println(ERROR
-          + "Invalid arguments: redundant arguments for command \"GENERATE\".");
+      return;
+    }
+    if (subStrings.length == 3 || !isGenerationCount(subStrings[1])) {
+      System.out.println(ERROR + "Invalid arguments: invalid number of generations.");
+      return;
     }
+    long generations = Long.parseLong(subStrings[1]);
+    long reportInterval = generations;
+    if (subStrings.length == 4) {
+      if (!"EVERY".equals(subStrings[2].toUpperCase()) || !isGenerationCount(subStrings[3])
+          || Long.parseLong(subStrings[3]) == 0) {
+        System.out.println(ERROR + "Invalid arguments: invalid progress interval.");
+        return;
+      }
+      reportInterval = Long.parseLong(subStrings[3]);
+    }
+
+    long start = System.nanoTime();
+    long done = 0;
+    //without a detector, the generations are computed in chunks, which HashLife skips through
+    CycleDetector detector = maxPeriod > 0 ? new CycleDetector(maxPeriod) : null;
+    int period = detector == null ? 0 : detector.observe(game);
+    //generations left to check one by one; a grid that skips through generations is only
+    //checked after each chunk, and one by one once the chunks repeat themselves
+    long stepsLeft = game.skipsGenerations() ? 0 : Long.MAX_VALUE;
+    history.continueFrom(game);
+    while (done < generations && period == 0) {
+      long chunk = Math.min(reportInterval, generations - done);
+      if (detector == null || stepsLeft == 0) {
+        game.advance(chunk);
+        done = done + chunk;
+        history.record(game);
+        if (detector != null && detector.observe(game) != 0) {
+          //the board repeats itself after some chunks, find its period in the next generations
+          detector = new CycleDetector(maxPeriod);
+          period = detector.observe(game);
+          stepsLeft = 2L * maxPeriod + 2;
+        }
+      } else {
+        for (long step = 0; step < chunk && period == 0 && stepsLeft > 0; step++) {
+          game.next();
+          done = done + 1;
+          stepsLeft = stepsLeft - 1;
+          history.record(game);
+          period = detector.observe(game);
+        }
+        if (stepsLeft == 0) {
+          //the period is longer than the detector looks for, so go on in chunks
+          detector = new CycleDetector(maxPeriod);
+          detector.observe(game);
+        }
+      }
+      if (done < generations && period == 0) {
+        System.out.println("Generation: " + game.getGenerations());
+      }
+    }
+    double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+    double generationsPerSecond = done / seconds;
+    double cellsPerSecond = generationsPerSecond * game.getColumns() * game.getRows();
+    System.out.println("Generation: " + game.getGenerations());
+    System.out.println(String.format(Locale.ROOT,
+        "%d generations in %.3f s: %.1f generations/s, %.4g cells/s",
+        done, seconds, generationsPerSecond, cellsPerSecond));
+    if (game.getPopulationCount() == 0 && period == 1) {
+      System.out.println("The population died out.");
+    } else if (period == 1) {
+      System.out.println("The board became a still life.");
+    } else if (period > 1) {
+      System.out.println("The board became an oscillator with period " + period + ".");
+    }
+  }
+
+  /**
+   * Handle the command "PERIOD p". It checks the input to see whether it has a valid argument.
+   * If yes, "generate" stops as soon as the board repeats itself with a period of at most p
+   * generations, or never stops early for 0.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandPeriod(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"PERIOD\".");
+      return;
+    }
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"PERIOD\".");
+      return;
+    }
+    if (!isNumeric(subStrings[1]) || subStrings[1].length() > 4) {
+      System.out.println(ERROR + "Invalid arguments: the period should be between 0 and 9999.");
+      return;
+    }
+    maxPeriod = Integer.parseInt(subStrings[1]);
+  }
+
+  /**
+   * Handle the command "UNDO [n]". It checks the input to see whether it has a valid argument.
+   * If yes, the game goes back one or n generations, if they are still in the history.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandUndo(String[] subStrings) {
+    //check whether a game is running
+    if (game == null) {
+      System.out.println(ERROR + "No active game.");
+      return;
+    }
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"UNDO\".");
+      return;
+    }
+    if (subStrings.length == 2 && !isGenerationCount(subStrings[1])) {
+      System.out.println(ERROR + "Invalid arguments: invalid number of generations.");
+      return;
+    }
+    long generations = subStrings.length == 2 ? Long.parseLong(subStrings[1]) : 1;
+    if (generations > game.getGenerations()) {
+      System.out.println(ERROR + "Cannot go back before generation 0.");
+      return;
+    }
+    goToGeneration(game.getGenerations() - generations);
+  }
+
+  /**
+   * Handle the command "GOTO g". It checks the input to see whether it has a valid argument.
+   * If yes, the game goes back, or forward again after "undo", to generation g, if it is still
+   * in the history.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandGoto(String[] subStrings) {
+    //check whether a game is running
+    if (game == null) {
+      System.out.println(ERROR + "No active game.");
+      return;
+    }
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"GOTO\".");
+      return;
+    }
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"GOTO\".");
+      return;
+    }
+    if (!isGenerationCount(subStrings[1])) {
+      System.out.println(ERROR + "Invalid arguments: invalid generation.");
+      return;
+    }
+    goToGeneration(Long.parseLong(subStrings[1]));
+  }
+
+  /**
+   * Set the game to a generation of the history and print the generation.
+   *
+   * @param generation the generation.
+   */
+  private void goToGeneration(long generation) {
+    if (!history.contains(generation)) {
+      if (history.getFirstGeneration() < 0) {
+        System.out.println(ERROR + "Generation " + generation + " is not in the history.");
+      } else {
+        System.out.println(ERROR + "Generation " + generation + " is not in the history, "
+            + "which has generations " + history.getFirstGeneration() + " to "
+            + history.getLastGeneration() + ".");
+      }
+      return;
+    }
+    try {
+      history.restore(game, generation);
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage() + ".");
+      return;
+    }
+    System.out.println("Generation: " + game.getGenerations());
+  }
+
+  /**
+   * Handle the command "ANIMATE n [fps]". It checks the input to see whether it has valid
+   * arguments. If yes, n generations are computed at fps generations per second while another
+   * thread draws them on the terminal; after the first frame only the cells that changed are
+   * redrawn. Frames the terminal cannot keep up with are dropped by the drop policy.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandAnimate(String[] subStrings) {
+    //check whether a game is running
+    if (game == null) {
+      System.out.println(ERROR + "No active game.");
+      return;
+    }
+    if (subStrings.length > 3) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"ANIMATE\".");
+      return;
+    }
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"ANIMATE\".");
+      return;
+    }
+    if (!isGenerationCount(subStrings[1])) {
+      System.out.println(ERROR + "Invalid arguments: invalid number of generations.");
+      return;
+    }
+    long generations = Long.parseLong(subStrings[1]);
+    int framesPerSecond = DEFAULT_FRAMES_PER_SECOND;
+    if (subStrings.length == 3) {
+      if (!isNumeric(subStrings[2]) || subStrings[2].length() > 6
+          || Integer.parseInt(subStrings[2]) == 0) {
+        System.out.println(ERROR + "Invalid arguments: frames per second should be positive.");
+        return;
+      }
+      framesPerSecond = Integer.parseInt(subStrings[2]);
+    }
+
+    //the prompt and messages go through System.out, so they have to be written before the board
+    System.out.flush();
+    long frameTime = 1_000_000_000L / framesPerSecond;
+    FramePipeline pipeline = new FramePipeline(FRAME_BUFFER_SIZE, dropPolicy, frameTime,
+        new AnsiRenderer(stdout));
+    history.continueFrom(game);
+    try (pipeline) {
+      pipeline.publish(game);
+      for (long done = 0; done < generations; done++) {
+        game.next();
+        history.record(game);
+        pipeline.publish(game);
+      }
+    } catch (IOException e) {
+      System.out.println(ERROR + "Cannot print the board.");
+      return;
+    }
+    System.out.println();
+    if (pipeline.getDroppedFrames() > 0) {
+      System.out.println(pipeline.getDroppedFrames() + " frames dropped.");
+    }
+  }
+
+  /**
+   * Handle the command "DROP policy". It checks the input to see whether it has a valid
+   * argument. If yes, "animate" drops the oldest or the newest waiting frame when the terminal
+   * falls behind, or with "none" waits for the terminal instead.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandDrop(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"DROP\".");
+      return;
+    }
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"DROP\".");
+      return;
+    }
+    switch (subStrings[1].toLowerCase(Locale.ROOT)) {
+      case "oldest":
+        dropPolicy = FramePipeline.DropPolicy.DROP_OLDEST;
+        break;
+      case "newest":
+        dropPolicy = FramePipeline.DropPolicy.DROP_NEWEST;
+        break;
+      case "none":
+        dropPolicy = FramePipeline.DropPolicy.BLOCK;
+        break;
+      default:
+        System.out.println(ERROR
+            + "Invalid arguments: the policy should be oldest, newest or none.");
+        break;
+    }
+  }
+
+  /**
+   * A method to check whether the input string is a number of generations, namely a number that
+   * fits into a long.
+   *
+   * @param str the input string needs to be checked
+   * @return true if the input string is a number of generations, false if not.
+   */
+  private boolean isGenerationCount(String str) {
+    return isNumeric(str) && str.length() < 19;
   }
 
   /**
@@ -402,6 +977,298 @@ class Shell {
     }
   }
 
+  /**
+   * Handle the command "THREADS n". It checks the input to see whether it has a valid argument.
+   * If the input has a valid argument, generations of the current and of new games are computed
+   * on the given number of threads.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandThreads(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"THREADS\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"THREADS\".");
+      return;
+    }
+
+    if (!isNumeric(subStrings[1]) || Integer.parseInt(subStrings[1]) <= 0) {
+      System.out.println(ERROR + "Invalid arguments: number of threads should be positive.");
+      return;
+    }
+    threads = Integer.parseInt(subStrings[1]);
+    if (game != null) {
+      applyThreads();
+    }
+  }
+
+  /**
+   * Let the current game compute its generations on the selected number of threads.
+   */
+  private void applyThreads() {
+    try {
+      game.setThreads(threads);
+    } catch (UnsupportedOperationException e) {
+      System.out.println(ERROR + e.getMessage() + " by this engine.");
+    }
+  }
+
+  /**
+   * Handle the command "ENGINE name". It checks the input to see whether it has a valid argument.
+   * If the input has a valid argument, new games are computed by the given engine.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandEngine(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"ENGINE\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"ENGINE\".");
+      return;
+    }
+
+    String name = subStrings[1].toUpperCase();
+    for (Engine value : Engine.values()) {
+      if (value.name().equals(name)) {
+        engine = value;
+        return;
+      }
+    }
+    System.out.println(ERROR + "Invalid engine.");
+  }
+
+  /**
+   * Handle the command "RULE r". It checks the input to see whether it has a valid argument.
+   * If the input has a valid argument, generations of the current and of new games are computed
+   * with the given rule.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandRule(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"RULE\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"RULE\".");
+      return;
+    }
+
+    Rule newRule;
+    try {
+      newRule = Rule.parse(subStrings[1]);
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage() + ".");
+      return;
+    }
+    if (game == null || applyRule(newRule)) {
+      rule = newRule;
+    }
+  }
+
+  /**
+   * Let the current game compute its generations with a rule.
+   *
+   * @param newRule the rule.
+   * @return true if the game accepted the rule, false if not.
+   */
+  private boolean applyRule(Rule newRule) {
+    try {
+      game.setRule(newRule);
+      return true;
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage() + " by this engine.");
+      return false;
+    }
+  }
+
+  /**
+   * Handle the command "LOAD file". It checks the input to see whether it has a valid argument.
+   * If the file holds a valid RLE pattern, a new game of the size of the pattern is started with
+   * the pattern, and with the rule of the pattern if it gives one. Macrocell files, ending in
+   * ".mc", always start a game of the hashlife engine, which keeps the shared nodes of the file.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandLoad(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"LOAD\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"LOAD\".");
+      return;
+    }
+
+    try (Reader in = Files.newBufferedReader(Path.of(subStrings[1]), StandardCharsets.UTF_8)) {
+      if (isMacrocell(subStrings[1])) {
+        replaceGame(MacrocellReader.read(in));
+        rule = game.getRule();
+      } else {
+        RleReader reader = new RleReader(in);
+        Rule newRule = reader.getRule() == null ? rule : reader.getRule();
+        Grid newGame = createGame(Math.max(reader.getColumns(), 1),
+            Math.max(reader.getRows(), 1));
+        try {
+          if (!newRule.equals(Rule.CONWAY)) {
+            newGame.setRule(newRule);
+          }
+          reader.readInto(newGame);
+        } catch (IOException | RuntimeException e) {
+          //free the memory of the new game at once
+          newGame.close();
+          throw e;
+        }
+        replaceGame(newGame);
+        rule = newRule;
+      }
+      if (threads > 1) {
+        applyThreads();
+      }
+    } catch (IOException | InvalidPathException e) {
+      System.out.println(ERROR + "Cannot read file " + subStrings[1] + ".");
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage() + ".");
+    }
+  }
+
+  /**
+   * Handle the command "SAVE file". It checks the input to see whether it has a valid argument.
+   * If the input has a valid argument, the current game is written into the file as an RLE
+   * pattern, or as a Macrocell pattern if the file ends in ".mc".
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandSave(String[] subStrings) {
+    //check whether a game is running
+    if (game == null) {
+      System.out.println(ERROR + "No active game.");
+      return;
+    }
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"SAVE\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"SAVE\".");
+      return;
+    }
+
+    boolean macrocell = isMacrocell(subStrings[1]);
+    if (macrocell && !(game instanceof HashLifeGame)) {
+      System.out.println(ERROR + "Macrocell files are only supported by the hashlife engine.");
+      return;
+    }
+
+    try (Writer out = Files.newBufferedWriter(Path.of(subStrings[1]), StandardCharsets.UTF_8)) {
+      if (macrocell) {
+        MacrocellWriter.write((HashLifeGame) game, out);
+      } else {
+        RleWriter.write(game, out);
+      }
+    } catch (IOException | InvalidPathException e) {
+      System.out.println(ERROR + "Cannot write file " + subStrings[1] + ".");
+    }
+  }
+
+  /**
+   * Handle the command "CHECKPOINT file". It checks the input to see whether it has a valid
+   * argument. If the input has a valid argument, the current game is written into the file with
+   * its size, generation, topology and rule.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandCheckpoint(String[] subStrings) {
+    //check whether a game is running
+    if (game == null) {
+      System.out.println(ERROR + "No active game.");
+      return;
+    }
+    if (subStrings.length > 2) {
+      System.out.println(
+          ERROR + "Invalid arguments: too many arguments for command \"CHECKPOINT\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(
+          ERROR + "Invalid arguments: too few arguments for command \"CHECKPOINT\".");
+      return;
+    }
+
+    try {
+      CheckpointWriter.write(game, Path.of(subStrings[1]));
+    } catch (IOException | InvalidPathException e) {
+      System.out.println(ERROR + "Cannot write file " + subStrings[1] + ".");
+    }
+  }
+
+  /**
+   * Handle the command "RESTORE file". It checks the input to see whether it has a valid
+   * argument. If the file holds a valid checkpoint, a new game of the selected engine continues
+   * the game of the checkpoint.
+   *
+   * @param subStrings the input command needs to be checked
+   */
+  private void commandRestore(String[] subStrings) {
+    if (subStrings.length > 2) {
+      System.out.println(ERROR + "Invalid arguments: too many arguments for command \"RESTORE\".");
+      return;
+    }
+
+    if (subStrings.length < 2) {
+      System.out.println(ERROR + "Invalid arguments: too few arguments for command \"RESTORE\".");
+      return;
+    }
+
+    try (CheckpointReader reader = new CheckpointReader(Path.of(subStrings[1]))) {
+      Grid newGame = createGame(reader.getColumns(), reader.getRows());
+      try {
+        if (!reader.getRule().equals(Rule.CONWAY)) {
+          newGame.setRule(reader.getRule());
+        }
+        if (reader.isTorus()) {
+          newGame.setTorus(true);
+        }
+        reader.readInto(newGame);
+      } catch (IOException | RuntimeException e) {
+        //free the memory of the new game at once
+        newGame.close();
+        throw e;
+      }
+      replaceGame(newGame);
+      rule = reader.getRule();
+      if (threads > 1) {
+        applyThreads();
+      }
+    } catch (IOException | InvalidPathException e) {
+      System.out.println(ERROR + "Cannot read file " + subStrings[1] + ".");
+    } catch (IllegalArgumentException e) {
+      System.out.println(ERROR + e.getMessage() + ".");
+    } catch (UnsupportedOperationException e) {
+      System.out.println(ERROR + e.getMessage() + " by this engine.");
+    }
+  }
+
+  /**
+   * Check whether a file is in the Macrocell format by its name.
+   *
+   * @param file the name of the file.
+   * @return true if the name ends in ".mc", false if not.
+   */
+  private static boolean isMacrocell(String file) {
+    return file.toLowerCase().endsWith(".mc");
+  }
+
   private void commandShape(String[] subStrings) {
     //check whether a game is running
     if (game == null) {
@@ -464,6 +1331,18 @@ class Shell {
     SHAPE("SHAPE"),
     HELP("HELP"),
     QUIT("QUIT"),
+    THREADS("THREADS"),
+    ENGINE("ENGINE"),
+    RULE("RULE"),
+    LOAD("LOAD"),
+    SAVE("SAVE"),
+    CHECKPOINT("CHECKPOINT"),
+    RESTORE("RESTORE"),
+    ANIMATE("ANIMATE"),
+    DROP("DROP"),
+    PERIOD("PERIOD"),
+    UNDO("UNDO"),
+    GOTO("GOTO"),
     UNKNOWN;
     private final String name;
 
@@ -480,5 +1359,18 @@ class Shell {
     }
   }
 
+  /**
+   * The engines that can compute a new game.
+   */
+  private enum Engine {
+    BIT,
+    VECTOR,
+    TILED,
+    OFFHEAP,
+    SPARSE,
+    HASHLIFE,
+    GAME
+  }
+
 }
 
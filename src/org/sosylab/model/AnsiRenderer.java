@@ -0,0 +1,200 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Animate a grid on a terminal that understands ANSI escape sequences. The first frame clears
+ * the screen and draws the whole board with {@link BoardRenderer}; every following frame only
+ * moves the cursor to the cells that changed, see {@link Grid#forEachChanged(IntIntConsumer)},
+ * and redraws them, followed by a status line with the generation below the board. A cell right
+ * of the one drawn before needs no cursor movement, so runs of changed cells cost one byte each.
+ *
+ * <p>As a {@link FrameConsumer}, the renderer draws the snapshots of a {@link FramePipeline}:
+ * the first frame is drawn whole, every following one by the changed cells it carries, which
+ * include those of the frames that were dropped in between.
+ */
+public final class AnsiRenderer implements FrameConsumer {
+
+  private static final byte ESCAPE = 0x1b;
+  private static final byte ALIVE = 'X';
+  private static final byte DEAD = '.';
+
+  private static final byte[] GENERATION = "Generation: ".getBytes(StandardCharsets.US_ASCII);
+
+  //size of the buffer, which is written to the channel whenever it is nearly full
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  //the longest sequence written for a cell: escape, "[", row, ";", column, "H" and the cell
+  private static final int MAX_CELL_LENGTH = 32;
+
+  private final WritableByteChannel out;
+
+  private final BoardRenderer boardRenderer;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  //the frame drawn last, null if none was drawn yet
+  private BoardSnapshot shown;
+
+  //the position of the cursor on the board, -1 if unknown
+  private int cursorColumn = -1;
+  private int cursorRow = -1;
+
+  /**
+   * Create a renderer.
+   *
+   * @param out the terminal, which is not closed.
+   */
+  public AnsiRenderer(WritableByteChannel out) {
+    this.out = out;
+    boardRenderer = new BoardRenderer(out);
+  }
+
+  /**
+   * Clear the screen and draw the whole board with the status line.
+   *
+   * @param grid the grid.
+   * @throws IOException if the frame cannot be written.
+   */
+  public void renderBoard(Grid grid) throws IOException {
+    //move the cursor home and clear the screen
+    buffer.put(ESCAPE).put((byte) '[').put((byte) 'H');
+    buffer.put(ESCAPE).put((byte) '[').put((byte) '2').put((byte) 'J');
+    flush();
+    boardRenderer.render(grid);
+    shown = null;
+    cursorColumn = -1;
+    renderStatus(grid);
+  }
+
+  /**
+   * Draw a frame by the cells that changed since the frame drawn before, see
+   * {@link BoardSnapshot#forEachChanged(IntIntConsumer)}, and the status line. The whole board is
+   * drawn if it is the first frame, if its size changed or if the frame does not know its
+   * changes.
+   *
+   * @param frame the frame.
+   * @throws IOException if the frame cannot be written.
+   */
+  @Override
+  public void accept(BoardSnapshot frame) throws IOException {
+    if (shown == null || !frame.knowsChanges() || shown.getColumns() != frame.getColumns()
+        || shown.getRows() != frame.getRows()) {
+      renderBoard(frame);
+    } else {
+      renderChanges(frame);
+    }
+    shown = frame;
+  }
+
+  /**
+   * Redraw the cells that changed in a frame, and the status line.
+   *
+   * @param frame the frame with the current state of the cells.
+   * @throws IOException if the frame cannot be written.
+   */
+  private void renderChanges(BoardSnapshot frame) throws IOException {
+    IOException[] failure = new IOException[1];
+    frame.forEachChanged((col, row) -> {
+      if (failure[0] == null) {
+        try {
+          renderCell(col, row, frame.isCellAlive(col, row));
+        } catch (IOException e) {
+          failure[0] = e;
+        }
+      }
+    });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    renderStatus(frame);
+  }
+
+  /**
+   * Draw a single cell, moving the cursor to it unless it is already there.
+   *
+   * @param col   x-position.
+   * @param row   y-position.
+   * @param alive whether the cell is alive.
+   * @throws IOException if the buffer cannot be written.
+   */
+  private void renderCell(int col, int row, boolean alive) throws IOException {
+    if (buffer.remaining() < MAX_CELL_LENGTH) {
+      flush();
+    }
+    if (col != cursorColumn || row != cursorRow) {
+      moveCursor(col, row);
+    }
+    buffer.put(alive ? ALIVE : DEAD);
+    cursorColumn = col + 1;
+    cursorRow = row;
+  }
+
+  /**
+   * Draw the generation in the line below the board and write the frame to the terminal.
+   *
+   * @param grid the grid.
+   * @throws IOException if the frame cannot be written.
+   */
+  private void renderStatus(Grid grid) throws IOException {
+    if (buffer.remaining() < 2 * MAX_CELL_LENGTH) {
+      flush();
+    }
+    moveCursor(0, grid.getRows());
+    buffer.put(GENERATION);
+    putNumber(grid.getGenerations());
+    //erase the rest of the line
+    buffer.put(ESCAPE).put((byte) '[').put((byte) 'K');
+    cursorColumn = -1;
+    flush();
+  }
+
+  /**
+   * Move the cursor to a cell of the board, whose top left cell is at the top left of the screen.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void moveCursor(int col, int row) {
+    buffer.put(ESCAPE).put((byte) '[');
+    putNumber(row + 1L);
+    buffer.put((byte) ';');
+    putNumber(col + 1L);
+    buffer.put((byte) 'H');
+  }
+
+  /**
+   * Put the decimal digits of a number that is not negative into the buffer.
+   *
+   * @param number the number.
+   */
+  private void putNumber(long number) {
+    int start = buffer.position();
+    do {
+      buffer.put((byte) ('0' + number % 10));
+      number = number / 10;
+    } while (number > 0);
+    //the digits were put from the lowest, reverse them
+    for (int first = start, last = buffer.position() - 1; first < last; first++, last--) {
+      byte digit = buffer.get(first);
+      buffer.put(first, buffer.get(last));
+      buffer.put(last, digit);
+    }
+  }
+
+  /**
+   * Write the buffer to the terminal and empty it.
+   *
+   * @throws IOException if the buffer cannot be written.
+   */
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,876 @@
+package org.sosylab.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Manage a game of life whose board is packed into bits. Every row of the board is stored as a
+ * sequence of 64-bit words, and the next generation is computed for 64 cells at a time with
+ * bitwise neighbour counting. The next generation is written into a second, preallocated buffer
+ * and the two buffers are swapped afterwards, so stepping does not allocate any memory. The rule
+ * of the game is compiled into the code that computes the cells, see {@link RuleKernel}.
+ *
+ * <p>A generation can be computed on several threads. The board is then split into horizontal
+ * bands of rows which are computed independently; every band only reads the rows next to it
+ * from the current board, which is not modified before all bands are done.
+ *
+ * <p>The board is divided into tiles of 64 times 64 cells, one word wide and 64 rows high. A
+ * generation only computes the tiles that changed in the previous generation and their
+ * neighbours; all other tiles are stable, so both buffers already hold their next state. The
+ * number of computed and skipped tiles is counted, see {@link #getComputedTiles()} and
+ * {@link #getSkippedTiles()}.
+ */
+public class BitGame implements Grid {
+
+  //number of cells packed into one word
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //number of rows of a tile, a tile is one word wide
+  private static final int TILE_HEIGHT = 64;
+
+  //the size of the columns of the game
+  private int columnSize;
+
+  //the size of the rows of the game
+  private int rowSize;
+
+  //number of words that are needed to store one row
+  private int wordsPerRow;
+
+  //mask of the bits in the last word of a row that belong to the board
+  private long lastWordMask;
+
+  //position of the last column within the last word of a row
+  private int lastColumnBit;
+
+  //the game board, stored row after row; bit i of a word is the cell in column (word * 64 + i)
+  private long[] board;
+
+  //buffer with the same layout as the board which receives the next generation
+  private long[] nextBoard;
+
+  //number of rows of tiles
+  private int tileRows;
+
+  //tiles that changed in the last generation or by setting cells; both buffers hold the same
+  //cells in all other tiles
+  private boolean[] changedTiles;
+
+  //tiles that are computed in the current generation
+  private boolean[] activeTiles;
+
+  //live cells of each tile, the columns of its word with live cells, and the rows of the tile
+  //with live cells, bit i set for row (tileRow * 64 + i)
+  private int[] tilePopulations;
+  private long[] tileColumns;
+  private long[] tileRowMasks;
+
+  //tiles whose cells were set since their statistics were computed
+  private boolean[] staleTiles;
+  private boolean statisticsStale;
+
+  //number of live cells and their bounding box, only meaningful if cells are alive
+  private long population;
+  private int firstColumn;
+  private int firstRow;
+  private int lastColumn;
+  private int lastRow;
+
+  //the bounding box as handed out, null if not created since the box changed
+  private BoundingBox bounds;
+
+  //the Zobrist hash of the words of the board, updated by the words that a generation changed;
+  //stale once cells were set otherwise
+  private long hash;
+  private boolean hashStale;
+
+  //number of tiles computed and skipped by all generations so far
+  private long computedTiles;
+  private long skippedTiles;
+
+  //number of the generation of the game
+  private long generation;
+
+  //number of threads that compute a generation
+  private int threads;
+
+  //pool computing the bands of a generation, null if a generation is computed sequentially
+  private ForkJoinPool pool;
+
+  //whether the edges of the board wrap around
+  private boolean torus;
+
+  //the rule of the game and the kernel compiled for it
+  private Rule rule;
+  private TileKernel kernel;
+
+
+  /**
+   * Create a bit-packed game of life.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public BitGame(int cols, int rows) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    setDimensions(cols, rows);
+    board = new long[rowSize * wordsPerRow];
+    nextBoard = new long[board.length];
+    changedTiles = new boolean[tileRows * wordsPerRow];
+    activeTiles = new boolean[changedTiles.length];
+    createStatistics();
+    generation = 0;
+    threads = 1;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Set the size of the board and derive the word layout of a row from it.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  private void setDimensions(int cols, int rows) {
+    columnSize = cols;
+    rowSize = rows;
+    wordsPerRow = (cols + WORD_SIZE - 1) / WORD_SIZE;
+    lastWordMask = -1L >>> (wordsPerRow * WORD_SIZE - cols);
+    lastColumnBit = (cols - 1) % WORD_SIZE;
+    tileRows = (rows + TILE_HEIGHT - 1) / TILE_HEIGHT;
+  }
+
+  /**
+   * Create the statistics of the tiles for the current size of the board, all of them stale.
+   */
+  private void createStatistics() {
+    tilePopulations = new int[tileRows * wordsPerRow];
+    tileColumns = new long[tilePopulations.length];
+    tileRowMasks = new long[tilePopulations.length];
+    staleTiles = new boolean[tilePopulations.length];
+    Arrays.fill(staleTiles, true);
+    statisticsStale = true;
+    hashStale = true;
+    population = 0;
+    bounds = null;
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    board[row * wordsPerRow + col / WORD_SIZE] |= 1L << col;
+    changedTiles[row / TILE_HEIGHT * wordsPerRow + col / WORD_SIZE] = true;
+    staleTiles[row / TILE_HEIGHT * wordsPerRow + col / WORD_SIZE] = true;
+    statisticsStale = true;
+    hashStale = true;
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return (board[row * wordsPerRow + col / WORD_SIZE] & (1L << col)) != 0;
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    board[row * wordsPerRow + col / WORD_SIZE] &= ~(1L << col);
+    changedTiles[row / TILE_HEIGHT * wordsPerRow + col / WORD_SIZE] = true;
+    staleTiles[row / TILE_HEIGHT * wordsPerRow + col / WORD_SIZE] = true;
+    statisticsStale = true;
+    hashStale = true;
+  }
+
+  @Override
+  public void setCellsAlive(int col, int row, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of cells may not be negative");
+    }
+    if (count == 0) {
+      return;
+    }
+    checkPosition(col, row);
+    checkPosition(col + count - 1, row);
+    int rowOffset = row * wordsPerRow;
+    int tileOffset = row / TILE_HEIGHT * wordsPerRow;
+    int end = col + count;
+    while (col < end) {
+      //the cells of the run within the word of col
+      int wordIndex = col / WORD_SIZE;
+      int wordEnd = Math.min(end, (wordIndex + 1) * WORD_SIZE);
+      long cells = -1L >>> (WORD_SIZE - (wordEnd - col)) << col;
+      board[rowOffset + wordIndex] |= cells;
+      changedTiles[tileOffset + wordIndex] = true;
+      staleTiles[tileOffset + wordIndex] = true;
+      col = wordEnd;
+    }
+    statisticsStale = true;
+    hashStale = true;
+  }
+
+  @Override
+  public int getRunEnd(int col, int row) {
+    checkPosition(col, row);
+    int rowOffset = row * wordsPerRow;
+    int wordIndex = col / WORD_SIZE;
+    //a dead run ends at the next live cell, a live run at the next dead cell
+    long flip = (board[rowOffset + wordIndex] & (1L << col)) != 0 ? -1L : 0L;
+    long ends = (board[rowOffset + wordIndex] ^ flip) & (-1L << col);
+    while (ends == 0 && ++wordIndex < wordsPerRow) {
+      ends = board[rowOffset + wordIndex] ^ flip;
+    }
+    if (ends == 0) {
+      return columnSize;
+    }
+    return Math.min(columnSize, wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(ends));
+  }
+
+  @Override
+  public void copyRowTo(int row, LongBuffer words) {
+    checkPosition(0, row);
+    words.put(board, row * wordsPerRow, wordsPerRow);
+  }
+
+  @Override
+  public void copyRowFrom(int row, LongBuffer words) {
+    checkPosition(0, row);
+    int rowOffset = row * wordsPerRow;
+    words.get(board, rowOffset, wordsPerRow);
+    board[rowOffset + wordsPerRow - 1] &= lastWordMask;
+    Arrays.fill(changedTiles, row / TILE_HEIGHT * wordsPerRow,
+        (row / TILE_HEIGHT + 1) * wordsPerRow, true);
+    Arrays.fill(staleTiles, row / TILE_HEIGHT * wordsPerRow,
+        (row / TILE_HEIGHT + 1) * wordsPerRow, true);
+    statisticsStale = true;
+    hashStale = true;
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} The rule is compiled into the kernel that computes the tiles, see
+   * {@link RuleKernel}.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    this.rule = rule;
+    kernel = compileKernel(rule);
+    //the next state of stable tiles may differ under the new rule
+    Arrays.fill(changedTiles, true);
+  }
+
+  /**
+   * Compile a rule into the kernel that computes the tiles.
+   *
+   * @param rule the rule.
+   * @return the kernel.
+   */
+  TileKernel compileKernel(Rule rule) {
+    return RuleKernel.compile(rule);
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * {@inheritDoc} The tiles compute a torus just like a bounded board; only the words along the
+   * edges of the board are computed on their own, with their neighbours beyond the edges taken
+   * from the opposite edges, see {@link #computeBorder()}.
+   */
+  @Override
+  public void setTorus(boolean torus) {
+    this.torus = torus;
+    //the next state of the cells along the edges may differ
+    Arrays.fill(changedTiles, true);
+  }
+
+  @Override
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+   * Get the number of tiles that were computed by all generations so far.
+   *
+   * @return the number of computed tiles.
+   */
+  public long getComputedTiles() {
+    return computedTiles;
+  }
+
+  /**
+   * Get the number of tiles that were skipped by all generations so far, because neither they nor
+   * their neighbours changed in the previous generation.
+   *
+   * @return the number of skipped tiles.
+   */
+  public long getSkippedTiles() {
+    return skippedTiles;
+  }
+
+  /**
+   * {@inheritDoc} Only the words within the bounding box are visited, and only the set bits of
+   * each word.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    int firstWord = region.getFirstColumn() / WORD_SIZE;
+    int lastWord = region.getLastColumn() / WORD_SIZE;
+    //masks of the columns of the region within its first and last word
+    long firstMask = -1L << region.getFirstColumn();
+    long lastMask = -1L >>> (WORD_SIZE - 1 - region.getLastColumn() % WORD_SIZE);
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      int rowOffset = rowIndex * wordsPerRow;
+      for (int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+        long word = board[rowOffset + wordIndex];
+        if (wordIndex == firstWord) {
+          word &= firstMask;
+        }
+        if (wordIndex == lastWord) {
+          word &= lastMask;
+        }
+        while (word != 0) {
+          action.accept(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Only the tiles that changed are visited; the buffer of the next generation still
+   * holds the previous generation in them, so the changed cells are the bits that differ.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      int tileOffset = rowIndex / TILE_HEIGHT * wordsPerRow;
+      int rowOffset = rowIndex * wordsPerRow;
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        if (!changedTiles[tileOffset + wordIndex]) {
+          continue;
+        }
+        long word = board[rowOffset + wordIndex] ^ nextBoard[rowOffset + wordIndex];
+        while (word != 0) {
+          action.accept(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The snapshot has the layout of the board, which is copied at once.
+   */
+  @Override
+  public BoardSnapshot snapshot() {
+    return new BoardSnapshot(this, board.clone());
+  }
+
+  /**
+   * {@inheritDoc} The hash has a key for every word of the board and its cells, so a generation
+   * updates it by the words that changed.
+   */
+  @Override
+  public long getBoardHash() {
+    if (hashStale) {
+      hash = Zobrist.hashWords(board);
+      hashStale = false;
+    }
+    return hash;
+  }
+
+  /**
+   * {@inheritDoc} The count is summed up from the tiles that changed while computing the last
+   * generation; only tiles whose cells were set since then are counted again.
+   */
+  @Override
+  public long getPopulationCount() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The box is put together from the tiles while computing the last generation;
+   * only tiles whose cells were set since then are searched again.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    if (population == 0) {
+      return null;
+    }
+    if (bounds == null) {
+      bounds = new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+    }
+    return bounds;
+  }
+
+  /**
+   * Count the live cells of the tiles that are stale, and put together the population and the
+   * bounding box of the board.
+   */
+  private void updateStatistics() {
+    for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+      countTiles(tileRow, board, false);
+    }
+    sumStatistics();
+  }
+
+  /**
+   * Count the live cells of the tiles of a row of tiles that are stale or, if requested, changed
+   * in the last generation.
+   *
+   * @param tileRow          the row of tiles.
+   * @param cells            the board that holds the tiles.
+   * @param withChangedTiles whether the tiles that changed in the last generation are counted.
+   */
+  private void countTiles(int tileRow, long[] cells, boolean withChangedTiles) {
+    int tileOffset = tileRow * wordsPerRow;
+    for (int tile = tileOffset; tile < tileOffset + wordsPerRow; tile++) {
+      if (staleTiles[tile] || withChangedTiles && changedTiles[tile]) {
+        staleTiles[tile] = false;
+        countTile(tile, cells);
+      }
+    }
+  }
+
+  /**
+   * Count the live cells of a tile and find its columns and rows with live cells.
+   *
+   * @param tile  the index of the tile.
+   * @param cells the board that holds the tile.
+   */
+  private void countTile(int tile, long[] cells) {
+    int wordIndex = tile % wordsPerRow;
+    int firstRow = tile / wordsPerRow * TILE_HEIGHT;
+    int height = Math.min(rowSize - firstRow, TILE_HEIGHT);
+    int offset = firstRow * wordsPerRow + wordIndex;
+    int count = 0;
+    long columns = 0;
+    long rows = 0;
+    for (int row = 0; row < height; row++) {
+      long word = cells[offset];
+      count += Long.bitCount(word);
+      columns |= word;
+      //the sign bit of (word | -word) is set for all words but 0
+      rows |= ((word | -word) >>> (WORD_SIZE - 1)) << row;
+      offset = offset + wordsPerRow;
+    }
+    tilePopulations[tile] = count;
+    tileColumns[tile] = columns;
+    tileRowMasks[tile] = rows;
+  }
+
+  /**
+   * Put together the population and the bounding box of the board from the live cells, columns
+   * and rows of its tiles. The box is only created when it is asked for, so computing generations
+   * allocates nothing.
+   */
+  private void sumStatistics() {
+    statisticsStale = false;
+    bounds = null;
+    population = 0;
+    firstColumn = Integer.MAX_VALUE;
+    firstRow = Integer.MAX_VALUE;
+    lastColumn = 0;
+    lastRow = 0;
+    for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        int tile = tileRow * wordsPerRow + wordIndex;
+        if (tilePopulations[tile] == 0) {
+          continue;
+        }
+        population = population + tilePopulations[tile];
+        long columns = tileColumns[tile];
+        long rows = tileRowMasks[tile];
+        firstColumn = Math.min(firstColumn, wordIndex * WORD_SIZE
+            + Long.numberOfTrailingZeros(columns));
+        lastColumn = Math.max(lastColumn, wordIndex * WORD_SIZE + WORD_SIZE - 1
+            - Long.numberOfLeadingZeros(columns));
+        firstRow = Math.min(firstRow, tileRow * TILE_HEIGHT + Long.numberOfTrailingZeros(rows));
+        lastRow = Math.max(lastRow, tileRow * TILE_HEIGHT + TILE_HEIGHT - 1
+            - Long.numberOfLeadingZeros(rows));
+      }
+    }
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(board, 0L);
+    Arrays.fill(nextBoard, 0L);
+    //under a rule with B0, the empty tiles are born in the next generation
+    Arrays.fill(changedTiles, rule.isBornWithoutNeighbours());
+    Arrays.fill(tilePopulations, 0);
+    Arrays.fill(tileColumns, 0L);
+    Arrays.fill(tileRowMasks, 0L);
+    Arrays.fill(staleTiles, false);
+    statisticsStale = false;
+    population = 0;
+    bounds = null;
+    hash = 0;
+    hashStale = false;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+    if (threads > 1) {
+      pool = new ForkJoinPool(threads);
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * {@inheritDoc} The threads of the pool are shut down.
+   */
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  @Override
+  public void next() {
+    generation = generation + 1;
+    markActiveTiles();
+    if (pool == null) {
+      computeRows(0, rowSize);
+    } else {
+      //bands hold whole rows of tiles, so every tile is counted by a single band
+      int bandHeight = ((rowSize + threads - 1) / threads + TILE_HEIGHT - 1) / TILE_HEIGHT
+          * TILE_HEIGHT;
+      pool.invoke(new BandTask(0, rowSize, bandHeight));
+    }
+    if (torus) {
+      computeBorder();
+    }
+    //swap the buffers, the old board is overwritten by the following generation
+    long[] currentBoard = board;
+    board = nextBoard;
+    nextBoard = currentBoard;
+    if (torus) {
+      //the edges were only computed by computeBorder, so the tiles are counted now
+      for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+        countTiles(tileRow, board, true);
+      }
+    }
+    sumStatistics();
+    if (!hashStale) {
+      updateHash();
+    }
+  }
+
+  /**
+   * Update the hash by the words that changed in the last generation. They can only lie in the
+   * changed tiles, where the buffer of the next generation still holds the previous generation.
+   */
+  private void updateHash() {
+    for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+      int lastRow = Math.min(rowSize, (tileRow + 1) * TILE_HEIGHT);
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        if (!changedTiles[tileRow * wordsPerRow + wordIndex]) {
+          continue;
+        }
+        for (int offset = tileRow * TILE_HEIGHT * wordsPerRow + wordIndex;
+             offset < lastRow * wordsPerRow; offset = offset + wordsPerRow) {
+          if (board[offset] != nextBoard[offset]) {
+            hash ^= Zobrist.wordKey(offset, nextBoard[offset])
+                ^ Zobrist.wordKey(offset, board[offset]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the next generation of a band of rows and write it into the next board. Only the
+   * active tiles within the band are computed. On a bounded board, the tiles of every row of tiles
+   * are counted right after they were computed, while they are still cached.
+   *
+   * @param fromRow the first row of the band.
+   * @param toRow   the row after the last row of the band.
+   */
+  private void computeRows(int fromRow, int toRow) {
+    //the words along the edges of a torus are computed by computeBorder
+    int border = torus ? 1 : 0;
+    int lastBorderWord = wordsPerRow - border;
+    fromRow = Math.max(fromRow, border);
+    toRow = Math.min(toRow, rowSize - border);
+    if (fromRow >= toRow) {
+      return;
+    }
+    for (int tileRow = fromRow / TILE_HEIGHT; tileRow * TILE_HEIGHT < toRow; tileRow++) {
+      int firstRow = Math.max(fromRow, tileRow * TILE_HEIGHT);
+      int lastRow = Math.min(toRow, (tileRow + 1) * TILE_HEIGHT);
+      int tileOffset = tileRow * wordsPerRow;
+      int wordIndex = border;
+      while (wordIndex < lastBorderWord) {
+        //hand every run of adjacent active tiles to the kernel at once
+        if (!activeTiles[tileOffset + wordIndex]) {
+          wordIndex++;
+          continue;
+        }
+        int firstWord = wordIndex;
+        while (wordIndex < lastBorderWord && activeTiles[tileOffset + wordIndex]) {
+          wordIndex++;
+        }
+        kernel.computeTiles(board, nextBoard, wordsPerRow, rowSize, lastWordMask, firstRow,
+            lastRow, firstWord, wordIndex, changedTiles, tileOffset);
+      }
+      if (!torus) {
+        countTiles(tileRow, nextBoard, true);
+      }
+    }
+  }
+
+  /**
+   * Compute the next generation of the words along the edges of a torus: the first and the last
+   * row, and the first and the last word of every other row. The board is surrounded by a halo of
+   * ghost cells, the rows above and below it are the last and the first row and the columns to
+   * its left and right the last and the first column. The ghost cells are read where they are
+   * needed, so the tiles inside the border never check for the edges.
+   */
+  private void computeBorder() {
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      if (rowIndex == 0 || rowIndex == rowSize - 1) {
+        for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+          computeBorderWord(rowIndex, wordIndex);
+        }
+      } else {
+        computeBorderWord(rowIndex, 0);
+        if (wordsPerRow > 1) {
+          computeBorderWord(rowIndex, wordsPerRow - 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the next generation of a word along the edges of a torus.
+   *
+   * @param rowIndex  the row of the word.
+   * @param wordIndex the position of the word within its row.
+   */
+  private void computeBorderWord(int rowIndex, int wordIndex) {
+    int rowUp = rowIndex > 0 ? rowIndex - 1 : rowSize - 1;
+    int rowDown = rowIndex + 1 < rowSize ? rowIndex + 1 : 0;
+    int offset = rowIndex * wordsPerRow + wordIndex;
+    int offsetUp = rowUp * wordsPerRow + wordIndex;
+    int offsetDown = rowDown * wordsPerRow + wordIndex;
+    long word = kernel.computeWord(leftOf(offsetUp, wordIndex), board[offsetUp],
+        rightOf(offsetUp, wordIndex), leftOf(offset, wordIndex), board[offset],
+        rightOf(offset, wordIndex), leftOf(offsetDown, wordIndex), board[offsetDown],
+        rightOf(offsetDown, wordIndex));
+    if (wordIndex == wordsPerRow - 1) {
+      word &= lastWordMask;
+    }
+    nextBoard[offset] = word;
+    if (word != board[offset]) {
+      changedTiles[rowIndex / TILE_HEIGHT * wordsPerRow + wordIndex] = true;
+    }
+  }
+
+  /**
+   * Get the left neighbours of the cells of a word on a torus, the left neighbour of the first
+   * column is the last column.
+   *
+   * @param offset    the index of the word in the board.
+   * @param wordIndex the position of the word within its row.
+   * @return the left neighbours.
+   */
+  private long leftOf(int offset, int wordIndex) {
+    long previous = wordIndex > 0 ? board[offset - 1] >>> (WORD_SIZE - 1)
+        : board[offset + wordsPerRow - 1] >>> lastColumnBit & 1;
+    return board[offset] << 1 | previous;
+  }
+
+  /**
+   * Get the right neighbours of the cells of a word on a torus, the right neighbour of the last
+   * column is the first column.
+   *
+   * @param offset    the index of the word in the board.
+   * @param wordIndex the position of the word within its row.
+   * @return the right neighbours.
+   */
+  private long rightOf(int offset, int wordIndex) {
+    long following = wordIndex + 1 < wordsPerRow ? board[offset + 1] << (WORD_SIZE - 1)
+        : (board[offset - wordIndex] & 1) << lastColumnBit;
+    return board[offset] >>> 1 | following;
+  }
+
+  /**
+   * Mark the tiles that changed in the previous generation and their neighbours as active and
+   * reset the changed tiles for the generation to compute.
+   */
+  private void markActiveTiles() {
+    Arrays.fill(activeTiles, false);
+    for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+      for (int tileColumn = 0; tileColumn < wordsPerRow; tileColumn++) {
+        if (!changedTiles[tileRow * wordsPerRow + tileColumn]) {
+          continue;
+        }
+        changedTiles[tileRow * wordsPerRow + tileColumn] = false;
+        int lastRow = Math.min(tileRow + 1, tileRows - 1);
+        int lastColumn = Math.min(tileColumn + 1, wordsPerRow - 1);
+        for (int row = Math.max(tileRow - 1, 0); row <= lastRow; row++) {
+          for (int column = Math.max(tileColumn - 1, 0); column <= lastColumn; column++) {
+            activeTiles[row * wordsPerRow + column] = true;
+          }
+        }
+      }
+    }
+    int active = 0;
+    for (boolean tile : activeTiles) {
+      if (tile) {
+        active = active + 1;
+      }
+    }
+    computedTiles = computedTiles + active;
+    skippedTiles = skippedTiles + activeTiles.length - active;
+  }
+
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+
+    long[] oldBoard = board;
+    int oldWordsPerRow = wordsPerRow;
+    int keptRows = Math.min(rows, rowSize);
+    setDimensions(cols, rows);
+    board = new long[rowSize * wordsPerRow];
+    nextBoard = new long[board.length];
+    //the buffers differ until every tile has been computed once
+    changedTiles = new boolean[tileRows * wordsPerRow];
+    activeTiles = new boolean[changedTiles.length];
+    Arrays.fill(changedTiles, true);
+    createStatistics();
+    int keptWords = Math.min(oldWordsPerRow, wordsPerRow);
+    for (int rowIndex = 0; rowIndex < keptRows; rowIndex++) {
+      System.arraycopy(oldBoard, rowIndex * oldWordsPerRow, board, rowIndex * wordsPerRow,
+          keptWords);
+      //cells of the old board beyond the new last column are dropped
+      board[rowIndex * wordsPerRow + wordsPerRow - 1] &= lastWordMask;
+    }
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> population = new HashSet<>();
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        long word = board[rowIndex * wordsPerRow + wordIndex];
+        while (word != 0) {
+          Cell cell = new Cell(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          cell.setStatusAlive();
+          population.add(cell);
+          word &= word - 1;
+        }
+      }
+    }
+    return population;
+  }
+
+  /**
+   * A band of rows whose next generation is computed by the pool. Bands higher than the band
+   * height are split in two halves along the rows of tiles.
+   */
+  private final class BandTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int fromRow;
+    private final int toRow;
+    private final int bandHeight;
+
+    BandTask(int fromRow, int toRow, int bandHeight) {
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.bandHeight = bandHeight;
+    }
+
+    @Override
+    protected void compute() {
+      if (toRow - fromRow <= bandHeight) {
+        computeRows(fromRow, toRow);
+      } else {
+        int middleRow = fromRow
+            + Math.max(TILE_HEIGHT, (toRow - fromRow) / 2 / TILE_HEIGHT * TILE_HEIGHT);
+        invokeAll(new BandTask(fromRow, middleRow, bandHeight),
+            new BandTask(middleRow, toRow, bandHeight));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Render the cells of a grid as text, "X" for live and "." for dead cells, every row ended by the
+ * line separator. The rows are written straight into a buffer of bytes that is reused for every
+ * board, and the buffer is written to a channel whenever it is full, so printing a large board
+ * does not build it up as a string first. The live cells are marked with
+ * {@link Grid#forEachLive(int, int, int, int, IntIntConsumer)}, so only the rendered region of the
+ * grid is visited.
+ */
+public final class BoardRenderer {
+
+  private static final byte ALIVE = 'X';
+  private static final byte DEAD = '.';
+
+  //size of the buffer, unless a single row is longer
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final byte[] SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+  private final WritableByteChannel out;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  /**
+   * Create a renderer.
+   *
+   * @param out the destination of the rendered boards, which is not closed.
+   */
+  public BoardRenderer(WritableByteChannel out) {
+    this.out = out;
+  }
+
+  /**
+   * Render all cells of a grid.
+   *
+   * @param grid the grid.
+   * @throws IOException if the board cannot be written.
+   */
+  public void render(Grid grid) throws IOException {
+    render(grid, 0, 0, grid.getColumns(), grid.getRows());
+  }
+
+  /**
+   * Render the cells of a region of a grid.
+   *
+   * @param grid   the grid.
+   * @param col    x-position of the region.
+   * @param row    y-position of the region.
+   * @param width  number of columns of the region.
+   * @param height number of rows of the region.
+   * @throws IOException              if the board cannot be written.
+   * @throws IllegalArgumentException if the region is empty or not within the grid.
+   */
+  public void render(Grid grid, int col, int row, int width, int height) throws IOException {
+    checkRegion(grid, col, row, width, height);
+    int lineLength = width + SEPARATOR.length;
+    if (lineLength > buffer.capacity()) {
+      buffer = ByteBuffer.allocate(lineLength);
+    }
+    int bandHeight = buffer.capacity() / lineLength;
+    for (int firstRow = row; firstRow < row + height; firstRow = firstRow + bandHeight) {
+      int rows = Math.min(bandHeight, row + height - firstRow);
+      fill(grid, col, firstRow, width, rows, buffer.array());
+      buffer.clear().limit(rows * lineLength);
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Render all cells of a grid into a string.
+   *
+   * @param grid the grid.
+   * @return the board.
+   * @throws IllegalArgumentException if the board is too large for a string.
+   */
+  public static String toString(Grid grid) {
+    long size = (grid.getColumns() + (long) SEPARATOR.length) * grid.getRows();
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("The board is too large to be printed");
+    }
+    byte[] board = new byte[(int) size];
+    fill(grid, 0, 0, grid.getColumns(), grid.getRows(), board);
+    return new String(board, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Check that a region is not empty and lies within a grid.
+   *
+   * @param grid   the grid.
+   * @param col    x-position of the region.
+   * @param row    y-position of the region.
+   * @param width  number of columns of the region.
+   * @param height number of rows of the region.
+   */
+  private static void checkRegion(Grid grid, int col, int row, int width, int height) {
+    if (col < 0 || row < 0 || width <= 0 || height <= 0
+        || width > grid.getColumns() - col || height > grid.getRows() - row) {
+      throw new IllegalArgumentException("The region is not within the board");
+    }
+  }
+
+  /**
+   * Render the rows of a region into an array, starting at its first byte.
+   *
+   * @param grid   the grid.
+   * @param col    x-position of the region.
+   * @param row    y-position of the region.
+   * @param width  number of columns of the region.
+   * @param height number of rows of the region.
+   * @param lines  the array, large enough for the rows with their separators.
+   */
+  private static void fill(Grid grid, int col, int row, int width, int height, byte[] lines) {
+    int lineLength = width + SEPARATOR.length;
+    for (int line = 0; line < height; line++) {
+      int lineStart = line * lineLength;
+      Arrays.fill(lines, lineStart, lineStart + width, DEAD);
+      System.arraycopy(SEPARATOR, 0, lines, lineStart + width, SEPARATOR.length);
+    }
+    grid.forEachLive(col, row, width, height,
+        (liveCol, liveRow) -> lines[(liveRow - row) * lineLength + liveCol - col] = ALIVE);
+  }
+}
@@ -0,0 +1,348 @@
+package org.sosylab.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * An immutable copy of the cells of a grid at one generation, see {@link Grid#snapshot()}. The
+ * cells are packed into bits like in {@link BitGame}, 64 cells per word and every row starting
+ * with a new word. A snapshot can be handed to another thread, for example to render or export it
+ * while the grid computes the next generations; it is a grid that cannot be changed, so every
+ * operation that would change it throws an {@link UnsupportedOperationException}.
+ *
+ * <p>A snapshot published by a {@link FramePipeline} also carries the cells that changed since
+ * the frame before, see {@link #forEachChanged(IntIntConsumer)}.
+ */
+public final class BoardSnapshot implements Grid {
+
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //the most changed cells a snapshot keeps; with more, it does not know which cells changed
+  static final int MAX_CHANGES = 1 << 22;
+
+  private final int columnSize;
+  private final int rowSize;
+  private final int wordsPerRow;
+
+  //the cells, stored row after row; bit i of a word is the cell in column (word * 64 + i)
+  private final long[] board;
+
+  //the state of the grid that was copied
+  private final long generation;
+  private final boolean torus;
+  private final Rule rule;
+  private final long population;
+  private final BoundingBox bounds;
+
+  //the positions of the cells that changed since the frame before, the row in the upper half;
+  //null if they are not known
+  private final long[] changes;
+
+  /**
+   * Create a snapshot that takes over an array of cells.
+   *
+   * @param grid  the grid that was copied.
+   * @param board the cells of the grid in the layout of the snapshot, not changed afterwards.
+   */
+  BoardSnapshot(Grid grid, long[] board) {
+    columnSize = grid.getColumns();
+    rowSize = grid.getRows();
+    wordsPerRow = (columnSize + WORD_SIZE - 1) / WORD_SIZE;
+    this.board = board;
+    generation = grid.getGenerations();
+    torus = grid.isTorus();
+    rule = grid.getRule();
+    population = grid.getPopulationCount();
+    bounds = grid.getBoundingBox();
+    changes = null;
+  }
+
+  /**
+   * Create a snapshot that shares the cells of another one and knows which cells changed.
+   *
+   * @param cells   the snapshot with the cells.
+   * @param changes the positions of the changed cells, or null if they are not known.
+   */
+  private BoardSnapshot(BoardSnapshot cells, long[] changes) {
+    columnSize = cells.columnSize;
+    rowSize = cells.rowSize;
+    wordsPerRow = cells.wordsPerRow;
+    board = cells.board;
+    generation = cells.generation;
+    torus = cells.torus;
+    rule = cells.rule;
+    population = cells.population;
+    bounds = cells.bounds;
+    this.changes = changes;
+  }
+
+  /**
+   * Pack the position of a cell into a change, see {@link #withChanges(long[])}.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the change.
+   */
+  static long change(int col, int row) {
+    return (long) row << 32 | col;
+  }
+
+  /**
+   * Get the most changes a snapshot of a size keeps.
+   *
+   * @param columns the number of columns.
+   * @param rows    the number of rows.
+   * @return the number of changes.
+   */
+  static long maxChanges(int columns, int rows) {
+    return Math.min((long) columns * rows, MAX_CHANGES);
+  }
+
+  /**
+   * Get a snapshot with the same cells that knows which cells changed since the frame before.
+   *
+   * @param changes the positions of the changed cells, see {@link #change(int, int)}, or null if
+   *                they are not known; not changed afterwards.
+   * @return the snapshot.
+   */
+  BoardSnapshot withChanges(long[] changes) {
+    return new BoardSnapshot(this, changes);
+  }
+
+  /**
+   * Get a snapshot with the same cells that also carries the changes of an earlier frame, which
+   * is dropped. The changes are not known if the frames have different sizes, if the changes of
+   * either frame are not known, or if there are too many of them.
+   *
+   * @param earlier the frame before this one.
+   * @return the snapshot.
+   */
+  BoardSnapshot withChangesOf(BoardSnapshot earlier) {
+    if (changes == null || earlier.changes == null || earlier.columnSize != columnSize
+        || earlier.rowSize != rowSize
+        || earlier.changes.length + changes.length > maxChanges(columnSize, rowSize)) {
+      return new BoardSnapshot(this, null);
+    }
+    long[] merged = Arrays.copyOf(earlier.changes, earlier.changes.length + changes.length);
+    System.arraycopy(changes, 0, merged, earlier.changes.length, changes.length);
+    return new BoardSnapshot(this, merged);
+  }
+
+  /**
+   * Copy the live cells of a grid into a new snapshot.
+   *
+   * @param grid the grid.
+   * @return the snapshot.
+   */
+  static BoardSnapshot of(Grid grid) {
+    int wordsPerRow = (grid.getColumns() + WORD_SIZE - 1) / WORD_SIZE;
+    long[] board = new long[grid.getRows() * wordsPerRow];
+    grid.forEachLive((col, row) -> board[row * wordsPerRow + col / WORD_SIZE] |= 1L << col);
+    return new BoardSnapshot(grid, board);
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return (board[row * wordsPerRow + col / WORD_SIZE] & (1L << col)) != 0;
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void copyRowTo(int row, LongBuffer words) {
+    checkPosition(0, row);
+    words.put(board, row * wordsPerRow, wordsPerRow);
+  }
+
+  @Override
+  public void copyRowFrom(int row, LongBuffer words) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void resize(int cols, int rows) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> cells = new HashSet<>();
+    forEachLive((col, row) -> {
+      Cell cell = new Cell(col, row);
+      cell.setStatusAlive();
+      cells.add(cell);
+    });
+    return cells;
+  }
+
+  /**
+   * {@inheritDoc} Only the words within the bounding box are visited, and only the set bits of
+   * each word.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox region = bounds == null ? null : bounds.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    int firstWord = region.getFirstColumn() / WORD_SIZE;
+    int lastWord = region.getLastColumn() / WORD_SIZE;
+    long firstMask = -1L << region.getFirstColumn();
+    long lastMask = -1L >>> (WORD_SIZE - 1 - region.getLastColumn() % WORD_SIZE);
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      int rowOffset = rowIndex * wordsPerRow;
+      for (int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+        long word = board[rowOffset + wordIndex];
+        if (wordIndex == firstWord) {
+          word &= firstMask;
+        }
+        if (wordIndex == lastWord) {
+          word &= lastMask;
+        }
+        while (word != 0) {
+          action.accept(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Check whether the snapshot knows which cells changed since the frame before.
+   *
+   * @return true if the snapshot knows the changed cells.
+   */
+  public boolean knowsChanges() {
+    return changes != null;
+  }
+
+  /**
+   * {@inheritDoc} The cells are those that changed since the frame before, as the grid reported
+   * them when the snapshot was published, including the changes of frames dropped in between; a
+   * cell may be visited more than once. No cells are visited if the changes are not known, see
+   * {@link #knowsChanges()}.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    if (changes != null) {
+      for (long change : changes) {
+        action.accept((int) change, (int) (change >>> 32));
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The hash has a key for every word and its cells, like the hash of
+   * {@link BitGame}.
+   */
+  @Override
+  public long getBoardHash() {
+    return Zobrist.hashWords(board);
+  }
+
+  @Override
+  public long getPopulationCount() {
+    return population;
+  }
+
+  @Override
+  public BoundingBox getBoundingBox() {
+    return bounds;
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void next() {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void advance(long generations) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public void setTorus(boolean torus) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public boolean isTorus() {
+    return torus;
+  }
+
+  @Override
+  public void setRule(Rule rule) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    throw new UnsupportedOperationException("A snapshot cannot be changed");
+  }
+
+  /**
+   * {@inheritDoc} A snapshot cannot change, so it is its own snapshot.
+   */
+  @Override
+  public BoardSnapshot snapshot() {
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+}
@@ -0,0 +1,110 @@
+package org.sosylab.model;
+
+/**
+ * The smallest rectangle of a grid that holds all of its live cells, see
+ * {@link Grid#getBoundingBox()}. The first and the last column and row are part of the box.
+ */
+public final class BoundingBox {
+
+  private final int firstColumn;
+  private final int firstRow;
+  private final int lastColumn;
+  private final int lastRow;
+
+  /**
+   * Create a bounding box.
+   *
+   * @param firstColumn the leftmost column.
+   * @param firstRow    the top row.
+   * @param lastColumn  the rightmost column, not left of the first.
+   * @param lastRow     the bottom row, not above the first.
+   */
+  public BoundingBox(int firstColumn, int firstRow, int lastColumn, int lastRow) {
+    if (firstColumn < 0 || firstRow < 0 || lastColumn < firstColumn || lastRow < firstRow) {
+      throw new IllegalArgumentException("Invalid bounding box");
+    }
+    this.firstColumn = firstColumn;
+    this.firstRow = firstRow;
+    this.lastColumn = lastColumn;
+    this.lastRow = lastRow;
+  }
+
+  /**
+   * Get the leftmost column of the box.
+   *
+   * @return x-position.
+   */
+  public int getFirstColumn() {
+    return firstColumn;
+  }
+
+  /**
+   * Get the top row of the box.
+   *
+   * @return y-position.
+   */
+  public int getFirstRow() {
+    return firstRow;
+  }
+
+  /**
+   * Get the rightmost column of the box.
+   *
+   * @return x-position.
+   */
+  public int getLastColumn() {
+    return lastColumn;
+  }
+
+  /**
+   * Get the bottom row of the box.
+   *
+   * @return y-position.
+   */
+  public int getLastRow() {
+    return lastRow;
+  }
+
+  /**
+   * Get the part of the box within a region.
+   *
+   * @param column x-position of the region.
+   * @param row    y-position of the region.
+   * @param width  number of columns of the region.
+   * @param height number of rows of the region.
+   * @return the part of the box, or null if the box and the region do not overlap.
+   */
+  public BoundingBox intersect(int column, int row, int width, int height) {
+    long first = Math.max(column, firstColumn);
+    long last = Math.min((long) column + width - 1, lastColumn);
+    long top = Math.max(row, firstRow);
+    long bottom = Math.min((long) row + height - 1, lastRow);
+    if (first > last || top > bottom) {
+      return null;
+    }
+    return new BoundingBox((int) first, (int) top, (int) last, (int) bottom);
+  }
+
+  @Override
+  public int hashCode() {
+    return ((firstColumn * 31 + firstRow) * 31 + lastColumn) * 31 + lastRow;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    BoundingBox box = (BoundingBox) other;
+    return firstColumn == box.firstColumn && firstRow == box.firstRow
+        && lastColumn == box.lastColumn && lastRow == box.lastRow;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("<%s, %s> to <%s, %s>", firstColumn, firstRow, lastColumn, lastRow);
+  }
+}
@@ -1,7 +1,5 @@
 package org.sosylab.model;
 
-import java.util.Objects;
-
 /**
  * A two dimensional coordinate within a cell grid.
  */
@@ -63,6 +61,15 @@ public class Cell {
     status = false;
   }
 
+  /**
+   * Set the status of a cell.
+   *
+   * @param status true if the cell is alive, false if it is dead.
+   */
+  public void setStatus(boolean status) {
+    this.status = status;
+  }
+
 
   /**
    * Get the x-coordinate of a cell.
@@ -84,7 +91,7 @@ public class Cell {
 
   @Override
   public int hashCode() {
-    return Objects.hash(column, row);
+    return 31 * column + row;
   }
 
   @Override
@@ -0,0 +1,152 @@
+package org.sosylab.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read a checkpoint written by {@link CheckpointWriter}. The header is read when the reader is
+ * created; the bit image is then mapped into memory and copied row by row into a grid, see
+ * {@link #readInto(Grid)}.
+ */
+public final class CheckpointReader implements Closeable {
+
+  private final FileChannel channel;
+
+  //the header of the checkpoint
+  private final int columns;
+  private final int rows;
+  private final long generations;
+  private final boolean torus;
+  private final Rule rule;
+
+  /**
+   * Open a checkpoint and read its header.
+   *
+   * @param file the file of the checkpoint.
+   * @throws IOException              if the file cannot be read.
+   * @throws IllegalArgumentException if the file is not a valid checkpoint.
+   */
+  public CheckpointReader(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      if (channel.size() < CheckpointWriter.HEADER_SIZE) {
+        throw new IllegalArgumentException("Invalid checkpoint");
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          CheckpointWriter.HEADER_SIZE);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt() != CheckpointWriter.MAGIC
+          || header.getInt() != CheckpointWriter.VERSION) {
+        throw new IllegalArgumentException("Invalid checkpoint");
+      }
+      columns = header.getInt();
+      rows = header.getInt();
+      generations = header.getLong();
+      torus = (header.getInt() & CheckpointWriter.TORUS) != 0;
+      int ruleLength = header.getInt();
+      if (columns <= 0 || rows <= 0 || generations < 0 || ruleLength < 0
+          || ruleLength > header.remaining()
+          || channel.size() < CheckpointWriter.HEADER_SIZE + rows * getRowSize()) {
+        throw new IllegalArgumentException("Invalid checkpoint");
+      }
+      byte[] notation = new byte[ruleLength];
+      header.get(notation);
+      rule = Rule.parse(new String(notation, StandardCharsets.US_ASCII));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of bytes of a row of the bit image.
+   *
+   * @return the size of a row.
+   */
+  private long getRowSize() {
+    return CheckpointWriter.wordsPerRow(columns) * (long) Long.BYTES;
+  }
+
+  /**
+   * Get the width of the checkpoint.
+   *
+   * @return the number of columns.
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the height of the checkpoint.
+   *
+   * @return the number of rows.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the generation of the checkpoint.
+   *
+   * @return the number of generations.
+   */
+  public long getGenerations() {
+    return generations;
+  }
+
+  /**
+   * Check whether the grid of the checkpoint was a torus.
+   *
+   * @return true if its edges wrap around, false if not.
+   */
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+   * Get the rule of the checkpoint.
+   *
+   * @return the rule.
+   */
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * Copy the cells and the generation of the checkpoint into a grid. The rule and the topology
+   * are left to the caller, since not every grid supports them.
+   *
+   * @param grid the grid, of the size of the checkpoint.
+   * @throws IOException              if the file cannot be read.
+   * @throws IllegalArgumentException if the grid does not have the size of the checkpoint.
+   */
+  public void readInto(Grid grid) throws IOException {
+    if (grid.getColumns() != columns || grid.getRows() != rows) {
+      throw new IllegalArgumentException("The checkpoint does not fit into the game");
+    }
+    long rowSize = getRowSize();
+    int regionRows = (int) Math.max(1, CheckpointWriter.MAX_REGION_SIZE / rowSize);
+    for (int firstRow = 0; firstRow < rows; firstRow = firstRow + regionRows) {
+      int lastRow = Math.min(rows, firstRow + regionRows);
+      MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+          CheckpointWriter.HEADER_SIZE + firstRow * rowSize, (lastRow - firstRow) * rowSize);
+      LongBuffer words = region.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      for (int row = firstRow; row < lastRow; row++) {
+        grid.copyRowFrom(row, words);
+      }
+    }
+    grid.setGenerations(generations);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,88 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write a grid into a binary checkpoint, which {@link CheckpointReader} restores. The file is a
+ * header with the size, generation, topology and rule of the grid, followed by the cells as a bit
+ * image of 64 cells per little-endian word, every row starting with a new word. The file is
+ * written through memory mapping, so the rows are copied straight from the grid into the page
+ * cache, see {@link Grid#copyRowTo}.
+ */
+public final class CheckpointWriter {
+
+  //the first bytes of every checkpoint, "GOLC" in little-endian order
+  static final int MAGIC = 0x434c4f47;
+  static final int VERSION = 1;
+
+  //size of the header, the bit image starts right after it
+  static final int HEADER_SIZE = 64;
+
+  //flag of the header for a toroidal grid
+  static final int TORUS = 1;
+
+  //largest part of the bit image that is mapped at once
+  static final long MAX_REGION_SIZE = 1L << 30;
+
+  /**
+   * The class only has static methods.
+   */
+  private CheckpointWriter() {
+  }
+
+  /**
+   * Write a grid into a checkpoint, replacing the file if it exists.
+   *
+   * @param grid the grid.
+   * @param file the file of the checkpoint.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(Grid grid, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      int columns = grid.getColumns();
+      int rows = grid.getRows();
+      byte[] rule = grid.getRule().toString().getBytes(StandardCharsets.US_ASCII);
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      header.position(Integer.BYTES);
+      header.putInt(VERSION).putInt(columns).putInt(rows)
+          .putLong(grid.getGenerations()).putInt(grid.isTorus() ? TORUS : 0)
+          .putInt(rule.length).put(rule);
+
+      long rowSize = wordsPerRow(columns) * (long) Long.BYTES;
+      int regionRows = (int) Math.max(1, MAX_REGION_SIZE / rowSize);
+      for (int firstRow = 0; firstRow < rows; firstRow = firstRow + regionRows) {
+        int lastRow = Math.min(rows, firstRow + regionRows);
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+            HEADER_SIZE + firstRow * rowSize, (lastRow - firstRow) * rowSize);
+        LongBuffer words = region.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        for (int row = firstRow; row < lastRow; row++) {
+          grid.copyRowTo(row, words);
+        }
+        region.force();
+      }
+      //the magic number is written last, so a checkpoint that was cut short is not valid
+      header.putInt(0, MAGIC);
+      header.force();
+    }
+  }
+
+  /**
+   * Get the number of words of a row of the bit image.
+   *
+   * @param columns the size of the columns.
+   * @return the number of words.
+   */
+  static int wordsPerRow(int columns) {
+    return (columns + Long.SIZE - 1) / Long.SIZE;
+  }
+}
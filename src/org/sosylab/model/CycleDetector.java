@@ -0,0 +1,77 @@
+package org.sosylab.model;
+
+/**
+ * Detect that a grid has stopped changing or repeats itself, so that a run of many generations
+ * can stop early. The detector is shown every generation of a grid and keeps the board hash, see
+ * {@link Grid#getBoardHash()}, and the population of the last generations in a ring buffer. A
+ * board that repeats the one p generations before is an oscillator of period p, a still life for
+ * period 1. Since different boards may have the same hash, a period is only reported once the
+ * whole period and one more generation repeated; a board without live cells is reported at once,
+ * unless its rule gives birth to cells without live neighbours.
+ */
+public final class CycleDetector {
+
+  private final int maxPeriod;
+
+  //the hashes and populations of the last generations, generation n at index n % size
+  private final long[] hashes;
+  private final long[] populations;
+
+  //number of generations shown so far
+  private long generations;
+
+  //the period that the last generations repeated, and for how many generations in a row
+  private int matchedPeriod;
+  private long matches;
+
+  /**
+   * Create a detector.
+   *
+   * @param maxPeriod the largest period of oscillators to detect.
+   */
+  public CycleDetector(int maxPeriod) {
+    if (maxPeriod <= 0) {
+      throw new IllegalArgumentException("Period must be positive");
+    }
+    this.maxPeriod = maxPeriod;
+    hashes = new long[maxPeriod + 1];
+    populations = new long[maxPeriod + 1];
+  }
+
+  /**
+   * Show the current generation of the grid to the detector. The grid has to advance by one
+   * generation between two calls, or by the same number of generations; the period is then
+   * counted in those steps, and a board whose period divides the step looks like a still life.
+   *
+   * @param grid the grid.
+   * @return the period of the grid, 1 for a still life or a board without live cells that stays
+   *     empty, or 0 if no period was found.
+   */
+  public int observe(Grid grid) {
+    long hash = grid.getBoardHash();
+    long population = grid.getPopulationCount();
+    int index = (int) (generations % hashes.length);
+    hashes[index] = hash;
+    populations[index] = population;
+    generations = generations + 1;
+    //under a rule with B0, an empty board fills in the next generation
+    if (population == 0 && !grid.getRule().isBornWithoutNeighbours()) {
+      return 1;
+    }
+    int period = 0;
+    for (int candidate = 1; candidate <= maxPeriod && candidate < generations; candidate++) {
+      int before = (int) ((generations - 1 - candidate) % hashes.length);
+      if (hashes[before] == hash && populations[before] == population) {
+        period = candidate;
+        break;
+      }
+    }
+    if (period == 0 || period != matchedPeriod) {
+      matchedPeriod = period;
+      matches = period == 0 ? 0 : 1;
+    } else {
+      matches = matches + 1;
+    }
+    return matchedPeriod != 0 && matches > matchedPeriod ? matchedPeriod : 0;
+  }
+}
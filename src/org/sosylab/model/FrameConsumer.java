@@ -0,0 +1,19 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+
+/**
+ * An operation on the snapshots that a {@link FramePipeline} hands to its thread, for example
+ * rendering or exporting them.
+ */
+@FunctionalInterface
+public interface FrameConsumer {
+
+  /**
+   * Perform the operation on a snapshot.
+   *
+   * @param frame the snapshot.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  void accept(BoardSnapshot frame) throws IOException;
+}
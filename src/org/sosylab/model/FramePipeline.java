@@ -0,0 +1,292 @@
+package org.sosylab.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hand snapshots of a grid from the thread that computes it to a thread that consumes them, so a
+ * slow consumer, like a terminal, does not hold up the computation. The snapshots wait in a ring
+ * buffer of a fixed size; when it is full, a frame is dropped or the producer waits, depending on
+ * the {@link DropPolicy}. There is only one producer, the thread that calls
+ * {@link #publish(Grid)}.
+ *
+ * <p>Every frame carries the cells that changed since the frame before, as the grid reports them
+ * with {@link Grid#forEachChanged(IntIntConsumer)}; when a frame is dropped, its changes are
+ * carried by the next frame, so a consumer can draw each frame from the changes alone. A pipeline
+ * can also pace the producer to a number of frames per second, so frames are only dropped when
+ * the consumer is slower than that.
+ */
+public final class FramePipeline implements Closeable {
+
+  /**
+   * What to do with a new frame when the buffer is full.
+   */
+  public enum DropPolicy {
+    //drop the oldest waiting frame, so the consumer skips ahead to the grid
+    DROP_OLDEST,
+    //drop the new frame, so the consumer sees the waiting frames without gaps between them
+    DROP_NEWEST,
+    //let the producer wait until the consumer took a frame, so no frame is lost
+    BLOCK
+  }
+
+  private final DropPolicy policy;
+  private final FrameConsumer consumer;
+
+  //the time between two frames in nanoseconds, 0 if the producer is not paced
+  private final long frameTime;
+
+  //the earliest time of the next frame, see System.nanoTime()
+  private long nextFrameTime;
+
+  //the positions of the cells that changed since the last frame that was added, -1 cells if they
+  //are not known; only used by the producer
+  private long[] changes = new long[64];
+  private int changeCount = -1;
+
+  //the size of the grid when its changes were collected last
+  private int columns = -1;
+  private int rows = -1;
+
+  //the waiting frames, the oldest at head
+  private final BoardSnapshot[] frames;
+  private int head;
+  private int count;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  //true once no more frames are published
+  private boolean closed;
+
+  //the exception that stopped the consumer, null while it runs
+  private Exception failure;
+
+  private long droppedFrames;
+
+  private final Thread thread;
+
+  /**
+   * Create a pipeline that does not pace the producer and start the thread of its consumer.
+   *
+   * @param capacity the number of frames that can wait.
+   * @param policy   what to do with a new frame when the buffer is full.
+   * @param consumer the consumer of the frames, called on its own thread in the order of the
+   *                 frames.
+   */
+  public FramePipeline(int capacity, DropPolicy policy, FrameConsumer consumer) {
+    this(capacity, policy, 0, consumer);
+  }
+
+  /**
+   * Create a pipeline and start the thread of its consumer.
+   *
+   * @param capacity  the number of frames that can wait.
+   * @param policy    what to do with a new frame when the buffer is full.
+   * @param frameTime the time in nanoseconds the producer waits between two frames at least, 0
+   *                  if it does not wait.
+   * @param consumer  the consumer of the frames, called on its own thread in the order of the
+   *                  frames.
+   */
+  public FramePipeline(int capacity, DropPolicy policy, long frameTime, FrameConsumer consumer) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Number of frames must be positive");
+    }
+    if (frameTime < 0) {
+      throw new IllegalArgumentException("Time between frames may not be negative");
+    }
+    this.policy = policy;
+    this.consumer = consumer;
+    this.frameTime = frameTime;
+    nextFrameTime = System.nanoTime();
+    frames = new BoardSnapshot[capacity];
+    thread = new Thread(this::consumeFrames, "frame-consumer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Publish a snapshot of the current generation of a grid. If the pipeline paces the producer,
+   * it first waits until one frame time has passed since the frame before. The snapshot is only
+   * taken if the frame is not dropped right away, and it is taken without holding up the
+   * consumer.
+   *
+   * @param grid the grid.
+   * @return true if the frame was added, false if it was dropped.
+   * @throws IllegalStateException if the pipeline is closed.
+   */
+  public boolean publish(Grid grid) {
+    if (frameTime > 0) {
+      long now = System.nanoTime();
+      while (nextFrameTime - now > 0) {
+        LockSupport.parkNanos(nextFrameTime - now);
+        now = System.nanoTime();
+      }
+      //a producer that fell behind does not catch up with a burst of frames
+      nextFrameTime = now + frameTime;
+    }
+    collectChanges(grid);
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("The pipeline is closed");
+      }
+      if (policy == DropPolicy.BLOCK) {
+        while (count == frames.length && failure == null) {
+          notFull.awaitUninterruptibly();
+        }
+      }
+      if (failure != null || policy == DropPolicy.DROP_NEWEST && count == frames.length) {
+        droppedFrames = droppedFrames + 1;
+        return false;
+      }
+    } finally {
+      lock.unlock();
+    }
+    BoardSnapshot frame = grid.snapshot()
+        .withChanges(changeCount < 0 ? null : Arrays.copyOf(changes, changeCount));
+    changeCount = 0;
+    lock.lock();
+    try {
+      //the consumer only takes frames, so the buffer can only be full if the oldest is dropped
+      if (count == frames.length) {
+        BoardSnapshot dropped = frames[head];
+        frames[head] = null;
+        head = (head + 1) % frames.length;
+        count = count - 1;
+        droppedFrames = droppedFrames + 1;
+        //the frame after the dropped one carries its changes
+        if (count > 0) {
+          frames[head] = frames[head].withChangesOf(dropped);
+        } else {
+          frame = frame.withChangesOf(dropped);
+        }
+      }
+      frames[(head + count) % frames.length] = frame;
+      count = count + 1;
+      notEmpty.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Add the cells that changed in the last generation of a grid to the changes of the next frame.
+   * The changes are not known if the grid changed its size or too many cells changed.
+   *
+   * @param grid the grid.
+   */
+  private void collectChanges(Grid grid) {
+    if (grid.getColumns() != columns || grid.getRows() != rows) {
+      columns = grid.getColumns();
+      rows = grid.getRows();
+      changeCount = -1;
+      return;
+    }
+    if (changeCount < 0) {
+      return;
+    }
+    long maxChanges = BoardSnapshot.maxChanges(columns, rows);
+    grid.forEachChanged((col, row) -> {
+      if (changeCount == maxChanges) {
+        changeCount = -1;
+      } else if (changeCount >= 0) {
+        if (changeCount == changes.length) {
+          changes = Arrays.copyOf(changes, changes.length * 2);
+        }
+        changes[changeCount] = BoardSnapshot.change(col, row);
+        changeCount = changeCount + 1;
+      }
+    });
+  }
+
+  /**
+   * Get the number of frames that were dropped so far.
+   *
+   * @return the number of frames.
+   */
+  public long getDroppedFrames() {
+    lock.lock();
+    try {
+      return droppedFrames;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Hand the frames to the consumer until the pipeline is closed and all frames are consumed.
+   */
+  private void consumeFrames() {
+    while (true) {
+      BoardSnapshot frame;
+      lock.lock();
+      try {
+        while (count == 0 && !closed) {
+          notEmpty.awaitUninterruptibly();
+        }
+        if (count == 0) {
+          return;
+        }
+        frame = frames[head];
+        frames[head] = null;
+        head = (head + 1) % frames.length;
+        count = count - 1;
+        notFull.signal();
+      } finally {
+        lock.unlock();
+      }
+      try {
+        consumer.accept(frame);
+      } catch (IOException | RuntimeException e) {
+        lock.lock();
+        try {
+          failure = e;
+          notFull.signal();
+        } finally {
+          lock.unlock();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Stop publishing frames and wait until the consumer took all waiting frames.
+   *
+   * @throws IOException if the consumer failed to write a frame.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package org.sosylab.model;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 
@@ -9,12 +8,12 @@ import java.util.HashSet;
  */
 public class Game implements Grid {
 
-  // Staying alive in this range
-  private static final int STAY_ALIVE_MIN_NEIGHBORS = 2;
-  private static final int STAY_ALIVE_MAX_NEIGHBORS = 3;
+  // Bit of a cell block that holds the cell itself, see columnOf
+  private static final int CENTRE_BIT = 4;
+  private static final int CENTRE = 1 << CENTRE_BIT;
 
-  // Condition for getting newly born
-  private static final int NEWBORN_NEIGHBORS = 3;
+  // Bits of a cell block that hold its left and middle columns
+  private static final int LEFT_AND_MIDDLE_COLUMNS = 0b011_011_011;
 
   //the size of the columns of the game
   private int columnSize;
@@ -25,9 +24,39 @@ public class Game implements Grid {
   //the game board of the game
   private Cell[][] gameBoard;
 
+  //the cell block of each cell, reused by every generation
+  private int[] cellBlocks;
+
+  //a bit for each cell of the row being computed that flipped, 64 cells per word
+  private long[] flippedCells;
+
   //number of the generation of the game
-  private int generation;
+  private long generation;
+
+  //number of live cells, kept up to date by every change of a cell
+  private long population;
+
+  //the Zobrist hash of the live cells, kept up to date by every change of a cell
+  private long hash;
+
+  //the bounding box of the live cells, only meaningful if cells are alive
+  private int firstColumn;
+  private int firstRow;
+  private int lastColumn;
+  private int lastRow;
+
+  //false if a cell on the edge of the bounding box died, so the box has to be searched again
+  private boolean boundsValid;
+
+  //whether the edges of the board wrap around
+  private boolean torus;
+
+  //the rule of the game
+  private Rule rule;
 
+  //the next state of a cell for each of the 512 possible cell blocks under the rule, 1 for alive
+  //and 0 for dead, so that live cells can be counted without branches
+  private final int[] nextState = new int[1 << 9];
 
   /**
    * Create a game of life.
@@ -47,7 +76,12 @@ public class Game implements Grid {
         gameBoard[rowIndex][columnIndex] = new Cell(columnIndex, rowIndex);
       }
     }
+    cellBlocks = new int[rowSize * columnSize];
+    flippedCells = new long[(columnSize + Long.SIZE - 1) / Long.SIZE];
     generation = 0;
+    population = 0;
+    boundsValid = true;
+    setRule(Rule.CONWAY);
   }
 
   @Override
@@ -61,8 +95,50 @@ public class Game implements Grid {
       throw new IllegalArgumentException("Number of column and row may not be negative");
     }
 
-    gameBoard[row][col].setStatusAlive();
+    Cell cell = gameBoard[row][col];
+    if (!cell.getStatus()) {
+      cell.setStatusAlive();
+      population = population + 1;
+      hash ^= Zobrist.cellKey(col, row);
+      include(col, row);
+    }
+  }
 
+  /**
+   * Grow the bounding box by a cell that has become alive and was counted already.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void include(int col, int row) {
+    if (population == 1) {
+      firstColumn = col;
+      firstRow = row;
+      lastColumn = col;
+      lastRow = row;
+      boundsValid = true;
+    } else {
+      firstColumn = Math.min(firstColumn, col);
+      firstRow = Math.min(firstRow, row);
+      lastColumn = Math.max(lastColumn, col);
+      lastRow = Math.max(lastRow, row);
+    }
+  }
+
+  /**
+   * Count the live cells and search their bounding box on the whole board.
+   */
+  private void countPopulation() {
+    population = 0;
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+        if (gameBoard[rowIndex][columnIndex].getStatus()) {
+          population = population + 1;
+          include(columnIndex, rowIndex);
+        }
+      }
+    }
+    boundsValid = true;
   }
 
   @Override
@@ -91,7 +167,15 @@ public class Game implements Grid {
       throw new IllegalArgumentException("Number of column and row may not be negative");
     }
 
-    gameBoard[row][col].setStatusDead();
+    Cell cell = gameBoard[row][col];
+    if (cell.getStatus()) {
+      cell.setStatusDead();
+      population = population - 1;
+      hash ^= Zobrist.cellKey(col, row);
+      if (col == firstColumn || col == lastColumn || row == firstRow || row == lastRow) {
+        boundsValid = false;
+      }
+    }
   }
 
   @Override
@@ -105,54 +189,233 @@ public class Game implements Grid {
   }
 
   @Override
-  public int getGenerations() {
+  public long getGenerations() {
     return generation;
   }
 
   @Override
-  public void clear() {
-    for (Cell liveCell : getPopulation()) {
-      liveCell.setStatusDead();
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
     }
-    generation = 0;
+    generation = generations;
   }
 
   @Override
-  public String toString() {
-    StringBuilder sb = new StringBuilder();
-    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+  public void setRule(Rule rule) {
+    this.rule = rule;
+    for (int block = 0; block < nextState.length; block++) {
+      nextState[block] = rule.nextState((block & CENTRE) != 0,
+          Integer.bitCount(block & ~CENTRE)) ? 1 : 0;
+    }
+  }
 
-      for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  @Override
+  public void setTorus(boolean torus) {
+    this.torus = torus;
+  }
+
+  @Override
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+   * {@inheritDoc} Only the cells within the bounding box are visited.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      for (int columnIndex = region.getFirstColumn(); columnIndex <= region.getLastColumn();
+           columnIndex++) {
         if (gameBoard[rowIndex][columnIndex].getStatus()) {
-          sb.append("X");
-        } else {
-          sb.append(".");
+          action.accept(columnIndex, rowIndex);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The cell block of every cell still holds the state of the cell before the last
+   * generation, which is compared with its current state.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+        boolean alive = (cellBlocks[rowIndex * columnSize + columnIndex] & CENTRE) != 0;
+        if (gameBoard[rowIndex][columnIndex].getStatus() != alive) {
+          action.accept(columnIndex, rowIndex);
         }
       }
-      sb.append(System.lineSeparator());
     }
-    return sb.toString();
+  }
+
+  /**
+   * {@inheritDoc} A generation updates the hash by the cells that it flipped.
+   */
+  @Override
+  public long getBoardHash() {
+    return hash;
+  }
+
+  @Override
+  public long getPopulationCount() {
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} Only if a cell on the edge of the box has been set dead since the last
+   * generation, the box is searched on the whole board.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (population == 0) {
+      return null;
+    }
+    if (!boundsValid) {
+      countPopulation();
+    }
+    return new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+  }
+
+  /**
+   * {@inheritDoc} Only the cells within the bounding box are visited.
+   */
+  @Override
+  public void clear() {
+    BoundingBox box = getBoundingBox();
+    if (box != null) {
+      for (int rowIndex = box.getFirstRow(); rowIndex <= box.getLastRow(); rowIndex++) {
+        for (int columnIndex = box.getFirstColumn(); columnIndex <= box.getLastColumn();
+             columnIndex++) {
+          gameBoard[rowIndex][columnIndex].setStatusDead();
+        }
+      }
+    }
+    population = 0;
+    hash = 0;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
   }
 
   @Override
   public void next() {
     generation = generation + 1;
-    ArrayList<Integer> allLiveCells = new ArrayList<>();
     for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      //the rows above and below, -1 beyond a bounded edge, the opposite edge on a torus
+      int rowUp = rowIndex > 0 ? rowIndex - 1 : (torus ? rowSize - 1 : -1);
+      int rowDown = rowIndex + 1 < rowSize ? rowIndex + 1 : (torus ? 0 : -1);
+      //the block left of the first cell, its right column is the first column and its middle
+      //column the last column on a torus
+      int block = columnOf(rowUp, rowIndex, rowDown, 0) << 2;
+      if (torus) {
+        block |= columnOf(rowUp, rowIndex, rowDown, columnSize - 1) << 1;
+      }
       for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-        //loop through the game board and count live cells for each cell.
-        //add the live cell numbers to a list
-        allLiveCells.add(countLiveCells(gameBoard[rowIndex][columnIndex]));
+        //slide the block one column to the right and add the column right of the cell.
+        //store the block in the preallocated buffer
+        block = (block >>> 1) & LEFT_AND_MIDDLE_COLUMNS;
+        if (columnIndex + 1 < columnSize) {
+          block |= columnOf(rowUp, rowIndex, rowDown, columnIndex + 1) << 2;
+        } else if (torus) {
+          block |= columnOf(rowUp, rowIndex, rowDown, 0) << 2;
+        }
+        cellBlocks[rowIndex * columnSize + columnIndex] = block;
       }
     }
 
+    population = 0;
     for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      //the live cells of the row and their first and last column, kept without branches
+      int rowPopulation = 0;
+      int firstInRow = Integer.MAX_VALUE;
+      int lastInRow = 0;
       for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-        //apply generation rules to each cell
-        int liveCellsIndex = rowIndex * columnSize + columnIndex;
-        applyRules(gameBoard[rowIndex][columnIndex], allLiveCells.get(liveCellsIndex));
+        //look up the next state of each cell, and count it together with its position
+        int block = cellBlocks[rowIndex * columnSize + columnIndex];
+        int alive = nextState[block];
+        //mark the cell in the row if it flipped, without a branch
+        flippedCells[columnIndex >>> 6] |= (long) (alive ^ (block & CENTRE) >>> CENTRE_BIT)
+            << columnIndex;
+        gameBoard[rowIndex][columnIndex].setStatus(alive != 0);
+        rowPopulation = rowPopulation + alive;
+        //a dead cell counts as the last possible column for the first and as 0 for the last
+        firstInRow = Math.min(firstInRow, columnIndex | ((alive - 1) >>> 1));
+        lastInRow = Math.max(lastInRow, columnIndex * alive);
+      }
+      //the hash changes by the keys of the cells that flipped, visited by their bits
+      for (int wordIndex = 0; wordIndex < flippedCells.length; wordIndex++) {
+        long word = flippedCells[wordIndex];
+        flippedCells[wordIndex] = 0;
+        while (word != 0) {
+          hash ^= Zobrist.cellKey(wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word),
+              rowIndex);
+          word &= word - 1;
+        }
+      }
+      //the bounding box grows once per row with live cells
+      if (rowPopulation > 0) {
+        if (population == 0) {
+          firstColumn = firstInRow;
+          lastColumn = lastInRow;
+          firstRow = rowIndex;
+        } else {
+          firstColumn = Math.min(firstColumn, firstInRow);
+          lastColumn = Math.max(lastColumn, lastInRow);
+        }
+        lastRow = rowIndex;
+        population = population + rowPopulation;
       }
     }
+    boundsValid = true;
+  }
+
+  /**
+   * A method to encode the cell above, the cell itself and the cell below as the left column of a
+   * cell block. A cell block has the bit (3 * y + x) set if the cell in column x and row y of the
+   * 3 times 3 block around a cell is alive. Cells outside the board are dead.
+   *
+   * @param rowUp   the row above the cell, -1 if it is outside the board.
+   * @param row     the row of the cell.
+   * @param rowDown the row below the cell, -1 if it is outside the board.
+   * @param column  the column of the cell.
+   * @return the bits 0, 3 and 6 of a cell block.
+   */
+  private int columnOf(int rowUp, int row, int rowDown, int column) {
+    //the conditions only depend on the row, so they are always predicted correctly
+    int bits = bitOf(gameBoard[row][column]) << 3;
+    if (rowUp >= 0) {
+      bits |= bitOf(gameBoard[rowUp][column]);
+    }
+    if (rowDown >= 0) {
+      bits |= bitOf(gameBoard[rowDown][column]) << 6;
+    }
+    return bits;
+  }
+
+  /**
+   * A method to convert the status of a cell into a bit.
+   *
+   * @param cell the cell.
+   * @return 1 if the cell is alive, 0 if it is dead.
+   */
+  private static int bitOf(Cell cell) {
+    return cell.getStatus() ? 1 : 0;
   }
 
   /**
@@ -209,7 +472,7 @@ public class Game implements Grid {
   /**
    * A method to apply the generation rules to a cell.
    *
-   * @param cell the cell to which the rules are applied.
+   * @param cell the cell of this game to which the rules are applied.
    * @param liveCells number of live cells in the relevant cell block.
    */
   public void applyRules(Cell cell, int liveCells) {
@@ -220,24 +483,16 @@ public class Game implements Grid {
     int liveNeighbours;
 
     if (cell.getStatus()) {
-      //rules applied to living cells.
       liveNeighbours = liveCells - 1;
-      //Living cells with less than two neighbors die of loneliness
-      if (liveNeighbours < STAY_ALIVE_MIN_NEIGHBORS) {
-        cell.setStatusDead();
-      }
-      //Living cells with more than three neighbors die of overpopulation
-      if (liveNeighbours > STAY_ALIVE_MAX_NEIGHBORS) {
-        cell.setStatusDead();
-      }
-      //Living cells with exactly two or three living neighbors remain alive
     } else {
-      //the rule applied to dead cells
       liveNeighbours = liveCells;
-      //Dead cells with exactly three living neighbors are reborn
-      if (liveNeighbours == NEWBORN_NEIGHBORS) {
-        cell.setStatusAlive();
-      }
+    }
+    //the rule decides whether the cell survives or is born
+    //the cell is set through the board, which counts the live cells
+    if (rule.nextState(cell.getStatus(), liveNeighbours)) {
+      setCellAlive(cell.getColumn(), cell.getRow());
+    } else {
+      setCellDead(cell.getColumn(), cell.getRow());
     }
   }
 
@@ -303,8 +558,13 @@ public class Game implements Grid {
       }
     }
     gameBoard = resizedGameboard;
+    cellBlocks = new int[rows * cols];
+    flippedCells = new long[(cols + Long.SIZE - 1) / Long.SIZE];
     columnSize = cols;
     rowSize = rows;
+    //cells beyond the new edges may have been dropped
+    countPopulation();
+    hash = Zobrist.hashCells(this);
   }
 
   @Override
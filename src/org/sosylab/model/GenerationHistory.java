@@ -0,0 +1,520 @@
+package org.sosylab.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Keep the last generations of a grid, so that it can go back to them. Most generations are
+ * stored as a delta: the positions of the cells that flipped since the generation before, sorted
+ * and written as the gaps between them in a variable number of bytes, seven bits per byte. Every
+ * few generations, and whenever the grid skipped generations, a keyframe with all cells is stored
+ * instead, so a generation is restored from its keyframe and at most that many deltas. Once the
+ * history takes more memory than its capacity, the oldest keyframe is dropped with its deltas. A
+ * board whose keyframe alone would take more memory than the capacity is not recorded at all.
+ */
+public final class GenerationHistory {
+
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //estimated memory of an entry besides its cells
+  private static final int ENTRY_SIZE = 64;
+
+  private final int keyframeInterval;
+  private final long capacity;
+
+  //the entries, oldest at head; generations grow, an entry has a keyframe or a delta
+  private long[] generations = new long[16];
+  private long[] hashes = new long[16];
+  private BoardSnapshot[] keyframes = new BoardSnapshot[16];
+  private byte[][] deltas = new byte[16][];
+  private int head;
+  private int count;
+
+  //estimated memory of all entries
+  private long size;
+
+  //the size of the recorded board
+  private int columnSize;
+  private int rowSize;
+  private int wordsPerRow;
+
+  //the cells of one recorded generation, in the layout of a snapshot
+  private long[] cells;
+  private long cellsGeneration = -1;
+
+  //the cells visited as changed in the generation being recorded, as positions
+  //row * columns + column
+  private long[] candidates = new long[64];
+  private int candidateCount;
+
+  //the cells of a row of the generation being recorded
+  private long[] rowWords;
+  private long lastWordMask;
+
+  //the delta being written, and the position of the last cell in it
+  private byte[] bytes = new byte[64];
+  private int byteCount;
+  private long lastPosition;
+
+  /**
+   * Create an empty history.
+   *
+   * @param keyframeInterval the number of generations from one keyframe to the next.
+   * @param capacity         the memory in bytes that the history should not exceed, though the
+   *                         generations since the last keyframe are always kept.
+   */
+  public GenerationHistory(int keyframeInterval, long capacity) {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Keyframe interval must be positive");
+    }
+    this.keyframeInterval = keyframeInterval;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Prepare to record the generations that follow the current board of a grid. If the history
+   * has the current generation with the same board, the generations after it are forgotten;
+   * otherwise the generations from the current one on are forgotten and a keyframe of the board
+   * is stored, and all generations are forgotten if the board has another size. Nothing is stored
+   * for a board too large for the capacity.
+   *
+   * @param grid the grid.
+   */
+  public void continueFrom(Grid grid) {
+    long generation = grid.getGenerations();
+    int index = indexOf(generation);
+    if (index >= 0 && hashes[slot(index)] == grid.getBoardHash()
+        && grid.getColumns() == columnSize && grid.getRows() == rowSize) {
+      removeFrom(index + 1);
+      if (cellsGeneration != generation) {
+        cells = cellsAt(index);
+        cellsGeneration = generation;
+      }
+      return;
+    }
+    if (grid.getColumns() != columnSize || grid.getRows() != rowSize) {
+      clear();
+      columnSize = grid.getColumns();
+      rowSize = grid.getRows();
+      wordsPerRow = (columnSize + WORD_SIZE - 1) / WORD_SIZE;
+      rowWords = new long[wordsPerRow];
+      lastWordMask = -1L >>> (wordsPerRow * WORD_SIZE - columnSize);
+    }
+    if (isTooLarge()) {
+      removeFrom(0);
+      return;
+    }
+    int first = 0;
+    while (first < count && generations[slot(first)] < generation) {
+      first++;
+    }
+    removeFrom(first);
+    addKeyframe(grid);
+  }
+
+  /**
+   * Record the current generation of a grid, which computed generations since it was last
+   * recorded or since {@link #continueFrom(Grid)}. If it computed a single generation, only the
+   * cells that flipped are stored, see {@link Grid#forEachChanged(IntIntConsumer)}. Nothing is
+   * stored for a board too large for the capacity. If the board grew, see
+   * {@link Grid#isUnbounded()}, the history forgets the generations before and continues from the
+   * grid.
+   *
+   * @param grid the grid.
+   * @throws IllegalStateException if the history did not continue from the grid before.
+   */
+  public void record(Grid grid) {
+    if (grid.getColumns() == columnSize && grid.getRows() == rowSize && isTooLarge()) {
+      return;
+    }
+    if (rowSize > 0 && grid.isUnbounded()
+        && (grid.getColumns() != columnSize || grid.getRows() != rowSize)) {
+      continueFrom(grid);
+      return;
+    }
+    if (count == 0 || grid.getColumns() != columnSize || grid.getRows() != rowSize) {
+      throw new IllegalStateException("The history does not continue from the grid");
+    }
+    long generation = grid.getGenerations();
+    if (generation != getLastGeneration() + 1 || cellsGeneration != getLastGeneration()
+        || keyframeDistance() + 1 >= keyframeInterval) {
+      addKeyframe(grid);
+      return;
+    }
+    //the action may visit a cell more than once or cells that did not flip, so the visited cells
+    //are only candidates, which are compared with the cells of the generation before
+    candidateCount = 0;
+    grid.forEachChanged((col, row) -> {
+      if (candidateCount == candidates.length) {
+        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+      }
+      candidates[candidateCount++] = (long) row * columnSize + col;
+    });
+    //most engines visit the cells row by row, so the positions are usually sorted already
+    for (int i = 1; i < candidateCount; i++) {
+      if (candidates[i - 1] > candidates[i]) {
+        Arrays.sort(candidates, 0, candidateCount);
+        break;
+      }
+    }
+    byteCount = 0;
+    lastPosition = -1;
+    int first = 0;
+    while (first < candidateCount) {
+      int row = (int) (candidates[first] / columnSize);
+      long rowStart = (long) row * columnSize;
+      int end = first;
+      while (end < candidateCount && candidates[end] < rowStart + columnSize) {
+        end++;
+      }
+      //a row with many candidates is compared word by word instead of cell by cell
+      if ((long) (end - first) * WORD_SIZE >= columnSize) {
+        recordRow(grid, row);
+      } else {
+        for (int i = first; i < end; i++) {
+          if (i == first || candidates[i] != candidates[i - 1]) {
+            recordCell(grid, (int) (candidates[i] - rowStart), row);
+          }
+        }
+      }
+      first = end;
+    }
+    cellsGeneration = generation;
+    add(generation, grid.getBoardHash(), null, Arrays.copyOf(bytes, byteCount));
+  }
+
+  /**
+   * Add the cells of a row that flipped since the generation before to the delta.
+   *
+   * @param grid the grid.
+   * @param row  y-position.
+   */
+  private void recordRow(Grid grid, int row) {
+    grid.copyRowTo(row, LongBuffer.wrap(rowWords));
+    int rowOffset = row * wordsPerRow;
+    long rowStart = (long) row * columnSize;
+    for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+      long word = wordIndex == wordsPerRow - 1 ? rowWords[wordIndex] & lastWordMask
+          : rowWords[wordIndex];
+      long flips = word ^ cells[rowOffset + wordIndex];
+      cells[rowOffset + wordIndex] = word;
+      while (flips != 0) {
+        putPosition(rowStart + wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(flips));
+        flips &= flips - 1;
+      }
+    }
+  }
+
+  /**
+   * Add a cell to the delta if it flipped since the generation before.
+   *
+   * @param grid the grid.
+   * @param col  x-position.
+   * @param row  y-position.
+   */
+  private void recordCell(Grid grid, int col, int row) {
+    int word = row * wordsPerRow + col / WORD_SIZE;
+    if (((cells[word] & 1L << col) != 0) != grid.isCellAlive(col, row)) {
+      cells[word] ^= 1L << col;
+      putPosition((long) row * columnSize + col);
+    }
+  }
+
+  /**
+   * Add the position of a flipped cell to the delta, as the gap to the position before in seven
+   * bits per byte, the lowest bits first and the highest bit set in all bytes but the last. The
+   * positions have to be added in ascending order.
+   *
+   * @param position the position, row * columns + column.
+   */
+  private void putPosition(long position) {
+    //a gap needs at most ten bytes of seven bits
+    if (bytes.length - byteCount < 10) {
+      bytes = Arrays.copyOf(bytes, bytes.length * 2);
+    }
+    long gap = position - lastPosition - 1;
+    lastPosition = position;
+    while ((gap & ~0x7fL) != 0) {
+      bytes[byteCount++] = (byte) (gap & 0x7f | 0x80);
+      gap = gap >>> 7;
+    }
+    bytes[byteCount++] = (byte) gap;
+  }
+
+  /**
+   * Set a grid of the recorded size to a recorded generation. The history is kept, so the grid
+   * can go on to later generations again until the history continues from another board.
+   *
+   * @param grid       the grid.
+   * @param generation the generation.
+   * @throws IllegalArgumentException if the generation is not in the history or the grid has
+   *                                  another size.
+   */
+  public void restore(Grid grid, long generation) {
+    int index = indexOf(generation);
+    if (index < 0) {
+      throw new IllegalArgumentException("The generation is not in the history");
+    }
+    if (grid.getColumns() != columnSize || grid.getRows() != rowSize) {
+      throw new IllegalArgumentException("The history is of a board of another size");
+    }
+    if (cellsGeneration != generation) {
+      cells = cellsAt(index);
+      cellsGeneration = generation;
+    }
+    //only the rows that differ are written, which are few when going back a few generations
+    long[] row = new long[wordsPerRow];
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      grid.copyRowTo(rowIndex, LongBuffer.wrap(row));
+      if (!Arrays.equals(row, 0, wordsPerRow,
+          cells, rowIndex * wordsPerRow, (rowIndex + 1) * wordsPerRow)) {
+        grid.copyRowFrom(rowIndex, LongBuffer.wrap(cells, rowIndex * wordsPerRow, wordsPerRow));
+      }
+    }
+    grid.setGenerations(generation);
+  }
+
+  /**
+   * Check whether a generation is in the history.
+   *
+   * @param generation the generation.
+   * @return true if it can be restored.
+   */
+  public boolean contains(long generation) {
+    return indexOf(generation) >= 0;
+  }
+
+  /**
+   * Get the oldest generation in the history.
+   *
+   * @return the generation, or -1 if the history is empty.
+   */
+  public long getFirstGeneration() {
+    return count == 0 ? -1 : generations[head];
+  }
+
+  /**
+   * Get the latest generation in the history.
+   *
+   * @return the generation, or -1 if the history is empty.
+   */
+  public long getLastGeneration() {
+    return count == 0 ? -1 : generations[slot(count - 1)];
+  }
+
+  /**
+   * Get the estimated memory of the history.
+   *
+   * @return the memory in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Check whether a keyframe of the recorded board takes more memory than the capacity.
+   *
+   * @return true if no generation of the board is stored.
+   */
+  private boolean isTooLarge() {
+    return (long) rowSize * wordsPerRow * Long.BYTES > capacity;
+  }
+
+  /**
+   * Forget all generations.
+   */
+  public void clear() {
+    removeFrom(0);
+    cells = null;
+    cellsGeneration = -1;
+    columnSize = 0;
+    rowSize = 0;
+  }
+
+  /**
+   * Store a keyframe of the current generation of a grid.
+   *
+   * @param grid the grid.
+   */
+  private void addKeyframe(Grid grid) {
+    BoardSnapshot keyframe = grid.snapshot();
+    cells = wordsOf(keyframe);
+    cellsGeneration = grid.getGenerations();
+    add(cellsGeneration, grid.getBoardHash(), keyframe, null);
+  }
+
+  /**
+   * Append an entry and drop the oldest keyframes with their deltas while the history is too
+   * large.
+   *
+   * @param generation the generation.
+   * @param hash       the board hash of the generation.
+   * @param keyframe   the cells of the generation, or null for a delta.
+   * @param delta      the encoded flipped cells, or null for a keyframe.
+   */
+  private void add(long generation, long hash, BoardSnapshot keyframe, byte[] delta) {
+    if (count == generations.length) {
+      grow();
+    }
+    int slot = slot(count);
+    generations[slot] = generation;
+    hashes[slot] = hash;
+    keyframes[slot] = keyframe;
+    deltas[slot] = delta;
+    count = count + 1;
+    size = size + sizeOf(slot);
+    while (size > capacity) {
+      //the oldest keyframe goes with the deltas up to the next keyframe, never the newest one
+      int next = 1;
+      while (next < count && keyframes[slot(next)] == null) {
+        next++;
+      }
+      if (next == count) {
+        return;
+      }
+      for (int i = 0; i < next; i++) {
+        size = size - sizeOf(head);
+        keyframes[head] = null;
+        deltas[head] = null;
+        head = (head + 1) % generations.length;
+        count = count - 1;
+      }
+    }
+  }
+
+  /**
+   * Forget the entries from an index on.
+   *
+   * @param index the index of the first entry to forget.
+   */
+  private void removeFrom(int index) {
+    while (count > index) {
+      int slot = slot(count - 1);
+      size = size - sizeOf(slot);
+      keyframes[slot] = null;
+      deltas[slot] = null;
+      count = count - 1;
+    }
+    if (cellsGeneration > getLastGeneration()) {
+      cells = null;
+      cellsGeneration = -1;
+    }
+  }
+
+  /**
+   * Double the capacity of the ring of entries.
+   */
+  private void grow() {
+    int length = generations.length * 2;
+    long[] newGenerations = new long[length];
+    long[] newHashes = new long[length];
+    BoardSnapshot[] newKeyframes = new BoardSnapshot[length];
+    byte[][] newDeltas = new byte[length][];
+    for (int i = 0; i < count; i++) {
+      int slot = slot(i);
+      newGenerations[i] = generations[slot];
+      newHashes[i] = hashes[slot];
+      newKeyframes[i] = keyframes[slot];
+      newDeltas[i] = deltas[slot];
+    }
+    generations = newGenerations;
+    hashes = newHashes;
+    keyframes = newKeyframes;
+    deltas = newDeltas;
+    head = 0;
+  }
+
+  /**
+   * Compute the cells of an entry from the keyframe before it and the deltas in between.
+   *
+   * @param index the index of the entry.
+   * @return the cells in the layout of a snapshot.
+   */
+  private long[] cellsAt(int index) {
+    int keyframe = index;
+    while (keyframes[slot(keyframe)] == null) {
+      keyframe--;
+    }
+    long[] words = wordsOf(keyframes[slot(keyframe)]);
+    for (int i = keyframe + 1; i <= index; i++) {
+      byte[] delta = deltas[slot(i)];
+      long position = -1;
+      int offset = 0;
+      while (offset < delta.length) {
+        long gap = 0;
+        int shift = 0;
+        byte next;
+        do {
+          next = delta[offset++];
+          gap = gap | (long) (next & 0x7f) << shift;
+          shift = shift + 7;
+        } while (next < 0);
+        position = position + gap + 1;
+        int row = (int) (position / columnSize);
+        int col = (int) (position % columnSize);
+        words[row * wordsPerRow + col / WORD_SIZE] ^= 1L << col;
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Copy the cells of a keyframe.
+   *
+   * @param keyframe the keyframe.
+   * @return the cells in the layout of a snapshot.
+   */
+  private long[] wordsOf(BoardSnapshot keyframe) {
+    long[] words = new long[rowSize * wordsPerRow];
+    LongBuffer buffer = LongBuffer.wrap(words);
+    for (int row = 0; row < rowSize; row++) {
+      keyframe.copyRowTo(row, buffer);
+    }
+    return words;
+  }
+
+  /**
+   * Get the index of the entry of a generation by binary search.
+   *
+   * @param generation the generation.
+   * @return the index, or -1 if the generation is not in the history.
+   */
+  private int indexOf(long generation) {
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long found = generations[slot(middle)];
+      if (found < generation) {
+        low = middle + 1;
+      } else if (found > generation) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the number of deltas since the last keyframe.
+   *
+   * @return the number of deltas.
+   */
+  private int keyframeDistance() {
+    int distance = 0;
+    while (keyframes[slot(count - 1 - distance)] == null) {
+      distance++;
+    }
+    return distance;
+  }
+
+  private int slot(int index) {
+    return (head + index) % generations.length;
+  }
+
+  private long sizeOf(int slot) {
+    return ENTRY_SIZE + (keyframes[slot] == null
+        ? deltas[slot].length : (long) rowSize * wordsPerRow * Long.BYTES);
+  }
+}
@@ -1,12 +1,13 @@
 package org.sosylab.model;
 
+import java.nio.LongBuffer;
 import java.util.Collection;
 
 /**
  * Interface between GameBoard and Game. More accurately, for Game of Life this is an
  * interface between the grid of cells and the user interface.
  */
-public interface Grid {
+public interface Grid extends AutoCloseable {
 
   /**
    * Gets the status of a cell (alive or dead).
@@ -33,6 +34,79 @@ public interface Grid {
    */
   void setCellDead(int col, int row);
 
+  /**
+   * Sets a run of adjacent cells of a row alive.
+   *
+   * @param col   x-position of the first cell.
+   * @param row   y-position.
+   * @param count Number of cells, not negative.
+   */
+  default void setCellsAlive(int col, int row, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of cells may not be negative");
+    }
+    for (int i = 0; i < count; i++) {
+      setCellAlive(col + i, row);
+    }
+  }
+
+  /**
+   * Gets the end of the run of cells in a row that have the same status as a cell.
+   *
+   * @param col x-position of the cell.
+   * @param row y-position.
+   * @return The x-position after the last cell of the run, at most the number of columns.
+   */
+  default int getRunEnd(int col, int row) {
+    boolean alive = isCellAlive(col, row);
+    int end = col + 1;
+    while (end < getColumns() && isCellAlive(end, row) == alive) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Copies the cells of a row into words of 64 cells each, bit n of a word set for a live cell
+   * in column n of its 64 columns. Bits beyond the last column are clear.
+   *
+   * @param row   y-position.
+   * @param words Buffer that receives the (columns + 63) / 64 words of the row.
+   */
+  default void copyRowTo(int row, LongBuffer words) {
+    long word = 0;
+    for (int col = 0; col < getColumns(); col++) {
+      if (isCellAlive(col, row)) {
+        word |= 1L << col;
+      }
+      if (col % Long.SIZE == Long.SIZE - 1 || col == getColumns() - 1) {
+        words.put(word);
+        word = 0;
+      }
+    }
+  }
+
+  /**
+   * Sets the cells of a row from words of 64 cells each, see {@link #copyRowTo}. Bits beyond the
+   * last column are ignored.
+   *
+   * @param row   y-position.
+   * @param words Buffer that provides the (columns + 63) / 64 words of the row.
+   */
+  default void copyRowFrom(int row, LongBuffer words) {
+    long word = 0;
+    for (int col = 0; col < getColumns(); col++) {
+      if (col % Long.SIZE == 0) {
+        word = words.get();
+      }
+      if ((word & 1L << col) != 0) {
+        setCellAlive(col, row);
+      } else {
+        setCellDead(col, row);
+      }
+    }
+  }
+
   /**
    * Resizes the cell grid in x and y direction.
    *
@@ -62,6 +136,105 @@ public interface Grid {
    */
   Collection<Cell> getPopulation();
 
+  /**
+   * Gets a view of all living cells. The view is backed by the grid and finds the cells while it
+   * is iterated, so it takes no memory of its own and reflects later changes of the grid. The
+   * grid may not be changed while the view is iterated.
+   *
+   * @return Collection of all cells which are alive.
+   */
+  default Collection<Cell> getPopulationView() {
+    return new PopulationView(this);
+  }
+
+  /**
+   * Performs an action for the position of every living cell. Unlike iterating the population,
+   * this allocates nothing per cell.
+   *
+   * @param action The action, which may not change the grid.
+   */
+  default void forEachLive(IntIntConsumer action) {
+    forEachLive(0, 0, getColumns(), getRows(), action);
+  }
+
+  /**
+   * Performs an action for the position of every living cell within a region. Parts of the region
+   * outside the grid are ignored.
+   *
+   * @param col    x-position of the region.
+   * @param row    y-position of the region.
+   * @param width  number of columns of the region.
+   * @param height number of rows of the region.
+   * @param action The action, which may not change the grid.
+   */
+  default void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      int columnIndex = region.getFirstColumn();
+      while (columnIndex <= region.getLastColumn()) {
+        int end = Math.min(getRunEnd(columnIndex, rowIndex), region.getLastColumn() + 1);
+        if (isCellAlive(columnIndex, rowIndex)) {
+          for (int liveCol = columnIndex; liveCol < end; liveCol++) {
+            action.accept(liveCol, rowIndex);
+          }
+        }
+        columnIndex = end;
+      }
+    }
+  }
+
+  /**
+   * Performs an action for the position of every cell that changed its state in the last
+   * generation computed by {@link #next()}, so that a view of the grid can be updated without
+   * comparing whole boards. The action may also be called for cells that did not change, or more
+   * than once for a cell, for example for cells that were set since the generation or after the
+   * board was resized; it should look up the current state of each cell.
+   *
+   * @param action The action, which may not change the grid.
+   */
+  void forEachChanged(IntIntConsumer action);
+
+  /**
+   * Gets a 64-bit hash of the live cells, a Zobrist hash that grids keep up to date by the cells
+   * that change, see {@link CycleDetector}. Boards of a grid with the same live cells have the
+   * same hash; boards of different grids may not.
+   *
+   * @return The hash of the board.
+   */
+  default long getBoardHash() {
+    return Zobrist.hashCells(this);
+  }
+
+  /**
+   * Copies the cells and the state of the grid into an immutable snapshot, which can be read on
+   * other threads while the grid goes on.
+   *
+   * @return The snapshot of the current generation.
+   */
+  default BoardSnapshot snapshot() {
+    return BoardSnapshot.of(this);
+  }
+
+  /**
+   * Gets the number of living cells. The grid keeps the number up to date while it computes
+   * generations, so it is available without visiting the cells.
+   *
+   * @return Number of cells which are alive.
+   */
+  long getPopulationCount();
+
+  /**
+   * Gets the smallest rectangle that holds all living cells. The grid keeps the box up to date
+   * while it computes generations, so it is available without visiting the cells.
+   *
+   * @return The bounding box, or <code>null</code> if no cell is alive.
+   */
+  BoundingBox getBoundingBox();
+
   /**
    * Clears the grid.
    */
@@ -72,12 +245,171 @@ public interface Grid {
    */
   void next();
 
+  /**
+   * Computes the given number of generations.
+   *
+   * @param generations Number of generations, not negative.
+   */
+  default void advance(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    for (long i = 0; i < generations; i++) {
+      next();
+    }
+  }
+
+  /**
+   * Gets whether {@link #advance(long)} skips through many generations at once, far faster than
+   * computing them one by one, so that callers should not look at every generation of a long run.
+   *
+   * @return <code>true</code> if the grid skips through generations, <code>false</code> otherwise.
+   */
+  default boolean skipsGenerations() {
+    return false;
+  }
+
+  /**
+   * Sets the number of threads that compute a generation. Grids that always compute on a single
+   * thread do not support this.
+   *
+   * @param threads Number of threads, at least one.
+   * @throws UnsupportedOperationException if the grid does not support parallel computation.
+   */
+  default void setThreads(int threads) {
+    throw new UnsupportedOperationException("Parallel computation is not supported");
+  }
+
+  /**
+   * Sets whether the grid is a torus. The edges of a torus wrap around, so the first and the
+   * last column and the first and the last row are neighbours. A grid is bounded until it is set
+   * to be a torus; cells beyond a bounded edge are dead.
+   *
+   * @param torus <code>true</code> for a torus, <code>false</code> for a bounded grid.
+   * @throws UnsupportedOperationException if the grid cannot be a torus.
+   */
+  default void setTorus(boolean torus) {
+    if (torus) {
+      throw new UnsupportedOperationException("Toroidal boards are not supported");
+    }
+  }
+
+  /**
+   * Gets whether the grid is a torus.
+   *
+   * @return <code>true</code> if the edges wrap around, <code>false</code> otherwise.
+   */
+  default boolean isTorus() {
+    return false;
+  }
+
+  /**
+   * Gets whether the board grows as patterns expand beyond its edges. Cells of such a grid can be
+   * set at any signed position, see {@link #setCellAliveAt(int, int)}; its columns and rows are
+   * the part of the plane that the board has grown to so far.
+   *
+   * @return <code>true</code> if the board grows, <code>false</code> if its size is fixed.
+   */
+  default boolean isUnbounded() {
+    return false;
+  }
+
+  /**
+   * Gets the signed x-position of column 0. A board that grows to the left moves its first column
+   * to negative x-positions; the first column of other boards is at x-position 0.
+   *
+   * @return The x-position of column 0.
+   */
+  default int getFirstColumn() {
+    return 0;
+  }
+
+  /**
+   * Gets the signed y-position of row 0, see {@link #getFirstColumn()}.
+   *
+   * @return The y-position of row 0.
+   */
+  default int getFirstRow() {
+    return 0;
+  }
+
+  /**
+   * Gets the status of a cell at a signed position, which lies in column
+   * (x - {@link #getFirstColumn()}) and row (y - {@link #getFirstRow()}). Cells beyond the edges
+   * of the board are dead.
+   *
+   * @param x signed x-position.
+   * @param y signed y-position.
+   * @return <code>true</code> if the cell is alive, <code>false</code> otherwise.
+   */
+  default boolean isCellAliveAt(int x, int y) {
+    long col = (long) x - getFirstColumn();
+    long row = (long) y - getFirstRow();
+    return col >= 0 && row >= 0 && col < getColumns() && row < getRows()
+        && isCellAlive((int) col, (int) row);
+  }
+
+  /**
+   * Sets a cell at a signed position alive, see {@link #isCellAliveAt(int, int)}. An unbounded
+   * board grows to the cell.
+   *
+   * @param x signed x-position.
+   * @param y signed y-position.
+   * @throws IllegalArgumentException if the cell lies beyond the edges of a bounded board.
+   */
+  default void setCellAliveAt(int x, int y) {
+    setCellAlive(x - getFirstColumn(), y - getFirstRow());
+  }
+
+  /**
+   * Puts a cell at a signed position into a dead state, see {@link #isCellAliveAt(int, int)}.
+   *
+   * @param x signed x-position.
+   * @param y signed y-position.
+   * @throws IllegalArgumentException if the cell lies beyond the edges of a bounded board.
+   */
+  default void setCellDeadAt(int x, int y) {
+    setCellDead(x - getFirstColumn(), y - getFirstRow());
+  }
+
+  /**
+   * Sets the rule that computes the next generation. Conway's rule B3/S23 is used until another
+   * rule is set.
+   *
+   * @param rule The rule of the game.
+   * @throws IllegalArgumentException if the grid cannot compute the rule.
+   */
+  void setRule(Rule rule);
+
+  /**
+   * Gets the rule that computes the next generation.
+   *
+   * @return The rule of the game.
+   */
+  Rule getRule();
+
   /**
    * Gets the number of generations in this game.
    *
    * @return The current generation.
    */
-  int getGenerations();
+  long getGenerations();
+
+  /**
+   * Sets the number of generations in this game, for example when a saved game is restored.
+   *
+   * @param generations The current generation, not negative.
+   */
+  void setGenerations(long generations);
+
+  /**
+   * Releases the resources of the grid, such as memory outside of the heap or threads, as soon
+   * as it is replaced. The grid may not be used afterwards; grids that only hold memory on the
+   * heap need not be closed.
+   */
+  @Override
+  default void close() {
+  }
 
   /**
    * Gets the string representation of the current game state.
@@ -0,0 +1,1059 @@
+package org.sosylab.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Manage a game of life with the HashLife algorithm. The board is stored as a quadtree in which
+ * every distinct square exists only once, and the future of every square is memoised. Regular
+ * patterns therefore share most of their squares and their computations, which allows to advance
+ * them by billions of generations at once, see {@link #advance(long)}.
+ *
+ * <p>The board is surrounded by a frame of wall cells. Walls are never alive and count as dead
+ * neighbours, so they keep everything outside the board dead, just like the edges of the other
+ * implementations of {@link Grid}.
+ *
+ * <p>The number of nodes is bounded. When there are more nodes than allowed before a step, all
+ * memoised results are evicted and only the nodes of the current board are kept. When a step
+ * creates more nodes than allowed, it is abandoned and taken as two steps of half the
+ * generations after evicting the results; only a step of a single generation is never split, so
+ * it may exceed the bound by the nodes of one generation of the board.
+ */
+public class HashLifeGame implements Grid {
+
+  //default maximum number of nodes, which take about 100 MB
+  private static final int DEFAULT_MAX_NODES = 1 << 21;
+
+  //the smallest node that can be advanced has level 2, the board has at least this level
+  private static final int MIN_LEVEL = 2;
+
+  //the sides of a node, see distanceToCell
+  private static final int WEST = 0;
+  private static final int NORTH = 1;
+  private static final int EAST = 2;
+  private static final int SOUTH = 3;
+
+  //for each 4 times 4 square of cells, with bit (y * 4 + x) set for live cells, the four centre
+  //cells of the next generation under the rule, with bit ((y - 1) * 2 + (x - 1)) set for live cells
+  private final byte[] nextCentres = new byte[1 << 16];
+
+  //the rule of the game
+  private Rule rule;
+
+  private final QuadNode deadCell = new QuadNode(QuadNode.DEAD);
+  private final QuadNode aliveCell = new QuadNode(QuadNode.ALIVE);
+  private final QuadNode wallCell = new QuadNode(QuadNode.WALL);
+
+  //the canonical empty node of each level, created on demand
+  private QuadNode[] emptyNodes = new QuadNode[Long.SIZE];
+
+  //hash table of all canonical nodes, chained through QuadNode.next
+  private QuadNode[] nodes = new QuadNode[1 << 10];
+  private int nodeCount;
+  private int maxNodes = DEFAULT_MAX_NODES;
+  private int mark;
+
+  //thrown by join when a step creates more nodes than allowed, see step
+  private static final NodeLimitExceeded NODE_LIMIT_EXCEEDED = new NodeLimitExceeded();
+
+  //whether join throws NODE_LIMIT_EXCEEDED when there are more nodes than allowed
+  private boolean limitNodes;
+
+  //number of results computed by successor, which were not memoised yet
+  private long computedResults;
+
+  //the size of the columns of the game
+  private int columnSize;
+
+  //the size of the rows of the game
+  private int rowSize;
+
+  //the board; its frame lies in column 0 and row 0 and the cell (col, row) is at (col+1, row+1)
+  private QuadNode space;
+
+  //the board before the last advance, null if the board was replaced since
+  private QuadNode previousSpace;
+
+  //number of the generation of the game
+  private long generation;
+
+  //the bounding box of the live cells of the board boundsOf, null if not searched yet
+  private QuadNode boundsOf;
+  private BoundingBox bounds;
+
+
+  /**
+   * Create a game of life computed with HashLife.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public HashLifeGame(int cols, int rows) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    columnSize = cols;
+    rowSize = rows;
+    space = createFrame();
+    generation = 0;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Limit the number of nodes kept in memory. Each node takes about 50 bytes. The limit holds
+   * during the steps of more than one generation as well, see {@link HashLifeGame}.
+   *
+   * @param maxNodes the maximum number of nodes.
+   */
+  public void setMaxNodes(int maxNodes) {
+    if (maxNodes <= 0) {
+      throw new IllegalArgumentException("Number of nodes must be positive");
+    }
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * Get the number of results of nodes that were computed by all generations so far. Memoised
+   * results are not counted.
+   *
+   * @return the number of computed results.
+   */
+  public long getComputedResults() {
+    return computedResults;
+  }
+
+  /**
+   * Get the canonical node with the given quadrants.
+   *
+   * @return the canonical node.
+   */
+  QuadNode join(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se) {
+    int hash = QuadNode.hashOf(nw, ne, sw, se);
+    int index = hash & (nodes.length - 1);
+    for (QuadNode node = nodes[index]; node != null; node = node.next) {
+      if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+        return node;
+      }
+    }
+    QuadNode node = new QuadNode(nw, ne, sw, se, hash);
+    node.next = nodes[index];
+    nodes[index] = node;
+    nodeCount = nodeCount + 1;
+    if (nodeCount > nodes.length) {
+      rehash(nodes.length * 2);
+    }
+    if (limitNodes && nodeCount > maxNodes) {
+      throw NODE_LIMIT_EXCEEDED;
+    }
+    return node;
+  }
+
+  /**
+   * Get the node of a cell.
+   *
+   * @param alive whether the cell is alive.
+   * @return the live or the dead cell.
+   */
+  QuadNode cell(boolean alive) {
+    return alive ? aliveCell : deadCell;
+  }
+
+  /**
+   * Get the canonical node of a level without live cells and walls.
+   *
+   * @param level the level.
+   * @return the empty node.
+   */
+  QuadNode empty(int level) {
+    if (level == 0) {
+      return deadCell;
+    }
+    if (emptyNodes[level] == null) {
+      QuadNode quadrant = empty(level - 1);
+      emptyNodes[level] = join(quadrant, quadrant, quadrant, quadrant);
+    }
+    return emptyNodes[level];
+  }
+
+  /**
+   * Get the centre of a node, which is one level smaller.
+   *
+   * @param node a node of at least level 2.
+   * @return the centre.
+   */
+  private QuadNode centre(QuadNode node) {
+    return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+  }
+
+  /**
+   * Surround a node with empty cells, so that it becomes the centre of a node of the next level.
+   *
+   * @param node a node of at least level 1.
+   * @return the larger node.
+   */
+  private QuadNode expand(QuadNode node) {
+    QuadNode border = empty(node.level - 1);
+    return join(join(border, border, border, node.nw), join(border, border, node.ne, border),
+        join(border, node.sw, border, border), join(node.se, border, border, border));
+  }
+
+  /**
+   * Compute the centre of a node after 2^step generations. The result is memoised in the node
+   * for each step, so advancing by numbers of generations made of different powers of two does
+   * not evict the results of the other steps.
+   *
+   * @param node a node of at least level 2.
+   * @param step the binary logarithm of the number of generations, at most the level minus 2.
+   * @return the centre after the generations.
+   */
+  private QuadNode successor(QuadNode node, int step) {
+    boolean fullStep = step == node.level - 2;
+    QuadNode result = fullStep ? node.result
+        : node.stepResults == null ? null : node.stepResults[step];
+    if (result != null) {
+      return result;
+    }
+    computedResults = computedResults + 1;
+    if (node.population == 0) {
+      //without live cells nothing changes
+      result = centre(node);
+    } else if (node.level == MIN_LEVEL) {
+      result = nextCentre(node);
+    } else {
+      //the nine overlapping squares of half the size, advanced by up to half the generations
+      int subStep = Math.min(step, node.level - 3);
+      QuadNode n00 = successor(node.nw, subStep);
+      QuadNode n01 = successor(join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw), subStep);
+      QuadNode n02 = successor(node.ne, subStep);
+      QuadNode n10 = successor(join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne), subStep);
+      QuadNode n11 = successor(centre(node), subStep);
+      QuadNode n12 = successor(join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne), subStep);
+      QuadNode n20 = successor(node.sw, subStep);
+      QuadNode n21 = successor(join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw), subStep);
+      QuadNode n22 = successor(node.se, subStep);
+      if (fullStep) {
+        //advance the four quadrants of the result by the second half of the generations
+        result = join(successor(join(n00, n01, n10, n11), subStep),
+            successor(join(n01, n02, n11, n12), subStep),
+            successor(join(n10, n11, n20, n21), subStep),
+            successor(join(n11, n12, n21, n22), subStep));
+      } else {
+        //all generations are done, only put together the centre
+        result = join(centre(join(n00, n01, n10, n11)), centre(join(n01, n02, n11, n12)),
+            centre(join(n10, n11, n20, n21)), centre(join(n11, n12, n21, n22)));
+      }
+    }
+    if (fullStep) {
+      node.result = result;
+    } else {
+      if (node.stepResults == null) {
+        node.stepResults = new QuadNode[node.level - 2];
+      }
+      node.stepResults[step] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Compute the centre of a node of level 2 after one generation with a lookup table.
+   *
+   * @param node a node of level 2.
+   * @return the centre of level 1 in the next generation.
+   */
+  private QuadNode nextCentre(QuadNode node) {
+    int square = 0;
+    int walls = 0;
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) {
+        int state = getCell(node, x, y).state;
+        if (state == QuadNode.ALIVE) {
+          square |= 1 << (y * 4 + x);
+        } else if (state == QuadNode.WALL) {
+          walls |= 1 << (y * 4 + x);
+        }
+      }
+    }
+    int centre = nextCentres[square];
+    return join(nextCell(centre, walls, 0, 5), nextCell(centre, walls, 1, 6),
+        nextCell(centre, walls, 2, 9), nextCell(centre, walls, 3, 10));
+  }
+
+  /**
+   * Get the cell of level 0 for a centre cell of the next generation.
+   *
+   * @param centre       the live centre cells of the next generation.
+   * @param walls        the walls of the 4 times 4 square.
+   * @param centreIndex  the index of the cell in the centre.
+   * @param squareIndex  the index of the cell in the square.
+   * @return the cell.
+   */
+  private QuadNode nextCell(int centre, int walls, int centreIndex, int squareIndex) {
+    if ((walls >>> squareIndex & 1) != 0) {
+      return wallCell;
+    }
+    return (centre >>> centreIndex & 1) != 0 ? aliveCell : deadCell;
+  }
+
+  /**
+   * Get a cell of a node.
+   *
+   * @param node the node.
+   * @param x    x-position within the node.
+   * @param y    y-position within the node.
+   * @return the cell of level 0.
+   */
+  private QuadNode getCell(QuadNode node, long x, long y) {
+    while (node.level > 0) {
+      long half = 1L << (node.level - 1);
+      if (y < half) {
+        node = x < half ? node.nw : node.ne;
+      } else {
+        node = x < half ? node.sw : node.se;
+        y = y - half;
+      }
+      if (x >= half) {
+        x = x - half;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Replace a cell of a node.
+   *
+   * @param node the node.
+   * @param x    x-position within the node.
+   * @param y    y-position within the node.
+   * @param cell the new cell of level 0.
+   * @return the canonical node with the replaced cell.
+   */
+  private QuadNode setCell(QuadNode node, long x, long y, QuadNode cell) {
+    if (node.level == 0) {
+      return cell;
+    }
+    long half = 1L << (node.level - 1);
+    if (y < half) {
+      if (x < half) {
+        return join(setCell(node.nw, x, y, cell), node.ne, node.sw, node.se);
+      }
+      return join(node.nw, setCell(node.ne, x - half, y, cell), node.sw, node.se);
+    }
+    if (x < half) {
+      return join(node.nw, node.ne, setCell(node.sw, x, y - half, cell), node.se);
+    }
+    return join(node.nw, node.ne, node.sw, setCell(node.se, x - half, y - half, cell));
+  }
+
+  /**
+   * Create an empty board with its frame of walls.
+   *
+   * @return the board.
+   */
+  private QuadNode createFrame() {
+    return createFrame(frameLevel(), 0, 0);
+  }
+
+  /**
+   * Get the level of the smallest node that holds the board with its frame of walls.
+   *
+   * @return the level.
+   */
+  private int frameLevel() {
+    int level = MIN_LEVEL;
+    while ((1L << level) < Math.max(columnSize, rowSize) + 2L) {
+      level = level + 1;
+    }
+    return level;
+  }
+
+  /**
+   * Create the part of an empty board with its frame of walls that is covered by a node.
+   *
+   * @param level the level of the node.
+   * @param x     x-position of the node on the board.
+   * @param y     y-position of the node on the board.
+   * @return the node.
+   */
+  private QuadNode createFrame(int level, long x, long y) {
+    long last = (1L << level) - 1;
+    long frameColumn = columnSize + 1L;
+    long frameRow = rowSize + 1L;
+    boolean touchesFrame = x <= frameColumn && y <= frameRow;
+    boolean insideFrame = x >= 1 && x + last < frameColumn && y >= 1 && y + last < frameRow;
+    if (!touchesFrame || insideFrame) {
+      return empty(level);
+    }
+    if (level == 0) {
+      return wallCell;
+    }
+    long half = 1L << (level - 1);
+    return join(createFrame(level - 1, x, y), createFrame(level - 1, x + half, y),
+        createFrame(level - 1, x, y + half), createFrame(level - 1, x + half, y + half));
+  }
+
+  /**
+   * Surround a node with a frame of walls that encloses the board. Parts of the node outside the
+   * frame are dropped, just like {@link #createFrame(int, long, long)} creates the frame.
+   *
+   * @param node the node, whose cell (x, y) lies at (x, y) on the board.
+   * @param x    x-position of the node on the board.
+   * @param y    y-position of the node on the board.
+   * @return the node with its frame.
+   */
+  private QuadNode frame(QuadNode node, long x, long y) {
+    long last = (1L << node.level) - 1;
+    long frameColumn = columnSize + 1L;
+    long frameRow = rowSize + 1L;
+    boolean touchesFrame = x <= frameColumn && y <= frameRow;
+    boolean insideFrame = x >= 1 && x + last < frameColumn && y >= 1 && y + last < frameRow;
+    if (insideFrame) {
+      return node;
+    }
+    if (!touchesFrame) {
+      return empty(node.level);
+    }
+    if (node.level == 0) {
+      return wallCell;
+    }
+    long half = 1L << (node.level - 1);
+    return join(frame(node.nw, x, y), frame(node.ne, x + half, y),
+        frame(node.sw, x, y + half), frame(node.se, x + half, y + half));
+  }
+
+  /**
+   * Get a square that lies across four adjacent nodes. Squares are memoised by their nodes and
+   * position, so every distinct square is only put together once and shifting a quadtree keeps
+   * the sharing of its nodes.
+   *
+   * @param nw   the north-west node.
+   * @param ne   the north-east node, of the same level.
+   * @param sw   the south-west node.
+   * @param se   the south-east node.
+   * @param x    x-position of the square within the four nodes, less than their size.
+   * @param y    y-position of the square within the four nodes, less than their size.
+   * @param memo the squares put together so far.
+   * @return the square of the size of the nodes.
+   */
+  private QuadNode window(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se, long x, long y,
+      Map<List<Object>, QuadNode> memo) {
+    if (x == 0 && y == 0) {
+      return nw;
+    }
+    QuadNode empty = empty(nw.level);
+    if (nw == empty && ne == empty && sw == empty && se == empty) {
+      return empty;
+    }
+    List<Object> key = List.of(nw, ne, sw, se, x, y);
+    QuadNode square = memo.get(key);
+    if (square == null) {
+      //the 4 times 4 quadrants of the nodes, row by row
+      QuadNode[] quadrants = {nw.nw, nw.ne, ne.nw, ne.ne, nw.sw, nw.se, ne.sw, ne.se,
+          sw.nw, sw.ne, se.nw, se.ne, sw.sw, sw.se, se.sw, se.se};
+      long half = 1L << (nw.level - 1);
+      square = join(window(quadrants, x, y, half, memo),
+          window(quadrants, x + half, y, half, memo),
+          window(quadrants, x, y + half, half, memo),
+          window(quadrants, x + half, y + half, half, memo));
+      memo.put(key, square);
+    }
+    return square;
+  }
+
+  /**
+   * Get a quadrant of a square that lies across four adjacent nodes.
+   *
+   * @param quadrants the 4 times 4 quadrants of the nodes, row by row.
+   * @param x         x-position of the quadrant within the nodes.
+   * @param y         y-position of the quadrant within the nodes.
+   * @param half      the size of the quadrants.
+   * @param memo      the squares put together so far.
+   * @return the quadrant.
+   */
+  private QuadNode window(QuadNode[] quadrants, long x, long y, long half,
+      Map<List<Object>, QuadNode> memo) {
+    int index = (int) (y / half) * 4 + (int) (x / half);
+    return window(quadrants[index], quadrants[index + 1], quadrants[index + 4],
+        quadrants[index + 5], x % half, y % half, memo);
+  }
+
+  /**
+   * Get the board as a quadtree with the cell (col, row) at (col, row). The walls to the left and
+   * above the board are cut off, the walls to its right and below are kept.
+   *
+   * @return the board.
+   */
+  QuadNode getBoard() {
+    QuadNode empty = empty(space.level);
+    return window(space, empty, empty, empty, 1, 1, new HashMap<>());
+  }
+
+  /**
+   * Replace the board by a quadtree. The nodes have to be canonical nodes of this game, see
+   * {@link #join}. Cells of the quadtree beyond the board are dropped.
+   *
+   * @param board      the board, with the cell (col, row) at (col, row).
+   * @param cols       the size of the columns.
+   * @param rows       the size of the rows.
+   * @param generation the number of the generation of the board.
+   */
+  void setBoard(QuadNode board, int cols, int rows, long generation) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    columnSize = cols;
+    rowSize = rows;
+    int level = frameLevel();
+    while (board.level < level) {
+      QuadNode empty = empty(board.level);
+      board = join(board, empty, empty, empty);
+    }
+    while (board.level > level) {
+      board = board.nw;
+    }
+    //move the board by one cell into the frame
+    QuadNode empty = empty(level);
+    long shift = (1L << level) - 1;
+    space = frame(window(empty, empty, empty, board, shift, shift, new HashMap<>()), 0, 0);
+    previousSpace = null;
+    this.generation = generation;
+  }
+
+  /**
+   * Advance the board by 2^step generations.
+   *
+   * @param step the binary logarithm of the number of generations.
+   */
+  private void step(int step) {
+    if (nodeCount > maxNodes) {
+      collectGarbage();
+    }
+    //a step of a single generation cannot be split, so it may exceed the limit
+    limitNodes = step > 0;
+    try {
+      //the board has to be the centre of a node that is large enough for the step
+      QuadNode root = expand(space);
+      while (root.level - 2 < step) {
+        root = expand(root);
+      }
+      QuadNode result = successor(root, step);
+      while (result.level > space.level) {
+        result = centre(result);
+      }
+      space = result;
+    } catch (NodeLimitExceeded e) {
+      //the board is unchanged and the results computed so far are still valid, but they have
+      //to be evicted to take the generations in two halves
+      limitNodes = false;
+      collectGarbage();
+      step(step - 1);
+      step(step - 1);
+    } finally {
+      limitNodes = false;
+    }
+  }
+
+  /**
+   * Evict all memoised results and all nodes that are not part of the current board.
+   */
+  private void collectGarbage() {
+    nodes = new QuadNode[nodes.length];
+    nodeCount = 0;
+    mark = mark + 1;
+    for (QuadNode emptyNode : emptyNodes) {
+      if (emptyNode != null) {
+        keep(emptyNode);
+      }
+    }
+    keep(space);
+  }
+
+  /**
+   * Put a node and its quadrants back into the table of canonical nodes.
+   *
+   * @param node the node to keep.
+   */
+  private void keep(QuadNode node) {
+    if (node.level == 0 || node.mark == mark) {
+      return;
+    }
+    node.mark = mark;
+    node.result = null;
+    node.stepResults = null;
+    keep(node.nw);
+    keep(node.ne);
+    keep(node.sw);
+    keep(node.se);
+    int index = node.hash & (nodes.length - 1);
+    node.next = nodes[index];
+    nodes[index] = node;
+    nodeCount = nodeCount + 1;
+  }
+
+  /**
+   * Move all nodes into a larger table.
+   *
+   * @param capacity the new number of buckets, a power of two.
+   */
+  private void rehash(int capacity) {
+    QuadNode[] oldNodes = nodes;
+    nodes = new QuadNode[capacity];
+    for (QuadNode bucket : oldNodes) {
+      QuadNode node = bucket;
+      while (node != null) {
+        QuadNode following = node.next;
+        int index = node.hash & (capacity - 1);
+        node.next = nodes[index];
+        nodes[index] = node;
+        node = following;
+      }
+    }
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    space = setCell(space, col + 1L, row + 1L, aliveCell);
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return getCell(space, col + 1L, row + 1L) == aliveCell;
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    space = setCell(space, col + 1L, row + 1L, deadCell);
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} All memoised results are evicted, since they were computed with the old rule.
+   * Rules with B0 are not supported, because they would give birth to cells in empty squares.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    if (rule.isBornWithoutNeighbours()) {
+      throw new IllegalArgumentException("Rules with B0 are not supported");
+    }
+    this.rule = rule;
+    for (int square = 0; square < nextCentres.length; square++) {
+      int centre = 0;
+      for (int y = 1; y <= 2; y++) {
+        for (int x = 1; x <= 2; x++) {
+          int liveNeighbours = 0;
+          for (int neighbourY = y - 1; neighbourY <= y + 1; neighbourY++) {
+            for (int neighbourX = x - 1; neighbourX <= x + 1; neighbourX++) {
+              liveNeighbours += square >>> (neighbourY * 4 + neighbourX) & 1;
+            }
+          }
+          boolean alive = (square >>> (y * 4 + x) & 1) != 0;
+          if (alive) {
+            liveNeighbours = liveNeighbours - 1;
+          }
+          if (rule.nextState(alive, liveNeighbours)) {
+            centre |= 1 << ((y - 1) * 2 + (x - 1));
+          }
+        }
+      }
+      nextCentres[square] = (byte) centre;
+    }
+    collectGarbage();
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  @Override
+  public void clear() {
+    space = createFrame();
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void next() {
+    advance(1);
+  }
+
+  /**
+   * {@inheritDoc} The generations are computed as a sum of powers of two, each of which takes
+   * time proportional to the logarithm of its number of generations for regular patterns.
+   */
+  @Override
+  public void advance(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    previousSpace = space;
+    for (int step = 0; step < Long.SIZE - 1; step++) {
+      if ((generations >>> step & 1) != 0) {
+        step(step);
+      }
+    }
+    generation = generation + generations;
+  }
+
+  /**
+   * {@inheritDoc} Large numbers of generations take hardly longer than small ones.
+   */
+  @Override
+  public boolean skipsGenerations() {
+    return true;
+  }
+
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+
+    List<Cell> population = new ArrayList<>();
+    collectLiveCells(space, 0, 0, population);
+    columnSize = cols;
+    rowSize = rows;
+    space = createFrame();
+    previousSpace = null;
+    for (Cell cell : population) {
+      if (cell.getColumn() < cols && cell.getRow() < rows) {
+        setCellAlive(cell.getColumn(), cell.getRow());
+      }
+    }
+  }
+
+  /**
+   * Add the live cells of a node to a collection.
+   *
+   * @param node       the node.
+   * @param x          x-position of the node on the board.
+   * @param y          y-position of the node on the board.
+   * @param population the collection of live cells.
+   */
+  private void collectLiveCells(QuadNode node, long x, long y, Collection<Cell> population) {
+    if (node.population == 0) {
+      return;
+    }
+    if (node.level == 0) {
+      Cell cell = new Cell((int) x - 1, (int) y - 1);
+      cell.setStatusAlive();
+      population.add(cell);
+      return;
+    }
+    long half = 1L << (node.level - 1);
+    collectLiveCells(node.nw, x, y, population);
+    collectLiveCells(node.ne, x + half, y, population);
+    collectLiveCells(node.sw, x, y + half, population);
+    collectLiveCells(node.se, x + half, y + half, population);
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> population = new HashSet<>();
+    collectLiveCells(space, 0, 0, population);
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The view walks the quadtree and skips every node without live cells.
+   */
+  @Override
+  public Collection<Cell> getPopulationView() {
+    return new PopulationView(this) {
+      @Override
+      public Iterator<Cell> iterator() {
+        return new NodeIterator(space);
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc} Nodes without live cells or outside the region are skipped.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox region = new BoundingBox(0, 0, columnSize - 1, rowSize - 1)
+        .intersect(col, row, width, height);
+    if (region != null) {
+      forEachLive(space, 0, 0, region, action);
+    }
+  }
+
+  /**
+   * Perform an action for the position of every live cell of a node within a region.
+   *
+   * @param node   the node.
+   * @param x      x-position of the node on the board.
+   * @param y      y-position of the node on the board.
+   * @param region the region of the board.
+   * @param action the action.
+   */
+  private void forEachLive(QuadNode node, long x, long y, BoundingBox region,
+      IntIntConsumer action) {
+    long size = 1L << node.level;
+    //the frame puts the cell of column 0 and row 0 at position 1
+    if (node.population == 0 || x + size - 1 <= region.getFirstColumn()
+        || x - 1 > region.getLastColumn() || y + size - 1 <= region.getFirstRow()
+        || y - 1 > region.getLastRow()) {
+      return;
+    }
+    if (node.level == 0) {
+      action.accept((int) x - 1, (int) y - 1);
+      return;
+    }
+    long half = size / 2;
+    forEachLive(node.nw, x, y, region, action);
+    forEachLive(node.ne, x + half, y, region, action);
+    forEachLive(node.sw, x, y + half, region, action);
+    forEachLive(node.se, x + half, y + half, region, action);
+  }
+
+  /**
+   * {@inheritDoc} The board before the last generation is compared with the current board, and
+   * the quadrants that both share are skipped; after {@link #advance(long)} by several
+   * generations, the cells that differ from the board before are visited.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    if (previousSpace != null) {
+      forEachChanged(previousSpace, space, 0, 0, action);
+    }
+  }
+
+  /**
+   * Perform an action for the position of every cell that differs between two nodes.
+   *
+   * @param before the node before the change.
+   * @param after  the node after the change, of the same level.
+   * @param x      x-position of the nodes on the board.
+   * @param y      y-position of the nodes on the board.
+   * @param action the action.
+   */
+  private void forEachChanged(QuadNode before, QuadNode after, long x, long y,
+      IntIntConsumer action) {
+    if (before == after || before.population == 0 && after.population == 0) {
+      return;
+    }
+    if (after.level == 0) {
+      if ((before.state == QuadNode.ALIVE) != (after.state == QuadNode.ALIVE)) {
+        action.accept((int) x - 1, (int) y - 1);
+      }
+      return;
+    }
+    long half = 1L << (after.level - 1);
+    forEachChanged(before.nw, after.nw, x, y, action);
+    forEachChanged(before.ne, after.ne, x + half, y, action);
+    forEachChanged(before.sw, after.sw, x, y + half, action);
+    forEachChanged(before.se, after.se, x + half, y + half, action);
+  }
+
+  /**
+   * {@inheritDoc} Every node has a hash of its squares, computed from the hashes of its quadrants
+   * when it is created, so a generation only hashes the nodes that it created. The hash of the
+   * board is the hash of its node together with its population.
+   */
+  @Override
+  public long getBoardHash() {
+    return Zobrist.mix((long) space.hash << Integer.SIZE ^ space.population);
+  }
+
+  /**
+   * {@inheritDoc} Every node counts its live cells, so this is the count of the board.
+   */
+  @Override
+  public long getPopulationCount() {
+    return space.population;
+  }
+
+  /**
+   * {@inheritDoc} The box is searched once per board along the edges of its quadtree, which
+   * takes time proportional to the number of distinct nodes along the edges of the pattern.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (space.population == 0) {
+      return null;
+    }
+    if (boundsOf != space) {
+      long last = (1L << space.level) - 1;
+      //the cell (col, row) lies at (col + 1, row + 1)
+      bounds = new BoundingBox((int) distanceToCell(space, WEST, new HashMap<>()) - 1,
+          (int) distanceToCell(space, NORTH, new HashMap<>()) - 1,
+          (int) (last - distanceToCell(space, EAST, new HashMap<>())) - 1,
+          (int) (last - distanceToCell(space, SOUTH, new HashMap<>())) - 1);
+      boundsOf = space;
+    }
+    return bounds;
+  }
+
+  /**
+   * Get the distance from a side of a node to its nearest live cell. Distances are memoised by
+   * node, since identical nodes have the same distance.
+   *
+   * @param node a node with live cells.
+   * @param side the side, {@link #WEST}, {@link #NORTH}, {@link #EAST} or {@link #SOUTH}.
+   * @param memo the distances of the nodes searched so far.
+   * @return the number of columns or rows between the side and the nearest live cell.
+   */
+  private long distanceToCell(QuadNode node, int side, Map<QuadNode, Long> memo) {
+    if (node.level == 0) {
+      return 0;
+    }
+    Long distance = memo.get(node);
+    if (distance == null) {
+      //the quadrants along the side and the ones opposite them
+      QuadNode[] quadrants = {node.nw, node.sw, node.ne, node.se, node.nw, node.ne, node.sw,
+          node.se, node.ne, node.se, node.nw, node.sw, node.sw, node.se, node.nw, node.ne};
+      int near = side * 4;
+      long shortest = Long.MAX_VALUE;
+      for (int index = near; index < near + 4; index++) {
+        if (index == near + 2 && shortest != Long.MAX_VALUE) {
+          break;
+        }
+        QuadNode quadrant = quadrants[index];
+        if (quadrant.population > 0) {
+          long offset = index < near + 2 ? 0 : 1L << (node.level - 1);
+          shortest = Math.min(shortest, offset + distanceToCell(quadrant, side, memo));
+        }
+      }
+      distance = shortest;
+      memo.put(node, distance);
+    }
+    return distance;
+  }
+
+  /**
+   * Signals that a step created more nodes than allowed. It carries no stack trace, so a single
+   * instance is thrown every time.
+   */
+  private static final class NodeLimitExceeded extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    NodeLimitExceeded() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Iterate over the live cells of a board, depth first through its quadtree. Nodes are
+   * immutable, so the iterator keeps visiting the board it started with even if the game moves on.
+   */
+  private static final class NodeIterator implements Iterator<Cell> {
+
+    //the nodes still to visit with their positions; a node pushes at most three quadrants more
+    //than it pops, so three entries per level suffice
+    private final QuadNode[] nodes;
+    private final long[] xs;
+    private final long[] ys;
+    private int size;
+
+    //whether the next live cell was found, and its position
+    private boolean found;
+    private long nextX;
+    private long nextY;
+
+    NodeIterator(QuadNode root) {
+      nodes = new QuadNode[3 * root.level + 1];
+      xs = new long[nodes.length];
+      ys = new long[nodes.length];
+      push(root, 0, 0);
+    }
+
+    private void push(QuadNode node, long x, long y) {
+      if (node.population > 0) {
+        nodes[size] = node;
+        xs[size] = x;
+        ys[size] = y;
+        size = size + 1;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!found && size > 0) {
+        size = size - 1;
+        QuadNode node = nodes[size];
+        long x = xs[size];
+        long y = ys[size];
+        if (node.level == 0) {
+          found = true;
+          nextX = x;
+          nextY = y;
+        } else {
+          //the north-west quadrant is pushed last, so it is visited first
+          long half = 1L << (node.level - 1);
+          push(node.se, x + half, y + half);
+          push(node.sw, x, y + half);
+          push(node.ne, x + half, y);
+          push(node.nw, x, y);
+        }
+      }
+      return found;
+    }
+
+    @Override
+    public Cell next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      found = false;
+      //the cell (col, row) lies at (col + 1, row + 1)
+      Cell cell = new Cell((int) nextX - 1, (int) nextY - 1);
+      cell.setStatusAlive();
+      return cell;
+    }
+  }
+}
@@ -0,0 +1,712 @@
+package org.sosylab.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Manage a game of life on a board that grows as its patterns expand. The plane is divided into
+ * chunks of 64 times 64 cells, which are kept in a hash map by their signed position and
+ * allocated when a cell is set or born in them; growing the board never copies a chunk, and
+ * chunks that stay empty are dropped again. Like the tiles of {@link TiledGame}, every chunk is
+ * computed from a halo that holds its rows and the cells around it, see
+ * {@link TileKernel#computeHaloTile(long[], long[], long[], long[], int, int, long)}, and only the
+ * chunks that changed in the previous generation and their neighbours are computed.
+ *
+ * <p>Cells can be set at signed positions, see {@link #setCellAliveAt(int, int)}. The columns and
+ * rows of the game are the part of the plane that it has grown to: the board it was created with
+ * and every cell that was alive since. Cells lie from -2^30 to 2^30 - 65 in either direction;
+ * cells beyond are dead.
+ */
+public class InfiniteGame implements Grid {
+
+  //number of cells packed into one word, the width and the height of a chunk
+  private static final int CHUNK_SIZE = Long.SIZE;
+
+  //the signed positions of chunks lie from -MAX_CHUNKS to MAX_CHUNKS - 2
+  private static final int MAX_CHUNKS = 1 << 24;
+
+  /**
+   * The largest number of columns and rows that a board can start with, 2^30 - 64.
+   */
+  public static final int MAX_SIZE = (MAX_CHUNKS - 1) * CHUNK_SIZE;
+
+  //the rows of a chunk that is not allocated
+  private static final long[] EMPTY_CHUNK = new long[CHUNK_SIZE];
+
+  //the allocated chunks by their packed position
+  private final LongMap<Chunk> chunks;
+
+  //the packed positions of the chunks to compute in the current generation
+  private final LongSet activeChunks;
+
+  //the chunks that changed in the current generation, whose buffers are swapped afterwards
+  private final ArrayList<Chunk> changedChunks;
+
+  //the part of the plane that the board has grown to, column 0 at x-position firstColumn and
+  //row 0 at y-position firstRow
+  private int firstColumn;
+  private int firstRow;
+  private int columnSize;
+  private int rowSize;
+
+  //chunks whose cells were set since their statistics were computed
+  private boolean statisticsStale;
+
+  //number of live cells and their signed bounding box, only meaningful if cells are alive
+  private long population;
+  private int firstX;
+  private int firstY;
+  private int lastX;
+  private int lastY;
+
+  //the bounding box as handed out, null if not created since the box changed
+  private BoundingBox bounds;
+
+  //the Zobrist hash of the words of the chunks, updated by every word that changes
+  private long hash;
+
+  //the halo of the chunk being computed, see TileKernel, and the chunks around it
+  private final long[] haloLeft = new long[CHUNK_SIZE + 2];
+  private final long[] haloMiddle = new long[CHUNK_SIZE + 2];
+  private final long[] haloRight = new long[CHUNK_SIZE + 2];
+  private final long[][] around = new long[9][];
+
+  //the next generation of a chunk that is not allocated yet
+  private final long[] nextWords = new long[CHUNK_SIZE];
+
+  //number of the generation of the game
+  private long generation;
+
+  //the rule of the game and the kernel compiled for it
+  private Rule rule;
+  private TileKernel kernel;
+
+
+  /**
+   * Create a game of life whose board starts with the given size and grows beyond it.
+   *
+   * @param cols the size of the columns the board starts with.
+   * @param rows the size of the rows the board starts with.
+   */
+  public InfiniteGame(int cols, int rows) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    if (cols > MAX_SIZE || rows > MAX_SIZE) {
+      throw new IllegalArgumentException("Number of columns and rows may not exceed 2^30 - 64");
+    }
+    chunks = new LongMap<>();
+    activeChunks = new LongSet();
+    changedChunks = new ArrayList<>();
+    columnSize = cols;
+    rowSize = rows;
+    generation = 0;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Pack the signed position of a chunk into a non-negative long.
+   *
+   * @param chunkX the x-position of the chunk.
+   * @param chunkY the y-position of the chunk.
+   * @return the packed position.
+   */
+  private static long pack(int chunkX, int chunkY) {
+    return (long) (chunkX + MAX_CHUNKS) << Integer.SIZE | (chunkY + MAX_CHUNKS);
+  }
+
+  /**
+   * Check whether a chunk lies within the plane of the game.
+   *
+   * @param chunkX the x-position of the chunk.
+   * @param chunkY the y-position of the chunk.
+   * @return true if cells of the chunk can be alive.
+   */
+  private static boolean isInPlane(int chunkX, int chunkY) {
+    return chunkX >= -MAX_CHUNKS && chunkX < MAX_CHUNKS - 1
+        && chunkY >= -MAX_CHUNKS && chunkY < MAX_CHUNKS - 1;
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  /**
+   * Check that a signed position lies within the plane of the game.
+   *
+   * @param x signed x-position.
+   * @param y signed y-position.
+   */
+  private static void checkSignedPosition(int x, int y) {
+    if (!isInPlane(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE))) {
+      throw new IllegalArgumentException("Signed positions must lie from -2^30 to 2^30 - 65");
+    }
+  }
+
+  /**
+   * Get the chunk that holds a signed position.
+   *
+   * @param x signed x-position.
+   * @param y signed y-position.
+   * @return the chunk, or null if it is not allocated.
+   */
+  private Chunk chunkAt(int x, int y) {
+    return chunks.get(pack(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE)));
+  }
+
+  /**
+   * Set a word of a chunk and update the hash by it.
+   *
+   * @param chunk the chunk.
+   * @param row   the row of the word within the chunk.
+   * @param word  the new word.
+   */
+  private void setWord(Chunk chunk, int row, long word) {
+    long oldWord = chunk.cells[row];
+    if (oldWord != word) {
+      hash ^= wordKey(chunk, row, oldWord) ^ wordKey(chunk, row, word);
+      chunk.cells[row] = word;
+      chunk.changed = true;
+      chunk.stale = true;
+      statisticsStale = true;
+    }
+  }
+
+  /**
+   * Get the Zobrist key of a word of a chunk.
+   *
+   * @param chunk the chunk.
+   * @param row   the row of the word within the chunk.
+   * @param word  the cells of the word.
+   * @return the key.
+   */
+  private static long wordKey(Chunk chunk, int row, long word) {
+    return Zobrist.wordKey(chunk.key * CHUNK_SIZE + row, word);
+  }
+
+  /**
+   * Grow the board so that it holds a rectangle of signed positions.
+   *
+   * @param minX the first x-position.
+   * @param minY the first y-position.
+   * @param maxX the last x-position.
+   * @param maxY the last y-position.
+   */
+  private void growTo(int minX, int minY, int maxX, int maxY) {
+    if (minX < firstColumn) {
+      columnSize = columnSize + firstColumn - minX;
+      firstColumn = minX;
+    }
+    if (minY < firstRow) {
+      rowSize = rowSize + firstRow - minY;
+      firstRow = minY;
+    }
+    columnSize = Math.max(columnSize, maxX - firstColumn + 1);
+    rowSize = Math.max(rowSize, maxY - firstRow + 1);
+  }
+
+  /**
+   * Get the number of chunks that are allocated, chunks without live cells around them are
+   * dropped.
+   *
+   * @return the number of chunks.
+   */
+  public int getChunkCount() {
+    return chunks.size();
+  }
+
+  @Override
+  public boolean isUnbounded() {
+    return true;
+  }
+
+  @Override
+  public int getFirstColumn() {
+    return firstColumn;
+  }
+
+  @Override
+  public int getFirstRow() {
+    return firstRow;
+  }
+
+  @Override
+  public boolean isCellAliveAt(int x, int y) {
+    Chunk chunk = chunkAt(x, y);
+    return chunk != null && (chunk.cells[Math.floorMod(y, CHUNK_SIZE)] & 1L << x) != 0;
+  }
+
+  /**
+   * {@inheritDoc} The chunk of the cell is allocated if it is not, and the board grows to the
+   * cell.
+   *
+   * @throws IllegalArgumentException if the cell lies beyond the plane of the game.
+   */
+  @Override
+  public void setCellAliveAt(int x, int y) {
+    checkSignedPosition(x, y);
+    Chunk chunk = chunkAt(x, y);
+    if (chunk == null) {
+      chunk = new Chunk(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE));
+      chunks.put(chunk.key, chunk);
+    }
+    int row = Math.floorMod(y, CHUNK_SIZE);
+    setWord(chunk, row, chunk.cells[row] | 1L << x);
+    growTo(x, y, x, y);
+  }
+
+  /**
+   * {@inheritDoc} The board does not shrink.
+   *
+   * @throws IllegalArgumentException if the cell lies beyond the plane of the game.
+   */
+  @Override
+  public void setCellDeadAt(int x, int y) {
+    checkSignedPosition(x, y);
+    Chunk chunk = chunkAt(x, y);
+    if (chunk != null) {
+      int row = Math.floorMod(y, CHUNK_SIZE);
+      setWord(chunk, row, chunk.cells[row] & ~(1L << x));
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    setCellAliveAt(firstColumn + col, firstRow + row);
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return isCellAliveAt(firstColumn + col, firstRow + row);
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    setCellDeadAt(firstColumn + col, firstRow + row);
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} The rule is compiled into the kernel that computes the chunks, see
+   * {@link RuleKernel}. A rule with B0 would fill the whole plane, so it is not supported.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    if (rule.isBornWithoutNeighbours()) {
+      throw new IllegalArgumentException("Rules with B0 are not supported");
+    }
+    this.rule = rule;
+    kernel = RuleKernel.compile(rule);
+    //the next state of stable chunks may differ under the new rule
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk != null) {
+        chunk.changed = true;
+      }
+    }
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * {@inheritDoc} The chunks are visited in no particular order.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk == null || chunk.population == 0) {
+        continue;
+      }
+      for (int chunkRow = 0; chunkRow < CHUNK_SIZE; chunkRow++) {
+        int rowIndex = chunk.y * CHUNK_SIZE + chunkRow - firstRow;
+        if (rowIndex < region.getFirstRow() || rowIndex > region.getLastRow()) {
+          continue;
+        }
+        long word = chunk.cells[chunkRow];
+        while (word != 0) {
+          int columnIndex = chunk.x * CHUNK_SIZE + Long.numberOfTrailingZeros(word) - firstColumn;
+          if (columnIndex >= region.getFirstColumn() && columnIndex <= region.getLastColumn()) {
+            action.accept(columnIndex, rowIndex);
+          }
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Only the chunks that changed are visited; their second buffer still holds the
+   * previous generation, so the changed cells are the bits that differ.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk == null || !chunk.changed) {
+        continue;
+      }
+      for (int chunkRow = 0; chunkRow < CHUNK_SIZE; chunkRow++) {
+        long word = chunk.cells[chunkRow] ^ chunk.nextCells[chunkRow];
+        while (word != 0) {
+          action.accept(chunk.x * CHUNK_SIZE + Long.numberOfTrailingZeros(word) - firstColumn,
+              chunk.y * CHUNK_SIZE + chunkRow - firstRow);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The hash has a key for every word of a chunk and its cells, keyed by the signed
+   * position of the chunk, so it does not change when the board grows.
+   */
+  @Override
+  public long getBoardHash() {
+    return hash;
+  }
+
+  /**
+   * {@inheritDoc} The count is summed up from the chunks that changed while computing the last
+   * generation; only chunks whose cells were set since then are counted again.
+   */
+  @Override
+  public long getPopulationCount() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The box is put together from the chunks, in the columns and rows of the part of
+   * the plane that the board has grown to.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    if (population == 0) {
+      return null;
+    }
+    if (bounds == null) {
+      bounds = new BoundingBox(firstX - firstColumn, firstY - firstRow, lastX - firstColumn,
+          lastY - firstRow);
+    }
+    return bounds;
+  }
+
+  /**
+   * Count the live cells of the chunks that are stale, and put together the population and the
+   * bounding box of the board.
+   */
+  private void updateStatistics() {
+    statisticsStale = false;
+    bounds = null;
+    population = 0;
+    firstX = Integer.MAX_VALUE;
+    firstY = Integer.MAX_VALUE;
+    lastX = Integer.MIN_VALUE;
+    lastY = Integer.MIN_VALUE;
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk == null) {
+        continue;
+      }
+      if (chunk.stale) {
+        countChunk(chunk);
+      }
+      if (chunk.population == 0) {
+        continue;
+      }
+      population = population + chunk.population;
+      firstX = Math.min(firstX, chunk.x * CHUNK_SIZE
+          + Long.numberOfTrailingZeros(chunk.columns));
+      lastX = Math.max(lastX, chunk.x * CHUNK_SIZE + CHUNK_SIZE - 1
+          - Long.numberOfLeadingZeros(chunk.columns));
+      firstY = Math.min(firstY, chunk.y * CHUNK_SIZE
+          + Long.numberOfTrailingZeros(chunk.rowMask));
+      lastY = Math.max(lastY, chunk.y * CHUNK_SIZE + CHUNK_SIZE - 1
+          - Long.numberOfLeadingZeros(chunk.rowMask));
+    }
+  }
+
+  /**
+   * Count the live cells of a chunk and find its columns and rows with live cells.
+   *
+   * @param chunk the chunk.
+   */
+  private static void countChunk(Chunk chunk) {
+    int count = 0;
+    long columns = 0;
+    long rows = 0;
+    for (int row = 0; row < CHUNK_SIZE; row++) {
+      long word = chunk.cells[row];
+      count += Long.bitCount(word);
+      columns |= word;
+      //the sign bit of (word | -word) is set for all words but 0
+      rows |= ((word | -word) >>> (CHUNK_SIZE - 1)) << row;
+    }
+    chunk.population = count;
+    chunk.columns = columns;
+    chunk.rowMask = rows;
+    chunk.stale = false;
+  }
+
+  /**
+   * {@inheritDoc} All chunks are dropped; the board keeps the size it has grown to.
+   */
+  @Override
+  public void clear() {
+    chunks.clear();
+    statisticsStale = false;
+    population = 0;
+    bounds = null;
+    hash = 0;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void next() {
+    generation = generation + 1;
+    activeChunks.clear();
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk == null || !chunk.changed) {
+        continue;
+      }
+      for (int chunkY = chunk.y - 1; chunkY <= chunk.y + 1; chunkY++) {
+        for (int chunkX = chunk.x - 1; chunkX <= chunk.x + 1; chunkX++) {
+          if (isInPlane(chunkX, chunkY)) {
+            activeChunks.add(pack(chunkX, chunkY));
+          }
+        }
+      }
+    }
+    changedChunks.clear();
+    for (int slot = 0; slot < activeChunks.capacity(); slot++) {
+      long key = activeChunks.slotValue(slot);
+      if (key != LongSet.EMPTY) {
+        computeChunk(key);
+      }
+    }
+    //swap the buffers of the changed chunks, the buffers of the other chunks are not read
+    for (int i = 0; i < changedChunks.size(); i++) {
+      Chunk chunk = changedChunks.get(i);
+      long[] previousCells = chunk.cells;
+      chunk.cells = chunk.nextCells;
+      chunk.nextCells = previousCells;
+      for (int row = 0; row < CHUNK_SIZE; row++) {
+        if (chunk.cells[row] != previousCells[row]) {
+          hash ^= wordKey(chunk, row, previousCells[row]) ^ wordKey(chunk, row, chunk.cells[row]);
+        }
+      }
+      countChunk(chunk);
+    }
+    updateStatistics();
+    if (population > 0) {
+      growTo(firstX, firstY, lastX, lastY);
+    }
+  }
+
+  /**
+   * Compute the next generation of a chunk into its second buffer. A chunk that is not allocated
+   * is allocated if cells are born in it, and a chunk without live cells in its halo is dropped.
+   *
+   * @param key the packed position of the chunk.
+   */
+  private void computeChunk(long key) {
+    int chunkX = (int) (key >>> Integer.SIZE) - MAX_CHUNKS;
+    int chunkY = (int) key - MAX_CHUNKS;
+    Chunk chunk = chunks.get(key);
+    if (!gatherHalo(chunkX, chunkY)) {
+      //without live cells around it, the chunk stays empty; reading it as a neighbour gives the
+      //same cells as reading no chunk
+      if (chunk != null) {
+        chunks.remove(key);
+      }
+      return;
+    }
+    if (chunk == null) {
+      if (!kernel.computeHaloTile(haloLeft, haloMiddle, haloRight, nextWords, 0, CHUNK_SIZE,
+          -1L)) {
+        return;
+      }
+      chunk = new Chunk(chunkX, chunkY);
+      System.arraycopy(nextWords, 0, chunk.nextCells, 0, CHUNK_SIZE);
+      chunks.put(key, chunk);
+      chunk.changed = true;
+    } else {
+      chunk.changed = kernel.computeHaloTile(haloLeft, haloMiddle, haloRight, chunk.nextCells, 0,
+          CHUNK_SIZE, -1L);
+    }
+    if (chunk.changed) {
+      changedChunks.add(chunk);
+    }
+  }
+
+  /**
+   * Gather the halo of a chunk from the chunks around it: word i of the halo holds row i - 1 of
+   * the chunk, with the left and right neighbours of its cells in halos of their own.
+   *
+   * @param chunkX the x-position of the chunk.
+   * @param chunkY the y-position of the chunk.
+   * @return true if any cell of the halo is alive.
+   */
+  private boolean gatherHalo(int chunkX, int chunkY) {
+    for (int i = 0; i < around.length; i++) {
+      int neighbourX = chunkX + i % 3 - 1;
+      int neighbourY = chunkY + i / 3 - 1;
+      Chunk neighbour = isInPlane(neighbourX, neighbourY)
+          ? chunks.get(pack(neighbourX, neighbourY)) : null;
+      around[i] = neighbour == null ? EMPTY_CHUNK : neighbour.cells;
+    }
+    long alive = 0;
+    for (int i = 0; i < CHUNK_SIZE + 2; i++) {
+      //the row above the chunk is the last row of the chunks above, the row below the first row
+      //of the chunks below
+      int first = i == 0 ? 0 : i == CHUNK_SIZE + 1 ? 6 : 3;
+      int row = i == 0 ? CHUNK_SIZE - 1 : i == CHUNK_SIZE + 1 ? 0 : i - 1;
+      long left = around[first][row];
+      long middle = around[first + 1][row];
+      long right = around[first + 2][row];
+      haloMiddle[i] = middle;
+      haloLeft[i] = middle << 1 | left >>> (CHUNK_SIZE - 1);
+      haloRight[i] = middle >>> 1 | right << (CHUNK_SIZE - 1);
+      alive |= haloLeft[i] | middle | haloRight[i];
+    }
+    return alive != 0;
+  }
+
+  /**
+   * {@inheritDoc} The board keeps its first column and row; cells beyond the new size are killed,
+   * and the board grows again from the new size.
+   */
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    checkSignedPosition(firstColumn + cols - 1, firstRow + rows - 1);
+
+    long lastColumn = (long) firstColumn + cols;
+    long lastRow = (long) firstRow + rows;
+    for (int slot = 0; slot < chunks.capacity(); slot++) {
+      Chunk chunk = chunks.slotValue(slot);
+      if (chunk == null) {
+        continue;
+      }
+      //the bits of the columns of the chunk that lie on the new board
+      long fromBit = Math.max(0, Math.min(CHUNK_SIZE, firstColumn - (long) chunk.x * CHUNK_SIZE));
+      long toBit = Math.max(0, Math.min(CHUNK_SIZE, lastColumn - (long) chunk.x * CHUNK_SIZE));
+      long mask = toBit <= fromBit ? 0
+          : -1L >>> (CHUNK_SIZE - (toBit - fromBit)) << fromBit;
+      for (int row = 0; row < CHUNK_SIZE; row++) {
+        long y = (long) chunk.y * CHUNK_SIZE + row;
+        boolean onBoard = y >= firstRow && y < lastRow;
+        setWord(chunk, row, onBoard ? chunk.cells[row] & mask : 0);
+      }
+    }
+    columnSize = cols;
+    rowSize = rows;
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> population = new HashSet<>();
+    forEachLive((col, row) -> {
+      Cell cell = new Cell(col, row);
+      cell.setStatusAlive();
+      population.add(cell);
+    });
+    return population;
+  }
+
+  /**
+   * A chunk of 64 times 64 cells. Bit i of row r is the cell at x-position (x * 64 + i) and
+   * y-position (y * 64 + r).
+   */
+  private static final class Chunk {
+
+    //the signed position of the chunk, and the position packed into the key of the map
+    private final int x;
+    private final int y;
+    private final long key;
+
+    //the rows of the chunk, and the buffer that receives its next generation
+    private long[] cells = new long[CHUNK_SIZE];
+    private long[] nextCells = new long[CHUNK_SIZE];
+
+    //whether the chunk changed in the last generation or by setting cells
+    private boolean changed;
+
+    //whether cells were set since the statistics of the chunk were computed
+    private boolean stale;
+
+    //live cells of the chunk, its columns with live cells, and its rows with live cells
+    private int population;
+    private long columns;
+    private long rowMask;
+
+    Chunk(int x, int y) {
+      this.x = x;
+      this.y = y;
+      key = pack(x, y);
+    }
+  }
+
+}
@@ -0,0 +1,18 @@
+package org.sosylab.model;
+
+/**
+ * An operation on the position of a cell, see {@link Grid#forEachLive(IntIntConsumer)}. Unlike
+ * a consumer of {@link Cell}, it takes the column and the row as primitives, so visiting a cell
+ * allocates nothing.
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+
+  /**
+   * Perform the operation on a cell.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  void accept(int col, int row);
+}
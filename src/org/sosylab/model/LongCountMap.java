@@ -0,0 +1,133 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative long keys to small counters backed by an open-addressing hash table with
+ * linear probing. Keys and counters are stored in primitive arrays, so counting creates no
+ * objects. Keys cannot be removed individually, only all at once.
+ */
+final class LongCountMap {
+
+  //the table is grown when it is filled to more than three quarters, and shrunk by clear when it
+  //was filled to less than an eighth
+  private long[] keys;
+
+  private byte[] counts;
+
+  private int size;
+
+  /**
+   * Create an empty map.
+   */
+  LongCountMap() {
+    keys = new long[LongSet.MIN_CAPACITY];
+    counts = new byte[LongSet.MIN_CAPACITY];
+    Arrays.fill(keys, LongSet.EMPTY);
+  }
+
+  /**
+   * Compute the preferred slot of a key.
+   *
+   * @param key  the key.
+   * @param mask the capacity of the table minus one.
+   * @return the index of the slot.
+   */
+  private static int slot(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * Add an amount to the counter of a key. A key that is not in the map yet starts at zero.
+   *
+   * @param key    the key, not negative.
+   * @param amount the amount to add.
+   */
+  void add(long key, int amount) {
+    int mask = keys.length - 1;
+    int index = slot(key, mask);
+    while (keys[index] != key) {
+      if (keys[index] == LongSet.EMPTY) {
+        keys[index] = key;
+        counts[index] = (byte) amount;
+        size = size + 1;
+        if (size * 4 > keys.length * 3) {
+          rehash(keys.length * 2);
+        }
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    counts[index] += (byte) amount;
+  }
+
+  /**
+   * Remove all keys. The map is usually refilled with about as many keys as it held, so the table
+   * is shrunk if they filled less than an eighth of it, see {@link LongSet#clear()}.
+   */
+  void clear() {
+    if (size * 8 < keys.length && keys.length > LongSet.MIN_CAPACITY) {
+      keys = new long[LongSet.capacityFor(size)];
+      counts = new byte[keys.length];
+      Arrays.fill(keys, LongSet.EMPTY);
+    } else if (size > 0) {
+      Arrays.fill(keys, LongSet.EMPTY);
+    }
+    size = 0;
+  }
+
+  /**
+   * Get the number of slots of the table.
+   *
+   * @return the number of slots.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Get the key stored in a slot of the table.
+   *
+   * @param index the index of the slot.
+   * @return the key in the slot, or {@link LongSet#EMPTY} if the slot is not used.
+   */
+  long slotKey(int index) {
+    return keys[index];
+  }
+
+  /**
+   * Get the counter stored in a slot of the table.
+   *
+   * @param index the index of a used slot.
+   * @return the counter of the key in the slot.
+   */
+  int slotCount(int index) {
+    return counts[index];
+  }
+
+  /**
+   * Move all keys into a new table.
+   *
+   * @param capacity the capacity of the new table, a power of two.
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    byte[] oldCounts = counts;
+    keys = new long[capacity];
+    counts = new byte[capacity];
+    Arrays.fill(keys, LongSet.EMPTY);
+    int mask = capacity - 1;
+    for (int oldIndex = 0; oldIndex < oldKeys.length; oldIndex++) {
+      if (oldKeys[oldIndex] != LongSet.EMPTY) {
+        int index = slot(oldKeys[oldIndex], mask);
+        while (keys[index] != LongSet.EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[oldIndex];
+        counts[index] = oldCounts[oldIndex];
+      }
+    }
+  }
+
+}
@@ -0,0 +1,183 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative long keys to objects backed by an open-addressing hash table with
+ * linear probing, like {@link LongSet}. Looking up a value creates no objects.
+ *
+ * @param <V> the type of the values.
+ */
+final class LongMap<V> {
+
+  //marks an unused slot of the table; keys are never negative
+  private static final long EMPTY = -1L;
+
+  //the table is grown when it is filled to more than three quarters
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private Object[] values;
+
+  private int size;
+
+  /**
+   * Create an empty map.
+   */
+  LongMap() {
+    keys = new long[MIN_CAPACITY];
+    values = new Object[MIN_CAPACITY];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  /**
+   * Compute the preferred slot of a key.
+   *
+   * @param key  the key.
+   * @param mask the capacity of the table minus one.
+   * @return the index of the slot.
+   */
+  private static int slot(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * Get the number of keys in the map.
+   *
+   * @return the number of keys.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get the value of a key.
+   *
+   * @param key the key, not negative.
+   * @return the value, or null if the key is not in the map.
+   */
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    int mask = keys.length - 1;
+    for (int index = slot(key, mask); keys[index] != EMPTY; index = (index + 1) & mask) {
+      if (keys[index] == key) {
+        return (V) values[index];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Set the value of a key.
+   *
+   * @param key   the key, not negative.
+   * @param value the value, not null.
+   */
+  void put(long key, V value) {
+    int mask = keys.length - 1;
+    int index = slot(key, mask);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        values[index] = value;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    size = size + 1;
+    if (size * 4 > keys.length * 3) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * Remove a key from the map. The keys following it in its probe sequence are moved back, so
+   * that no tombstones are needed.
+   *
+   * @param key the key, not negative.
+   * @return true if the key was removed, false if it was not in the map.
+   */
+  boolean remove(long key) {
+    int mask = keys.length - 1;
+    int index = slot(key, mask);
+    while (keys[index] != key) {
+      if (keys[index] == EMPTY) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    int gap = index;
+    for (index = (gap + 1) & mask; keys[index] != EMPTY; index = (index + 1) & mask) {
+      int preferred = slot(keys[index], mask);
+      //move the key into the gap if the gap lies between its preferred slot and its slot
+      if (((index - preferred) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = keys[index];
+        values[gap] = values[index];
+        gap = index;
+      }
+    }
+    keys[gap] = EMPTY;
+    values[gap] = null;
+    size = size - 1;
+    return true;
+  }
+
+  /**
+   * Remove all keys. The capacity of the table is kept.
+   */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, EMPTY);
+      Arrays.fill(values, null);
+      size = 0;
+    }
+  }
+
+  /**
+   * Get the number of slots of the table, see {@link #slotValue(int)}.
+   *
+   * @return the number of slots.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Get the value stored in a slot of the table. Iterating over all slots visits every value of
+   * the map once, as long as no key is added or removed.
+   *
+   * @param index the index of the slot.
+   * @return the value in the slot, or null if the slot is not used.
+   */
+  @SuppressWarnings("unchecked")
+  V slotValue(int index) {
+    return (V) values[index];
+  }
+
+  /**
+   * Move all keys and values into a new table.
+   *
+   * @param capacity the capacity of the new table, a power of two.
+   */
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+    Arrays.fill(keys, EMPTY);
+    int mask = capacity - 1;
+    for (int oldIndex = 0; oldIndex < oldKeys.length; oldIndex++) {
+      if (oldKeys[oldIndex] != EMPTY) {
+        int index = slot(oldKeys[oldIndex], mask);
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[oldIndex];
+        values[index] = oldValues[oldIndex];
+      }
+    }
+  }
+
+}
@@ -0,0 +1,187 @@
+package org.sosylab.model;
+
+import java.util.Arrays;
+
+/**
+ * A set of non-negative long values backed by an open-addressing hash table with linear probing.
+ * It stores the values in a primitive array, so adding and removing a value creates no objects.
+ */
+final class LongSet {
+
+  //marks an unused slot of the table; values are never negative
+  static final long EMPTY = -1L;
+
+  //the table is grown when it is filled to more than three quarters, and shrunk by clear when it
+  //was filled to less than an eighth
+  static final int MIN_CAPACITY = 16;
+
+  private long[] table;
+
+  private int size;
+
+  /**
+   * Create an empty set.
+   */
+  LongSet() {
+    table = new long[MIN_CAPACITY];
+    Arrays.fill(table, EMPTY);
+  }
+
+  /**
+   * Compute the preferred slot of a value.
+   *
+   * @param value the value.
+   * @param mask  the capacity of the table minus one.
+   * @return the index of the slot.
+   */
+  private static int slot(long value, int mask) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * Compute the capacity of a table that is filled to between a quarter and a half by a number of
+   * values.
+   *
+   * @param size the number of values.
+   * @return the capacity, a power of two of at least {@link #MIN_CAPACITY}.
+   */
+  static int capacityFor(int size) {
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit(size) * 4);
+  }
+
+  /**
+   * Get the number of values in the set.
+   *
+   * @return the number of values.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Check whether the set contains a value.
+   *
+   * @param value the value, not negative.
+   * @return true if the value is in the set, false if not.
+   */
+  boolean contains(long value) {
+    int mask = table.length - 1;
+    for (int index = slot(value, mask); table[index] != EMPTY; index = (index + 1) & mask) {
+      if (table[index] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Add a value to the set.
+   *
+   * @param value the value, not negative.
+   * @return true if the value was added, false if it already was in the set.
+   */
+  boolean add(long value) {
+    int mask = table.length - 1;
+    int index = slot(value, mask);
+    while (table[index] != EMPTY) {
+      if (table[index] == value) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    table[index] = value;
+    size = size + 1;
+    if (size * 4 > table.length * 3) {
+      rehash(table.length * 2);
+    }
+    return true;
+  }
+
+  /**
+   * Remove a value from the set. The values following it in its probe sequence are moved back, so
+   * that no tombstones are needed.
+   *
+   * @param value the value, not negative.
+   * @return true if the value was removed, false if it was not in the set.
+   */
+  boolean remove(long value) {
+    int mask = table.length - 1;
+    int index = slot(value, mask);
+    while (table[index] != value) {
+      if (table[index] == EMPTY) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    int gap = index;
+    for (index = (gap + 1) & mask; table[index] != EMPTY; index = (index + 1) & mask) {
+      int preferred = slot(table[index], mask);
+      //move the value into the gap if the gap lies between its preferred slot and its slot
+      if (((index - preferred) & mask) >= ((index - gap) & mask)) {
+        table[gap] = table[index];
+        gap = index;
+      }
+    }
+    table[gap] = EMPTY;
+    size = size - 1;
+    return true;
+  }
+
+  /**
+   * Remove all values. The set is usually refilled with about as many values as it held, so the
+   * table is shrunk if they filled less than an eighth of it; iterating over the slots then stays
+   * proportional to the number of values after their number dropped.
+   */
+  void clear() {
+    if (size * 8 < table.length && table.length > MIN_CAPACITY) {
+      table = new long[capacityFor(size)];
+      Arrays.fill(table, EMPTY);
+    } else if (size > 0) {
+      Arrays.fill(table, EMPTY);
+    }
+    size = 0;
+  }
+
+  /**
+   * Get the number of slots of the table, see {@link #slotValue(int)}.
+   *
+   * @return the number of slots.
+   */
+  int capacity() {
+    return table.length;
+  }
+
+  /**
+   * Get the value stored in a slot of the table. Iterating over all slots visits every value of
+   * the set once.
+   *
+   * @param index the index of the slot.
+   * @return the value in the slot, or {@link #EMPTY} if the slot is not used.
+   */
+  long slotValue(int index) {
+    return table[index];
+  }
+
+  /**
+   * Move all values into a new table.
+   *
+   * @param capacity the capacity of the new table, a power of two.
+   */
+  private void rehash(int capacity) {
+    long[] oldTable = table;
+    table = new long[capacity];
+    Arrays.fill(table, EMPTY);
+    int mask = capacity - 1;
+    for (long value : oldTable) {
+      if (value != EMPTY) {
+        int index = slot(value, mask);
+        while (table[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        table[index] = value;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,205 @@
+package org.sosylab.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read a pattern in the Macrocell format into a {@link HashLifeGame}. The format describes the
+ * quadtree of the pattern: every line is a node, numbered from 1, and larger nodes refer to their
+ * quadrants by these numbers, so identical squares are read once and shared in the game.
+ *
+ * <p>Nodes of level 3 are rows of 8 cells, "*" for live and "." for dead cells, each row ended by
+ * "$". Larger nodes give their level and the numbers of their north-west, north-east, south-west
+ * and south-east quadrants, 0 for an empty quadrant. The last node is the whole pattern. Lines
+ * starting with "#" give the rule ("#R"), the generation ("#G") and the size of the board ("#S");
+ * boards without a size are as large as the pattern:
+ * <pre>
+ * [M2] (game-of-life)
+ * #R B3/S23
+ * .*$..*$***$
+ * 4 1 0 0 0
+ * </pre>
+ */
+public final class MacrocellReader {
+
+  //the nodes read so far, by their number
+  private final List<QuadNode> nodes = new ArrayList<>();
+
+  private final HashLifeGame game = new HashLifeGame(1, 1);
+
+  //the header of the pattern
+  private Rule rule;
+  private long generation;
+  private int columns = -1;
+  private int rows = -1;
+
+  /**
+   * Create a reader.
+   */
+  private MacrocellReader() {
+    //the node 0 is the empty quadrant
+    nodes.add(null);
+  }
+
+  /**
+   * Read a pattern into a new game.
+   *
+   * @param in the pattern, which is read to its end but not closed.
+   * @return the game with the board, rule and generation of the pattern.
+   * @throws IOException              if the pattern cannot be read.
+   * @throws IllegalArgumentException if the pattern is invalid.
+   */
+  public static HashLifeGame read(Reader in) throws IOException {
+    return new MacrocellReader().readPattern(new BufferedReader(in));
+  }
+
+  /**
+   * Read the header and the nodes of a pattern.
+   *
+   * @param in the pattern.
+   * @return the game.
+   * @throws IOException if the pattern cannot be read.
+   */
+  private HashLifeGame readPattern(BufferedReader in) throws IOException {
+    String line = in.readLine();
+    if (line == null || !line.startsWith("[M2]")) {
+      throw new IllegalArgumentException("Missing header of the pattern");
+    }
+    for (line = in.readLine(); line != null; line = in.readLine()) {
+      if (line.startsWith("#")) {
+        readComment(line);
+      } else if (line.startsWith(".") || line.startsWith("*") || line.startsWith("$")) {
+        nodes.add(readLeaf(line));
+      } else if (!line.isBlank()) {
+        nodes.add(readNode(line));
+      }
+    }
+    if (nodes.size() == 1) {
+      throw new IllegalArgumentException("Missing nodes of the pattern");
+    }
+    QuadNode root = nodes.get(nodes.size() - 1);
+    if (columns < 0) {
+      if (root.level >= Integer.SIZE - 1) {
+        throw new IllegalArgumentException("The pattern is too large");
+      }
+      columns = 1 << root.level;
+      rows = columns;
+    }
+    game.setBoard(root, columns, rows, generation);
+    if (rule != null) {
+      //the rule is set last, since setting it evicts all nodes that are not on the board
+      game.setRule(rule);
+    }
+    return game;
+  }
+
+  /**
+   * Read a line of the header. Lines other than the rule, generation and size are ignored.
+   *
+   * @param line the line.
+   */
+  private void readComment(String line) {
+    String[] words = line.trim().split("\\s+");
+    try {
+      if (words[0].equals("#R") && words.length == 2) {
+        rule = Rule.parse(words[1]);
+      } else if (words[0].equals("#G") && words.length == 2) {
+        generation = Long.parseLong(words[1]);
+      } else if (words[0].equals("#S") && words.length == 3) {
+        columns = Integer.parseInt(words[1]);
+        rows = Integer.parseInt(words[2]);
+        if (!(columns > 0 && rows > 0)) {
+          throw new IllegalArgumentException("Invalid size of the pattern: " + line);
+        }
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid header of the pattern: " + line, e);
+    }
+  }
+
+  /**
+   * Read a node of level 3 given by its rows of cells.
+   *
+   * @param line the line of the node.
+   * @return the node.
+   */
+  private QuadNode readLeaf(String line) {
+    int size = 1 << MacrocellWriter.LEAF_LEVEL;
+    QuadNode[] cells = new QuadNode[size * size];
+    QuadNode dead = game.cell(false);
+    int x = 0;
+    int y = 0;
+    for (int index = 0; index < line.length(); index++) {
+      char symbol = line.charAt(index);
+      if (symbol == '$') {
+        x = 0;
+        y = y + 1;
+      } else if ((symbol == '*' || symbol == '.') && x < size && y < size) {
+        cells[y * size + x] = game.cell(symbol == '*');
+        x = x + 1;
+      } else {
+        throw new IllegalArgumentException("Invalid node of the pattern: " + line);
+      }
+    }
+    for (int index = 0; index < cells.length; index++) {
+      if (cells[index] == null) {
+        cells[index] = dead;
+      }
+    }
+    //join the squares of 2 times 2 nodes until a single node is left
+    for (int width = size; width > 1; width = width / 2) {
+      QuadNode[] squares = new QuadNode[width * width / 4];
+      for (int row = 0; row < width; row = row + 2) {
+        for (int col = 0; col < width; col = col + 2) {
+          squares[row / 2 * (width / 2) + col / 2] = game.join(cells[row * width + col],
+              cells[row * width + col + 1], cells[(row + 1) * width + col],
+              cells[(row + 1) * width + col + 1]);
+        }
+      }
+      cells = squares;
+    }
+    return cells[0];
+  }
+
+  /**
+   * Read a node given by its level and the numbers of its quadrants.
+   *
+   * @param line the line of the node.
+   * @return the node.
+   */
+  private QuadNode readNode(String line) {
+    String[] words = line.trim().split("\\s+");
+    if (words.length != 5) {
+      throw new IllegalArgumentException("Invalid node of the pattern: " + line);
+    }
+    try {
+      int level = Integer.parseInt(words[0]);
+      if (level < 1 || level >= Long.SIZE - 1) {
+        throw new IllegalArgumentException("Invalid level of the node: " + line);
+      }
+      QuadNode[] quadrants = new QuadNode[4];
+      for (int index = 0; index < quadrants.length; index++) {
+        int number = Integer.parseInt(words[index + 1]);
+        if (level == 1) {
+          //quadrants of level 0 are states, only the dead and the live state are supported
+          if (number != 0 && number != 1) {
+            throw new IllegalArgumentException("Invalid state of the node: " + line);
+          }
+          quadrants[index] = game.cell(number == 1);
+        } else if (number == 0) {
+          quadrants[index] = game.empty(level - 1);
+        } else if (number > 0 && number < nodes.size() && nodes.get(number).level == level - 1) {
+          quadrants[index] = nodes.get(number);
+        } else {
+          throw new IllegalArgumentException("Invalid quadrant of the node: " + line);
+        }
+      }
+      return game.join(quadrants[0], quadrants[1], quadrants[2], quadrants[3]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid node of the pattern: " + line, e);
+    }
+  }
+}
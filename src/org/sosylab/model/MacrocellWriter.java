@@ -0,0 +1,153 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Write the board of a {@link HashLifeGame} in the Macrocell format, see {@link MacrocellReader}.
+ * Every distinct node of the quadtree is written once and referred to by its number, so the size
+ * of the file grows with the complexity of the pattern instead of its area.
+ */
+public final class MacrocellWriter {
+
+  //level of the nodes that are written as rows of cells
+  static final int LEAF_LEVEL = 3;
+
+  private final Writer out;
+
+  //the numbers of the nodes written so far
+  private final Map<QuadNode, Integer> numbers = new IdentityHashMap<>();
+
+  //the numbers of the lines written so far, since different nodes may have the same line
+  private final Map<String, Integer> lines = new HashMap<>();
+
+  /**
+   * Create a writer.
+   *
+   * @param out the destination of the pattern.
+   */
+  private MacrocellWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Write the board of a game with its size, rule and generation.
+   *
+   * @param game the game.
+   * @param out  the destination of the pattern, which is not closed.
+   * @throws IOException if the pattern cannot be written.
+   */
+  public static void write(HashLifeGame game, Writer out) throws IOException {
+    new MacrocellWriter(out).writePattern(game);
+  }
+
+  /**
+   * Write the header and the nodes of a game.
+   *
+   * @param game the game.
+   * @throws IOException if the pattern cannot be written.
+   */
+  private void writePattern(HashLifeGame game) throws IOException {
+    String separator = System.lineSeparator();
+    out.write("[M2] (game-of-life)" + separator);
+    out.write("#R " + game.getRule() + separator);
+    out.write("#G " + game.getGenerations() + separator);
+    out.write("#S " + game.getColumns() + " " + game.getRows() + separator);
+    QuadNode board = game.getBoard();
+    while (board.level < LEAF_LEVEL) {
+      QuadNode empty = game.empty(board.level);
+      board = game.join(board, empty, empty, empty);
+    }
+    if (writeNode(board) == 0) {
+      //the root is written even without live cells, as it gives the size of the pattern
+      out.write(board.level + " 0 0 0 0" + separator);
+    }
+  }
+
+  /**
+   * Write a node after its quadrants, unless it was written before.
+   *
+   * @param node the node of at least the level of leaves.
+   * @return the number of the node, 0 for nodes without live cells.
+   * @throws IOException if the pattern cannot be written.
+   */
+  private int writeNode(QuadNode node) throws IOException {
+    if (node.population == 0) {
+      return 0;
+    }
+    Integer number = numbers.get(node);
+    if (number == null) {
+      String line;
+      if (node.level == LEAF_LEVEL) {
+        line = leafLine(node);
+      } else {
+        line = node.level + " " + writeNode(node.nw) + " " + writeNode(node.ne) + " "
+            + writeNode(node.sw) + " " + writeNode(node.se);
+      }
+      number = lines.get(line);
+      if (number == null) {
+        number = lines.size() + 1;
+        lines.put(line, number);
+        out.write(line);
+        out.write(System.lineSeparator());
+      }
+      numbers.put(node, number);
+    }
+    return number;
+  }
+
+  /**
+   * Get the rows of cells of a leaf. Every row ends with "$", "*" are live cells and "." dead
+   * cells or walls; dead cells at the end of a row and empty rows at the end are left out.
+   *
+   * @param leaf the leaf.
+   * @return the line of the leaf.
+   */
+  private static String leafLine(QuadNode leaf) {
+    int size = 1 << LEAF_LEVEL;
+    StringBuilder line = new StringBuilder();
+    int end = 0;
+    for (int y = 0; y < size; y++) {
+      int rowEnd = 0;
+      for (int x = 0; x < size; x++) {
+        if (isAlive(leaf, x, y)) {
+          rowEnd = x + 1;
+        }
+      }
+      for (int x = 0; x < rowEnd; x++) {
+        line.append(isAlive(leaf, x, y) ? '*' : '.');
+      }
+      line.append('$');
+      if (rowEnd > 0) {
+        end = line.length();
+      }
+    }
+    line.setLength(end);
+    return line.toString();
+  }
+
+  /**
+   * Check whether a cell of a node is alive.
+   *
+   * @param node the node.
+   * @param x    x-position of the cell within the node.
+   * @param y    y-position of the cell within the node.
+   * @return true if the cell is alive, false if not.
+   */
+  private static boolean isAlive(QuadNode node, int x, int y) {
+    while (node.level > 0) {
+      int half = 1 << (node.level - 1);
+      if (y < half) {
+        node = x < half ? node.nw : node.ne;
+      } else {
+        node = x < half ? node.sw : node.se;
+      }
+      x = x % half;
+      y = y % half;
+    }
+    return node.state == QuadNode.ALIVE;
+  }
+}
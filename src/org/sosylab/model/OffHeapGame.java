@@ -0,0 +1,941 @@
+package org.sosylab.model;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Manage a game of life whose board is packed into bits and kept outside of the Java heap, so
+ * that it can be larger than the heap. The board has the layout of {@link BitGame}, every row a
+ * sequence of 64-bit words, and the next generation is written into a second buffer of the same
+ * layout. Both buffers are direct byte buffers; since a buffer holds at most 2 GiB, they are
+ * split into chunks of whole rows. Only a few rows at a time are copied onto the heap to compute
+ * them.
+ *
+ * <p>The memory of the buffers is freed as soon as the game is closed, see {@link #close()}, and
+ * not only once the garbage collector finds the buffers. The JVM reserves at most as much direct
+ * memory as heap unless it is started with a larger {@code -XX:MaxDirectMemorySize}.
+ *
+ * <p>The board is divided into bands of 64 rows. A generation only computes the bands that
+ * changed in the previous generation and their neighbours; the heap only holds a few numbers for
+ * every band, so it does not grow with the width of the board.
+ */
+public class OffHeapGame implements Grid {
+
+  //number of cells packed into one word
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //number of rows of a band
+  private static final int BAND_HEIGHT = 64;
+
+  //largest number of bytes of a chunk of a buffer
+  private static final int CHUNK_SIZE = 1 << 30;
+
+  //frees the memory of a direct buffer at once, null if the JVM does not offer it
+  private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+  //largest number of bytes of a chunk of this game
+  private final int chunkSize;
+
+  //the size of the columns of the game
+  private int columnSize;
+
+  //the size of the rows of the game
+  private int rowSize;
+
+  //number of words that are needed to store one row
+  private int wordsPerRow;
+
+  //mask of the bits in the last word of a row that belong to the board
+  private long lastWordMask;
+
+  //position of the last column within the last word of a row
+  private int lastColumnBit;
+
+  //number of rows stored in one chunk
+  private int rowsPerChunk;
+
+  //the memory of the board and of the buffer that receives the next generation, and their
+  //words; row r lies in chunk r / rowsPerChunk, null once the game is closed
+  private ByteBuffer[] boardMemory;
+  private ByteBuffer[] nextBoardMemory;
+  private LongBuffer[] board;
+  private LongBuffer[] nextBoard;
+
+  //number of bands
+  private int bandCount;
+
+  //bands that changed in the last generation or by setting cells; both buffers hold the same
+  //cells in all other bands
+  private boolean[] changedBands;
+
+  //bands that are computed in the current generation
+  private boolean[] activeBands;
+
+  //live cells of each band, its first and last column with live cells, and its rows with live
+  //cells, bit i set for row (band * 64 + i)
+  private long[] bandPopulations;
+  private int[] bandFirstColumns;
+  private int[] bandLastColumns;
+  private long[] bandRowMasks;
+
+  //bands whose cells were set since their statistics were computed
+  private boolean[] staleBands;
+  private boolean statisticsStale;
+
+  //number of live cells and their bounding box, only meaningful if cells are alive
+  private long population;
+  private int firstColumn;
+  private int firstRow;
+  private int lastColumn;
+  private int lastRow;
+
+  //the bounding box as handed out, null if not created since the box changed
+  private BoundingBox bounds;
+
+  //the Zobrist hash of the words of the board, updated by every word that changes
+  private long hash;
+
+  //the rows above, at and below the row being computed, with a word of ghost cells on either
+  //side: word i + 1 holds word i of the row
+  private long[] rowAbove;
+  private long[] rowMiddle;
+  private long[] rowBelow;
+
+  //the next generation of the row being computed, and the words of a row being copied
+  private long[] nextRow;
+
+  //number of the generation of the game
+  private long generation;
+
+  //whether the edges of the board wrap around
+  private boolean torus;
+
+  //the rule of the game and the kernel compiled for it
+  private Rule rule;
+  private TileKernel kernel;
+
+
+  /**
+   * Create an off-heap game of life.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public OffHeapGame(int cols, int rows) {
+    this(cols, rows, CHUNK_SIZE);
+  }
+
+  /**
+   * Create an off-heap game of life whose buffers are split into chunks of a given size.
+   *
+   * @param cols      the size of the columns.
+   * @param rows      the size of the rows.
+   * @param chunkSize the largest number of bytes of a chunk, which holds at least one row.
+   */
+  OffHeapGame(int cols, int rows, int chunkSize) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    this.chunkSize = chunkSize;
+    setDimensions(cols, rows);
+    allocateBoards();
+    createBands();
+    generation = 0;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Find the method that frees the memory of a direct buffer, which the JDK only offers through
+   * {@code sun.misc.Unsafe}.
+   *
+   * @return the method bound to the instance of {@code Unsafe}, or null if there is none.
+   */
+  private static MethodHandle findCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field instance = unsafeClass.getDeclaredField("theUnsafe");
+      instance.setAccessible(true);
+      return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+          MethodType.methodType(void.class, ByteBuffer.class)).bindTo(instance.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      //the memory is then freed once the buffers are garbage collected
+      return null;
+    }
+  }
+
+  /**
+   * Set the size of the board and derive the word layout of a row and the rows of a chunk from
+   * it.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  private void setDimensions(int cols, int rows) {
+    columnSize = cols;
+    rowSize = rows;
+    wordsPerRow = (cols + WORD_SIZE - 1) / WORD_SIZE;
+    lastWordMask = -1L >>> (wordsPerRow * WORD_SIZE - cols);
+    lastColumnBit = (cols - 1) % WORD_SIZE;
+    rowsPerChunk = rowsPerChunk(wordsPerRow, rows);
+    bandCount = (rows + BAND_HEIGHT - 1) / BAND_HEIGHT;
+    rowAbove = new long[wordsPerRow + 2];
+    rowMiddle = new long[wordsPerRow + 2];
+    rowBelow = new long[wordsPerRow + 2];
+    nextRow = new long[wordsPerRow];
+  }
+
+  /**
+   * Compute how many rows a chunk holds.
+   *
+   * @param wordsPerRow the number of words of a row.
+   * @param rows        the size of the rows.
+   * @return the number of rows of a chunk.
+   */
+  private int rowsPerChunk(int wordsPerRow, int rows) {
+    return (int) Math.min(rows, Math.max(1, chunkSize / (wordsPerRow * 8L)));
+  }
+
+  /**
+   * Allocate both buffers for the current size of the board, all cells dead.
+   */
+  private void allocateBoards() {
+    ByteBuffer[] newBoardMemory = allocate(rowSize, wordsPerRow, rowsPerChunk);
+    try {
+      useBoards(newBoardMemory, allocate(rowSize, wordsPerRow, rowsPerChunk));
+    } catch (OutOfMemoryError e) {
+      free(newBoardMemory);
+      throw e;
+    }
+  }
+
+  /**
+   * Allocate the chunks of a buffer, all cells dead. If there is not enough memory, the chunks
+   * allocated so far are freed.
+   *
+   * @param rows         the size of the rows.
+   * @param wordsPerRow  the number of words of a row.
+   * @param rowsPerChunk the number of rows of a chunk.
+   * @return the chunks.
+   */
+  private static ByteBuffer[] allocate(int rows, int wordsPerRow, int rowsPerChunk) {
+    ByteBuffer[] memory = new ByteBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+    try {
+      for (int chunk = 0; chunk < memory.length; chunk++) {
+        int chunkRows = Math.min(rowsPerChunk, rows - chunk * rowsPerChunk);
+        memory[chunk] = ByteBuffer.allocateDirect(chunkRows * wordsPerRow * 8)
+            .order(ByteOrder.nativeOrder());
+      }
+    } catch (OutOfMemoryError e) {
+      //the chunks allocated so far are of no use
+      free(memory);
+      throw e;
+    }
+    return memory;
+  }
+
+  /**
+   * Use the chunks of two buffers as the board and the next board.
+   *
+   * @param newBoardMemory     the chunks of the board.
+   * @param newNextBoardMemory the chunks of the next board.
+   */
+  private void useBoards(ByteBuffer[] newBoardMemory, ByteBuffer[] newNextBoardMemory) {
+    boardMemory = newBoardMemory;
+    nextBoardMemory = newNextBoardMemory;
+    board = new LongBuffer[boardMemory.length];
+    nextBoard = new LongBuffer[nextBoardMemory.length];
+    for (int chunk = 0; chunk < board.length; chunk++) {
+      board[chunk] = boardMemory[chunk].asLongBuffer();
+      nextBoard[chunk] = nextBoardMemory[chunk].asLongBuffer();
+    }
+  }
+
+  /**
+   * Free the memory of chunks of a buffer.
+   *
+   * @param memory the chunks, of which the allocated ones are freed.
+   */
+  private static void free(ByteBuffer[] memory) {
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    for (int chunk = 0; chunk < memory.length; chunk++) {
+      if (memory[chunk] == null) {
+        continue;
+      }
+      try {
+        INVOKE_CLEANER.invokeExact(memory[chunk]);
+      } catch (Throwable e) {
+        throw new IllegalStateException("Cannot free the memory of the board", e);
+      }
+      memory[chunk] = null;
+    }
+  }
+
+  /**
+   * Create the bands for the current size of the board, all of them changed and stale.
+   */
+  private void createBands() {
+    changedBands = new boolean[bandCount];
+    activeBands = new boolean[bandCount];
+    Arrays.fill(changedBands, true);
+    bandPopulations = new long[bandCount];
+    bandFirstColumns = new int[bandCount];
+    bandLastColumns = new int[bandCount];
+    bandRowMasks = new long[bandCount];
+    staleBands = new boolean[bandCount];
+    Arrays.fill(staleBands, true);
+    statisticsStale = true;
+    population = 0;
+    bounds = null;
+  }
+
+  /**
+   * Check that the game was not closed.
+   */
+  private void checkOpen() {
+    if (board == null) {
+      throw new IllegalStateException("The game is closed");
+    }
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    checkOpen();
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  /**
+   * Get a word of a buffer.
+   *
+   * @param cells     the chunks of the buffer.
+   * @param row       the row of the word.
+   * @param wordIndex the position of the word within its row.
+   * @return the word.
+   */
+  private long getWord(LongBuffer[] cells, int row, int wordIndex) {
+    return cells[row / rowsPerChunk].get(row % rowsPerChunk * wordsPerRow + wordIndex);
+  }
+
+  /**
+   * Set a word of the board and update the hash by it.
+   *
+   * @param row       the row of the word.
+   * @param wordIndex the position of the word within its row.
+   * @param word      the new word.
+   */
+  private void setWord(int row, int wordIndex, long word) {
+    int offset = row % rowsPerChunk * wordsPerRow + wordIndex;
+    long oldWord = board[row / rowsPerChunk].get(offset);
+    if (oldWord != word) {
+      long index = (long) row * wordsPerRow + wordIndex;
+      hash ^= Zobrist.wordKey(index, oldWord) ^ Zobrist.wordKey(index, word);
+      board[row / rowsPerChunk].put(offset, word);
+    }
+    changedBands[row / BAND_HEIGHT] = true;
+    staleBands[row / BAND_HEIGHT] = true;
+    statisticsStale = true;
+  }
+
+  /**
+   * Copy a row of a buffer onto the heap, with the ghost cells beyond its edges: the cells of the
+   * opposite edges on a torus, dead cells otherwise.
+   *
+   * @param cells the chunks of the buffer.
+   * @param row   the row.
+   * @param words receives word i of the row at index i + 1 and the ghost cells.
+   */
+  private void readRow(LongBuffer[] cells, int row, long[] words) {
+    cells[row / rowsPerChunk].get(row % rowsPerChunk * wordsPerRow, words, 1, wordsPerRow);
+    words[0] = 0;
+    words[wordsPerRow + 1] = 0;
+    if (torus) {
+      //the column left of the first one is the last column, the one right of the last column
+      //is the first one
+      words[0] = (words[wordsPerRow] >>> lastColumnBit & 1) << (WORD_SIZE - 1);
+      words[columnSize / WORD_SIZE + 1] |= (words[1] & 1) << columnSize;
+    }
+  }
+
+  /**
+   * Copy the row of a buffer above or below the board onto the heap: the opposite edge on a
+   * torus, dead cells otherwise.
+   *
+   * @param cells the chunks of the buffer.
+   * @param row   the row next to the board, -1 or the number of rows.
+   * @param words receives the row like {@link #readRow(LongBuffer[], int, long[])}.
+   */
+  private void readRowBeyond(LongBuffer[] cells, int row, long[] words) {
+    if (torus) {
+      readRow(cells, row < 0 ? rowSize - 1 : 0, words);
+    } else {
+      Arrays.fill(words, 0L);
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    setWord(row, col / WORD_SIZE, getWord(board, row, col / WORD_SIZE) | 1L << col);
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return (getWord(board, row, col / WORD_SIZE) & (1L << col)) != 0;
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    setWord(row, col / WORD_SIZE, getWord(board, row, col / WORD_SIZE) & ~(1L << col));
+  }
+
+  @Override
+  public void setCellsAlive(int col, int row, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of cells may not be negative");
+    }
+    if (count == 0) {
+      return;
+    }
+    checkPosition(col, row);
+    checkPosition(col + count - 1, row);
+    int end = col + count;
+    while (col < end) {
+      //the cells of the run within the word of col
+      int wordIndex = col / WORD_SIZE;
+      int wordEnd = Math.min(end, (wordIndex + 1) * WORD_SIZE);
+      long cells = -1L >>> (WORD_SIZE - (wordEnd - col)) << col;
+      setWord(row, wordIndex, getWord(board, row, wordIndex) | cells);
+      col = wordEnd;
+    }
+  }
+
+  @Override
+  public int getRunEnd(int col, int row) {
+    checkPosition(col, row);
+    int wordIndex = col / WORD_SIZE;
+    //a dead run ends at the next live cell, a live run at the next dead cell
+    long flip = (getWord(board, row, wordIndex) & (1L << col)) != 0 ? -1L : 0L;
+    long ends = (getWord(board, row, wordIndex) ^ flip) & (-1L << col);
+    while (ends == 0 && ++wordIndex < wordsPerRow) {
+      ends = getWord(board, row, wordIndex) ^ flip;
+    }
+    if (ends == 0) {
+      return columnSize;
+    }
+    return Math.min(columnSize, wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(ends));
+  }
+
+  @Override
+  public void copyRowTo(int row, LongBuffer words) {
+    checkPosition(0, row);
+    board[row / rowsPerChunk].get(row % rowsPerChunk * wordsPerRow, nextRow, 0, wordsPerRow);
+    words.put(nextRow, 0, wordsPerRow);
+  }
+
+  @Override
+  public void copyRowFrom(int row, LongBuffer words) {
+    checkPosition(0, row);
+    words.get(nextRow, 0, wordsPerRow);
+    nextRow[wordsPerRow - 1] &= lastWordMask;
+    for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+      setWord(row, wordIndex, nextRow[wordIndex]);
+    }
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} The rule is compiled into the kernel that computes the words, see
+   * {@link RuleKernel}.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    this.rule = rule;
+    kernel = RuleKernel.compile(rule);
+    //the next state of stable bands may differ under the new rule
+    Arrays.fill(changedBands, true);
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * {@inheritDoc} The rows next to the first and the last row, and the columns next to the first
+   * and the last column, are read from the opposite edges when a row is copied onto the heap.
+   */
+  @Override
+  public void setTorus(boolean torus) {
+    this.torus = torus;
+    //the next state of the cells along the edges may differ
+    Arrays.fill(changedBands, true);
+  }
+
+  @Override
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+   * {@inheritDoc} Only the words within the bounding box are visited, and only the set bits of
+   * each word.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    checkOpen();
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    int firstWord = region.getFirstColumn() / WORD_SIZE;
+    int lastWord = region.getLastColumn() / WORD_SIZE;
+    //masks of the columns of the region within its first and last word
+    long firstMask = -1L << region.getFirstColumn();
+    long lastMask = -1L >>> (WORD_SIZE - 1 - region.getLastColumn() % WORD_SIZE);
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      for (int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+        long word = getWord(board, rowIndex, wordIndex);
+        if (wordIndex == firstWord) {
+          word &= firstMask;
+        }
+        if (wordIndex == lastWord) {
+          word &= lastMask;
+        }
+        while (word != 0) {
+          action.accept(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Only the bands that changed are visited; the buffer of the next generation still
+   * holds the previous generation in them, so the changed cells are the bits that differ.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    checkOpen();
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      if (!changedBands[rowIndex / BAND_HEIGHT]) {
+        continue;
+      }
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        long word = getWord(board, rowIndex, wordIndex) ^ getWord(nextBoard, rowIndex, wordIndex);
+        while (word != 0) {
+          action.accept(wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The snapshot has the layout of the board, which is copied row by row.
+   */
+  @Override
+  public BoardSnapshot snapshot() {
+    checkOpen();
+    long[] cells = new long[rowSize * wordsPerRow];
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      board[rowIndex / rowsPerChunk].get(rowIndex % rowsPerChunk * wordsPerRow, cells,
+          rowIndex * wordsPerRow, wordsPerRow);
+    }
+    return new BoardSnapshot(this, cells);
+  }
+
+  /**
+   * {@inheritDoc} The hash has a key for every word of the board and its cells, like the hash of
+   * {@link BitGame}, and is updated by every word that changes.
+   */
+  @Override
+  public long getBoardHash() {
+    return hash;
+  }
+
+  /**
+   * {@inheritDoc} The count is summed up from the bands that were computed in the last
+   * generation; only bands whose cells were set since then are counted again.
+   */
+  @Override
+  public long getPopulationCount() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The box is put together from the bands while computing the last generation;
+   * only bands whose cells were set since then are searched again.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    if (population == 0) {
+      return null;
+    }
+    if (bounds == null) {
+      bounds = new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+    }
+    return bounds;
+  }
+
+  /**
+   * Count the live cells of the bands that are stale, and put together the population and the
+   * bounding box of the board.
+   */
+  private void updateStatistics() {
+    checkOpen();
+    for (int band = 0; band < bandCount; band++) {
+      if (!staleBands[band]) {
+        continue;
+      }
+      resetBand(band);
+      int lastBandRow = Math.min(rowSize, (band + 1) * BAND_HEIGHT);
+      for (int rowIndex = band * BAND_HEIGHT; rowIndex < lastBandRow; rowIndex++) {
+        board[rowIndex / rowsPerChunk].get(rowIndex % rowsPerChunk * wordsPerRow, nextRow, 0,
+            wordsPerRow);
+        countRow(band, rowIndex);
+      }
+    }
+    sumStatistics();
+  }
+
+  /**
+   * Reset the statistics of a band before its rows are counted.
+   *
+   * @param band the band.
+   */
+  private void resetBand(int band) {
+    staleBands[band] = false;
+    bandPopulations[band] = 0;
+    bandFirstColumns[band] = Integer.MAX_VALUE;
+    bandLastColumns[band] = -1;
+    bandRowMasks[band] = 0;
+  }
+
+  /**
+   * Add the live cells of a row to the statistics of its band.
+   *
+   * @param band     the band.
+   * @param rowIndex the row, whose words are held by the next row.
+   */
+  private void countRow(int band, int rowIndex) {
+    int firstWord = -1;
+    int lastWord = -1;
+    long count = 0;
+    for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+      long word = nextRow[wordIndex];
+      if (word != 0) {
+        count += Long.bitCount(word);
+        if (firstWord < 0) {
+          firstWord = wordIndex;
+        }
+        lastWord = wordIndex;
+      }
+    }
+    if (count == 0) {
+      return;
+    }
+    bandPopulations[band] += count;
+    bandFirstColumns[band] = Math.min(bandFirstColumns[band], firstWord * WORD_SIZE
+        + Long.numberOfTrailingZeros(nextRow[firstWord]));
+    bandLastColumns[band] = Math.max(bandLastColumns[band], lastWord * WORD_SIZE + WORD_SIZE - 1
+        - Long.numberOfLeadingZeros(nextRow[lastWord]));
+    bandRowMasks[band] |= 1L << rowIndex;
+  }
+
+  /**
+   * Put together the population and the bounding box of the board from the live cells, columns
+   * and rows of its bands. The box is only created when it is asked for, so computing generations
+   * allocates nothing.
+   */
+  private void sumStatistics() {
+    statisticsStale = false;
+    bounds = null;
+    population = 0;
+    firstColumn = Integer.MAX_VALUE;
+    firstRow = Integer.MAX_VALUE;
+    lastColumn = 0;
+    lastRow = 0;
+    for (int band = 0; band < bandCount; band++) {
+      if (bandPopulations[band] == 0) {
+        continue;
+      }
+      population = population + bandPopulations[band];
+      firstColumn = Math.min(firstColumn, bandFirstColumns[band]);
+      lastColumn = Math.max(lastColumn, bandLastColumns[band]);
+      firstRow = Math.min(firstRow, band * BAND_HEIGHT
+          + Long.numberOfTrailingZeros(bandRowMasks[band]));
+      lastRow = Math.max(lastRow, band * BAND_HEIGHT + BAND_HEIGHT - 1
+          - Long.numberOfLeadingZeros(bandRowMasks[band]));
+    }
+  }
+
+  /**
+   * {@inheritDoc} Only the bands with live cells and the bands that changed are cleared, the
+   * other bands of both buffers hold no live cells already.
+   */
+  @Override
+  public void clear() {
+    updateStatistics();
+    Arrays.fill(nextRow, 0L);
+    for (int band = 0; band < bandCount; band++) {
+      if (bandPopulations[band] == 0 && !changedBands[band]) {
+        continue;
+      }
+      int lastBandRow = Math.min(rowSize, (band + 1) * BAND_HEIGHT);
+      for (int rowIndex = band * BAND_HEIGHT; rowIndex < lastBandRow; rowIndex++) {
+        int offset = rowIndex % rowsPerChunk * wordsPerRow;
+        board[rowIndex / rowsPerChunk].put(offset, nextRow, 0, wordsPerRow);
+        nextBoard[rowIndex / rowsPerChunk].put(offset, nextRow, 0, wordsPerRow);
+      }
+      resetBand(band);
+    }
+    //under a rule with B0, the empty bands are born in the next generation
+    Arrays.fill(changedBands, rule.isBornWithoutNeighbours());
+    sumStatistics();
+    hash = 0;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void next() {
+    checkOpen();
+    generation = generation + 1;
+    markActiveBands();
+    for (int band = 0; band < bandCount; band++) {
+      if (activeBands[band]) {
+        computeBand(band);
+      }
+    }
+    //swap the buffers, the old board is overwritten by the following generation
+    LongBuffer[] currentBoard = board;
+    board = nextBoard;
+    nextBoard = currentBoard;
+    ByteBuffer[] currentMemory = boardMemory;
+    boardMemory = nextBoardMemory;
+    nextBoardMemory = currentMemory;
+    sumStatistics();
+  }
+
+  /**
+   * Mark the bands that changed in the previous generation and their neighbours as active and
+   * reset the changed bands for the generation to compute. On a torus, the first and the last band
+   * are neighbours.
+   */
+  private void markActiveBands() {
+    Arrays.fill(activeBands, false);
+    for (int band = 0; band < bandCount; band++) {
+      if (!changedBands[band]) {
+        continue;
+      }
+      changedBands[band] = false;
+      activeBands[band] = true;
+      if (band > 0) {
+        activeBands[band - 1] = true;
+      } else if (torus) {
+        activeBands[bandCount - 1] = true;
+      }
+      if (band + 1 < bandCount) {
+        activeBands[band + 1] = true;
+      } else if (torus) {
+        activeBands[0] = true;
+      }
+    }
+  }
+
+  /**
+   * Compute the next generation of a band and write it into the next board. The rows of the band
+   * are copied onto the heap one after the other, and the statistics of the band and the hash are
+   * updated by the computed words.
+   *
+   * @param band the band.
+   */
+  private void computeBand(int band) {
+    int fromRow = band * BAND_HEIGHT;
+    int toRow = Math.min(rowSize, fromRow + BAND_HEIGHT);
+    boolean skipEmpty = !rule.isBornWithoutNeighbours();
+    resetBand(band);
+    if (fromRow == 0) {
+      readRowBeyond(board, -1, rowAbove);
+    } else {
+      readRow(board, fromRow - 1, rowAbove);
+    }
+    readRow(board, fromRow, rowMiddle);
+    for (int rowIndex = fromRow; rowIndex < toRow; rowIndex++) {
+      if (rowIndex + 1 == rowSize) {
+        readRowBeyond(board, rowSize, rowBelow);
+      } else {
+        readRow(board, rowIndex + 1, rowBelow);
+      }
+      long rowOffset = (long) rowIndex * wordsPerRow;
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        long word;
+        int i = wordIndex + 1;
+        if (skipEmpty && (rowAbove[i - 1] | rowAbove[i] | rowAbove[i + 1] | rowMiddle[i - 1]
+            | rowMiddle[i] | rowMiddle[i + 1] | rowBelow[i - 1] | rowBelow[i]
+            | rowBelow[i + 1]) == 0) {
+          word = 0;
+        } else {
+          word = kernel.computeWord(
+              rowAbove[i] << 1 | rowAbove[i - 1] >>> (WORD_SIZE - 1), rowAbove[i],
+              rowAbove[i] >>> 1 | rowAbove[i + 1] << (WORD_SIZE - 1),
+              rowMiddle[i] << 1 | rowMiddle[i - 1] >>> (WORD_SIZE - 1), rowMiddle[i],
+              rowMiddle[i] >>> 1 | rowMiddle[i + 1] << (WORD_SIZE - 1),
+              rowBelow[i] << 1 | rowBelow[i - 1] >>> (WORD_SIZE - 1), rowBelow[i],
+              rowBelow[i] >>> 1 | rowBelow[i + 1] << (WORD_SIZE - 1));
+        }
+        //the ghost cells of a torus lie beyond the last column of the last word
+        long oldWord = rowMiddle[i];
+        if (wordIndex == wordsPerRow - 1) {
+          word &= lastWordMask;
+          oldWord &= lastWordMask;
+        }
+        nextRow[wordIndex] = word;
+        if (word != oldWord) {
+          changedBands[band] = true;
+          hash ^= Zobrist.wordKey(rowOffset + wordIndex, oldWord)
+              ^ Zobrist.wordKey(rowOffset + wordIndex, word);
+        }
+      }
+      nextBoard[rowIndex / rowsPerChunk].put(rowIndex % rowsPerChunk * wordsPerRow, nextRow, 0,
+          wordsPerRow);
+      countRow(band, rowIndex);
+      //move on by a row, the row above is overwritten with the row after the next one
+      long[] above = rowAbove;
+      rowAbove = rowMiddle;
+      rowMiddle = rowBelow;
+      rowBelow = above;
+    }
+  }
+
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    checkOpen();
+
+    ByteBuffer[] oldBoardMemory = boardMemory;
+    ByteBuffer[] oldNextBoardMemory = nextBoardMemory;
+    LongBuffer[] oldBoard = board;
+    int oldWordsPerRow = wordsPerRow;
+    int oldRowsPerChunk = rowsPerChunk;
+    int keptRows = Math.min(rows, rowSize);
+    long[] oldRow = nextRow;
+    //the game keeps its size if the new buffers cannot be allocated
+    int newWordsPerRow = (cols + WORD_SIZE - 1) / WORD_SIZE;
+    int newRowsPerChunk = rowsPerChunk(newWordsPerRow, rows);
+    ByteBuffer[] newBoardMemory = allocate(rows, newWordsPerRow, newRowsPerChunk);
+    ByteBuffer[] newNextBoardMemory;
+    try {
+      newNextBoardMemory = allocate(rows, newWordsPerRow, newRowsPerChunk);
+    } catch (OutOfMemoryError e) {
+      free(newBoardMemory);
+      throw e;
+    }
+    setDimensions(cols, rows);
+    useBoards(newBoardMemory, newNextBoardMemory);
+    createBands();
+    hash = 0;
+    int keptWords = Math.min(oldWordsPerRow, wordsPerRow);
+    for (int rowIndex = 0; rowIndex < keptRows; rowIndex++) {
+      oldBoard[rowIndex / oldRowsPerChunk].get(rowIndex % oldRowsPerChunk * oldWordsPerRow,
+          oldRow, 0, oldWordsPerRow);
+      Arrays.fill(nextRow, 0L);
+      System.arraycopy(oldRow, 0, nextRow, 0, keptWords);
+      //cells of the old board beyond the new last column are dropped
+      nextRow[wordsPerRow - 1] &= lastWordMask;
+      for (int wordIndex = 0; wordIndex < wordsPerRow; wordIndex++) {
+        setWord(rowIndex, wordIndex, nextRow[wordIndex]);
+      }
+    }
+    free(oldBoardMemory);
+    free(oldNextBoardMemory);
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> population = new HashSet<>();
+    forEachLive((col, row) -> {
+      Cell cell = new Cell(col, row);
+      cell.setStatusAlive();
+      population.add(cell);
+    });
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The memory of both buffers is freed at once; the game cannot be used
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    if (board == null) {
+      return;
+    }
+    free(boardMemory);
+    free(nextBoardMemory);
+    board = null;
+    nextBoard = null;
+    boardMemory = null;
+    nextBoardMemory = null;
+  }
+
+}
@@ -0,0 +1,104 @@
+package org.sosylab.model;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The live cells of a grid as a collection that is backed by the grid, see
+ * {@link Grid#getPopulationView()}. The cells are found on demand, row by row within the bounding
+ * box of the grid, with {@link Grid#getRunEnd(int, int)} skipping runs of dead cells. Grids whose
+ * cells are not stored row by row override {@link #iterator()} to walk their own storage.
+ */
+class PopulationView extends AbstractCollection<Cell> {
+
+  private final Grid grid;
+
+  /**
+   * Create a view of the live cells of a grid.
+   *
+   * @param grid the grid.
+   */
+  PopulationView(Grid grid) {
+    this.grid = grid;
+  }
+
+  @Override
+  public Iterator<Cell> iterator() {
+    return new RunIterator();
+  }
+
+  @Override
+  public int size() {
+    return (int) Math.min(Integer.MAX_VALUE, grid.getPopulationCount());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return grid.getPopulationCount() == 0;
+  }
+
+  @Override
+  public boolean contains(Object other) {
+    if (!(other instanceof Cell)) {
+      return false;
+    }
+    Cell cell = (Cell) other;
+    return cell.getColumn() < grid.getColumns() && cell.getRow() < grid.getRows()
+        && grid.isCellAlive(cell.getColumn(), cell.getRow());
+  }
+
+  /**
+   * Iterate over the runs of live cells within the bounding box, row by row.
+   */
+  private final class RunIterator implements Iterator<Cell> {
+
+    private final BoundingBox box = grid.getBoundingBox();
+
+    //the next cell to look at
+    private int col;
+    private int row;
+
+    //the end of the run of live cells that holds the next cell, col if it is not in a run
+    private int runEnd;
+
+    RunIterator() {
+      if (box != null) {
+        col = box.getFirstColumn();
+        row = box.getFirstRow();
+        runEnd = col;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (box != null && row <= box.getLastRow()) {
+        if (col < runEnd) {
+          return true;
+        }
+        if (col > box.getLastColumn()) {
+          row = row + 1;
+          col = box.getFirstColumn();
+          runEnd = col;
+        } else if (grid.isCellAlive(col, row)) {
+          runEnd = grid.getRunEnd(col, row);
+        } else {
+          col = grid.getRunEnd(col, row);
+          runEnd = col;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Cell next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Cell cell = new Cell(col, row);
+      cell.setStatusAlive();
+      col = col + 1;
+      return cell;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package org.sosylab.model;
+
+/**
+ * A node of the quadtree of a {@link HashLifeGame}. A node of level k describes a square of
+ * 2^k times 2^k cells through its four quadrants of level k - 1; nodes of level 0 are single
+ * cells. Nodes are immutable apart from the cached results, and every distinct square exists only
+ * once, so equal squares are identical objects.
+ */
+final class QuadNode {
+
+  //states of the cells of level 0
+  static final int DEAD = 0;
+  static final int ALIVE = 1;
+  static final int WALL = 2;
+
+  final int level;
+
+  //the north-west, north-east, south-west and south-east quadrants, null for cells
+  final QuadNode nw;
+  final QuadNode ne;
+  final QuadNode sw;
+  final QuadNode se;
+
+  //the state of a cell, unused for larger nodes
+  final int state;
+
+  //number of live cells in the square
+  final long population;
+
+  final int hash;
+
+  //the next node in the same bucket of the table of canonical nodes
+  QuadNode next;
+
+  //the centre of the square after 2^(level - 2) generations, the most a node can be advanced by,
+  //null if not computed yet
+  QuadNode result;
+
+  //the centre of the square after 2^step generations at index step, for the steps smaller than
+  //level - 2; null until the first of them is computed
+  QuadNode[] stepResults;
+
+  //marks the nodes that were kept by the last garbage collection
+  int mark;
+
+  /**
+   * Create a cell.
+   *
+   * @param state the state of the cell.
+   */
+  QuadNode(int state) {
+    level = 0;
+    nw = null;
+    ne = null;
+    sw = null;
+    se = null;
+    this.state = state;
+    population = state == ALIVE ? 1 : 0;
+    hash = state + 1;
+  }
+
+  /**
+   * Create a node from its quadrants, which have to be of the same level.
+   *
+   * @param nw   the north-west quadrant.
+   * @param ne   the north-east quadrant.
+   * @param sw   the south-west quadrant.
+   * @param se   the south-east quadrant.
+   * @param hash the hash of the quadrants, see {@link #hashOf}.
+   */
+  QuadNode(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se, int hash) {
+    level = nw.level + 1;
+    this.nw = nw;
+    this.ne = ne;
+    this.sw = sw;
+    this.se = se;
+    state = DEAD;
+    population = nw.population + ne.population + sw.population + se.population;
+    this.hash = hash;
+  }
+
+  /**
+   * Compute the hash of a node from the hashes of its quadrants.
+   *
+   * @return the hash.
+   */
+  static int hashOf(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se) {
+    int hash = nw.hash;
+    hash = hash * 31 + ne.hash;
+    hash = hash * 31 + sw.hash;
+    hash = hash * 31 + se.hash;
+    hash = hash * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+}
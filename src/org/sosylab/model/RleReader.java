@@ -0,0 +1,220 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Read a pattern in the run-length encoded format RLE. The header with the size and the rule of
+ * the pattern is read when the reader is created; the cells are then streamed into a grid run by
+ * run, see {@link #readInto(Grid)}, so no cells are created and the pattern is never held in
+ * memory as a whole.
+ *
+ * <p>A pattern looks like this, "b" is a run of dead cells, "o" a run of live cells, "$" ends a
+ * row and "!" the pattern; lines starting with "#" are comments:
+ * <pre>
+ * #N Glider
+ * x = 3, y = 3, rule = B3/S23
+ * bob$2bo$3o!
+ * </pre>
+ */
+public final class RleReader {
+
+  //size of the buffer the pattern is read in
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Reader in;
+
+  //the size of the pattern
+  private int columns = -1;
+  private int rows = -1;
+
+  //the rule of the pattern, null if the header does not give one
+  private Rule rule;
+
+  //the characters read but not processed yet
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+
+  /**
+   * Create a reader and read the header of the pattern.
+   *
+   * @param in the pattern, which is read up to the terminating "!".
+   * @throws IOException              if the pattern cannot be read.
+   * @throws IllegalArgumentException if the header is missing or invalid.
+   */
+  public RleReader(Reader in) throws IOException {
+    this.in = in;
+    String line = readLine();
+    while (line != null && (line.isBlank() || line.startsWith("#"))) {
+      line = readLine();
+    }
+    if (line == null) {
+      throw new IllegalArgumentException("Missing header of the pattern");
+    }
+    for (String entry : line.split(",")) {
+      String[] keyAndValue = entry.split("=", 2);
+      if (keyAndValue.length != 2) {
+        throw new IllegalArgumentException("Invalid header of the pattern: " + line);
+      }
+      String key = keyAndValue[0].trim();
+      String value = keyAndValue[1].trim();
+      if (key.equals("x")) {
+        columns = parseSize(value, line);
+      } else if (key.equals("y")) {
+        rows = parseSize(value, line);
+      } else if (key.equals("rule")) {
+        rule = Rule.parse(value);
+      }
+    }
+    if (columns < 0 || rows < 0) {
+      throw new IllegalArgumentException("Missing size of the pattern: " + line);
+    }
+  }
+
+  /**
+   * Parse the width or height given by the header.
+   *
+   * @param value the number.
+   * @param line  the header for the error message.
+   * @return the size.
+   */
+  private static int parseSize(String value, String line) {
+    try {
+      int size = Integer.parseInt(value);
+      if (size >= 0) {
+        return size;
+      }
+    } catch (NumberFormatException e) {
+      //reported below
+    }
+    throw new IllegalArgumentException("Invalid size of the pattern: " + line);
+  }
+
+  /**
+   * Get the width of the pattern.
+   *
+   * @return the number of columns.
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Get the height of the pattern.
+   *
+   * @return the number of rows.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the rule of the pattern.
+   *
+   * @return the rule given by the header, or null if the header gives none.
+   */
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * Read the cells of the pattern and set them alive in a grid, with the upper left corner of
+   * the pattern in the upper left corner of the grid. Every run of live cells is set at once, see
+   * {@link Grid#setCellsAlive(int, int, int)}.
+   *
+   * @param grid the grid, at least as large as the pattern.
+   * @throws IOException              if the pattern cannot be read.
+   * @throws IllegalArgumentException if the pattern is invalid or exceeds its size.
+   */
+  public void readInto(Grid grid) throws IOException {
+    if (grid.getColumns() < columns || grid.getRows() < rows) {
+      throw new IllegalArgumentException("The pattern does not fit into the game");
+    }
+    int column = 0;
+    int row = 0;
+    int count = 0;
+    int next = read();
+    while (next >= 0 && next != '!') {
+      char symbol = (char) next;
+      if (symbol >= '0' && symbol <= '9') {
+        count = count * 10 + symbol - '0';
+        if (count > Math.max(columns, rows)) {
+          throw new IllegalArgumentException("Run exceeds the size of the pattern");
+        }
+      } else if (symbol == '$') {
+        row = row + Math.max(count, 1);
+        column = 0;
+        count = 0;
+      } else if (symbol == 'b' || symbol == '.') {
+        column = column + Math.max(count, 1);
+        count = 0;
+      } else if (Character.isLetter(symbol)) {
+        //every state but the dead state counts as alive
+        int run = Math.max(count, 1);
+        if (column + run > columns || row >= rows) {
+          throw new IllegalArgumentException("Run exceeds the size of the pattern");
+        }
+        grid.setCellsAlive(column, row, run);
+        column = column + run;
+        count = 0;
+      } else if (symbol == '#') {
+        skipLine();
+      } else if (!Character.isWhitespace(symbol)) {
+        throw new IllegalArgumentException("Invalid symbol in the pattern: " + symbol);
+      }
+      next = read();
+    }
+  }
+
+  /**
+   * Read the next character of the pattern.
+   *
+   * @return the character, or -1 at the end of the pattern.
+   * @throws IOException if the pattern cannot be read.
+   */
+  private int read() throws IOException {
+    if (position == limit) {
+      limit = in.read(buffer);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position++];
+  }
+
+  /**
+   * Read the rest of the current line.
+   *
+   * @return the line without its line break, or null at the end of the pattern.
+   * @throws IOException if the pattern cannot be read.
+   */
+  private String readLine() throws IOException {
+    int next = read();
+    if (next < 0) {
+      return null;
+    }
+    StringBuilder line = new StringBuilder();
+    while (next >= 0 && next != '\n') {
+      if (next != '\r') {
+        line.append((char) next);
+      }
+      next = read();
+    }
+    return line.toString();
+  }
+
+  /**
+   * Skip the rest of the current line.
+   *
+   * @throws IOException if the pattern cannot be read.
+   */
+  private void skipLine() throws IOException {
+    int next = read();
+    while (next >= 0 && next != '\n') {
+      next = read();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Write the cells of a grid in the run-length encoded format RLE, see {@link RleReader}. The
+ * runs of every row are found with {@link Grid#getRunEnd(int, int)}, so neither cells nor a
+ * copy of the board are created.
+ */
+public final class RleWriter {
+
+  //the longest line of the pattern, as recommended by the format
+  private static final int LINE_LENGTH = 70;
+
+  private final Writer out;
+
+  //the characters of the pattern not written yet
+  private final char[] buffer = new char[1 << 16];
+  private int position;
+
+  //number of characters in the current line
+  private int lineLength;
+
+  /**
+   * Create a writer.
+   *
+   * @param out the destination of the pattern.
+   */
+  private RleWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Write a grid as a pattern of its size and rule.
+   *
+   * @param grid the grid.
+   * @param out  the destination of the pattern, which is not closed.
+   * @throws IOException if the pattern cannot be written.
+   */
+  public static void write(Grid grid, Writer out) throws IOException {
+    new RleWriter(out).writePattern(grid);
+  }
+
+  /**
+   * Write the header and the runs of a grid.
+   *
+   * @param grid the grid.
+   * @throws IOException if the pattern cannot be written.
+   */
+  private void writePattern(Grid grid) throws IOException {
+    int columns = grid.getColumns();
+    out.write("x = " + columns + ", y = " + grid.getRows() + ", rule = " + grid.getRule());
+    out.write(System.lineSeparator());
+    //rows are only ended before the next live cell, so empty rows at the end are left out
+    int endedRows = 0;
+    for (int row = 0; row < grid.getRows(); row++) {
+      int column = 0;
+      //runs of live and dead cells alternate
+      boolean alive = grid.isCellAlive(0, row);
+      while (column < columns) {
+        int end = grid.getRunEnd(column, row);
+        //dead cells at the end of a row are left out
+        if (alive || end < columns) {
+          if (endedRows > 0) {
+            writeRun(endedRows, '$');
+            endedRows = 0;
+          }
+          writeRun(end - column, alive ? 'o' : 'b');
+        }
+        column = end;
+        alive = !alive;
+      }
+      endedRows = endedRows + 1;
+    }
+    writeRun(1, '!');
+    out.write(buffer, 0, position);
+    out.write(System.lineSeparator());
+  }
+
+  /**
+   * Write a run, and break the line before it if it would be too long.
+   *
+   * @param count  the length of the run.
+   * @param symbol the symbol of the run.
+   * @throws IOException if the pattern cannot be written.
+   */
+  private void writeRun(int count, char symbol) throws IOException {
+    int digits = count == 1 ? 0 : stringSize(count);
+    if (lineLength + digits + 1 > LINE_LENGTH) {
+      writeLineSeparator();
+    }
+    if (position + digits + 1 > buffer.length) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+    for (int index = position + digits - 1; index >= position; index--) {
+      buffer[index] = (char) ('0' + count % 10);
+      count = count / 10;
+    }
+    buffer[position + digits] = symbol;
+    position = position + digits + 1;
+    lineLength = lineLength + digits + 1;
+  }
+
+  /**
+   * Break the line of the pattern.
+   *
+   * @throws IOException if the pattern cannot be written.
+   */
+  private void writeLineSeparator() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+    out.write(System.lineSeparator());
+    lineLength = 0;
+  }
+
+  /**
+   * Get the number of digits of a positive number.
+   *
+   * @param number the number.
+   * @return the number of its digits.
+   */
+  private static int stringSize(int number) {
+    int digits = 1;
+    while (number >= 10) {
+      number = number / 10;
+      digits++;
+    }
+    return digits;
+  }
+}
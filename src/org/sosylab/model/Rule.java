@@ -0,0 +1,160 @@
+package org.sosylab.model;
+
+/**
+ * A rule of a Life-like cellular automaton in B/S notation, for example "B3/S23" for Conway's
+ * Game of Life or "B36/S23" for HighLife. The digits after B are the numbers of live neighbours
+ * for which a dead cell is born, the digits after S those for which a live cell stays alive.
+ */
+public final class Rule {
+
+  /**
+   * The rule of Conway's Game of Life.
+   */
+  public static final Rule CONWAY = parse("B3/S23");
+
+  //the largest number of neighbours of a cell
+  private static final int MAX_NEIGHBOURS = 8;
+
+  //bit n is set if a dead cell with n live neighbours is born
+  private final int birthMask;
+
+  //bit n is set if a live cell with n live neighbours stays alive
+  private final int survivalMask;
+
+  /**
+   * Create a rule.
+   *
+   * @param birthMask    the neighbour counts for which dead cells are born.
+   * @param survivalMask the neighbour counts for which live cells stay alive.
+   */
+  private Rule(int birthMask, int survivalMask) {
+    this.birthMask = birthMask;
+    this.survivalMask = survivalMask;
+  }
+
+  /**
+   * Parse a rule in B/S notation. The parts may be given in any order and in any case.
+   *
+   * @param notation the rule, for example "B3/S23".
+   * @return the rule.
+   * @throws IllegalArgumentException if the notation is not a valid rule.
+   */
+  public static Rule parse(String notation) {
+    String[] parts = notation.trim().toUpperCase().split("/", -1);
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Invalid rule: " + notation);
+    }
+    int birthMask = -1;
+    int survivalMask = -1;
+    for (String part : parts) {
+      if (part.startsWith("B") && birthMask < 0) {
+        birthMask = parseCounts(part, notation);
+      } else if (part.startsWith("S") && survivalMask < 0) {
+        survivalMask = parseCounts(part, notation);
+      } else {
+        throw new IllegalArgumentException("Invalid rule: " + notation);
+      }
+    }
+    return new Rule(birthMask, survivalMask);
+  }
+
+  /**
+   * Parse the neighbour counts after the letter of a part of a rule.
+   *
+   * @param part     the part, for example "S23".
+   * @param notation the whole rule for the error message.
+   * @return the mask with bit n set for each count n.
+   */
+  private static int parseCounts(String part, String notation) {
+    int mask = 0;
+    for (int index = 1; index < part.length(); index++) {
+      int count = part.charAt(index) - '0';
+      if (count < 0 || count > MAX_NEIGHBOURS) {
+        throw new IllegalArgumentException("Invalid rule: " + notation);
+      }
+      mask |= 1 << count;
+    }
+    return mask;
+  }
+
+  /**
+   * Get the neighbour counts for which dead cells are born.
+   *
+   * @return a mask with bit n set if a dead cell with n live neighbours is born.
+   */
+  public int getBirthMask() {
+    return birthMask;
+  }
+
+  /**
+   * Get the neighbour counts for which live cells stay alive.
+   *
+   * @return a mask with bit n set if a live cell with n live neighbours stays alive.
+   */
+  public int getSurvivalMask() {
+    return survivalMask;
+  }
+
+  /**
+   * Check whether dead cells without live neighbours are born. Engines that only look at the
+   * neighbourhood of live cells cannot compute such rules.
+   *
+   * @return true if the rule contains B0, false if not.
+   */
+  public boolean isBornWithoutNeighbours() {
+    return (birthMask & 1) != 0;
+  }
+
+  /**
+   * Compute the next state of a cell.
+   *
+   * @param alive          the current state of the cell.
+   * @param liveNeighbours the number of live neighbours of the cell.
+   * @return true if the cell is alive in the next generation, false if not.
+   */
+  public boolean nextState(boolean alive, int liveNeighbours) {
+    int mask = alive ? survivalMask : birthMask;
+    return (mask >>> liveNeighbours & 1) != 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return birthMask * 31 + survivalMask;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    Rule rule = (Rule) other;
+    return birthMask == rule.birthMask && survivalMask == rule.survivalMask;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("B");
+    appendCounts(sb, birthMask);
+    sb.append("/S");
+    appendCounts(sb, survivalMask);
+    return sb.toString();
+  }
+
+  /**
+   * Append the neighbour counts of a mask in ascending order.
+   *
+   * @param sb   the builder to append to.
+   * @param mask the mask of neighbour counts.
+   */
+  private static void appendCounts(StringBuilder sb, int mask) {
+    for (int count = 0; count <= MAX_NEIGHBOURS; count++) {
+      if ((mask >>> count & 1) != 0) {
+        sb.append(count);
+      }
+    }
+  }
+
+}
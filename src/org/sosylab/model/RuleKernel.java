@@ -0,0 +1,225 @@
+package org.sosylab.model;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The tile kernel of a {@link BitGame}, compiled for one rule. The neighbour counts of the rule
+ * are static constants, so the just-in-time compiler folds them into the loop over the cells and
+ * drops every count that is not part of the rule.
+ *
+ * <p>This class is a template, see {@link TileKernels}.
+ */
+final class RuleKernel implements TileKernel {
+
+  //number of cells packed into one word
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //the rule of this copy of the class, Conway's rule for the template
+  private static final Rule RULE = TileKernels.ruleOf(MethodHandles.lookup());
+
+  //bit n is set if a dead cell with n neighbours is born or a live cell with n neighbours stays
+  //alive
+  private static final int BIRTH_COUNTS = RULE.getBirthMask();
+  private static final int SURVIVAL_COUNTS = RULE.getSurvivalMask();
+
+  /**
+   * Get the kernel of a rule.
+   *
+   * @param rule the rule.
+   * @return the kernel that computes the rule.
+   */
+  static TileKernel compile(Rule rule) {
+    return TileKernels.compile(RuleKernel.class, rule);
+  }
+
+  @Override
+  public void computeTiles(long[] board, long[] nextBoard, int wordsPerRow, int rowSize,
+      long lastWordMask, int firstRow, int lastRow, int firstWord, int lastWord,
+      boolean[] changedTiles, int tileOffset) {
+    for (int wordIndex = firstWord; wordIndex < lastWord; wordIndex++) {
+      //cells beyond the last column are not part of the board and have to stay dead
+      long mask = wordIndex == wordsPerRow - 1 ? lastWordMask : -1L;
+      if (computeTile(board, nextBoard, wordsPerRow, rowSize, wordIndex, firstRow, lastRow,
+          mask)) {
+        changedTiles[tileOffset + wordIndex] = true;
+      }
+    }
+  }
+
+  @Override
+  public long computeWord(long upLeft, long up, long upRight, long left, long middle,
+      long right, long downLeft, long down, long downRight) {
+    return applyRule(middle, upLeft ^ up ^ upRight, (upLeft & up) | (upRight & (upLeft ^ up)),
+        left ^ right, left & right, downLeft ^ down ^ downRight,
+        (downLeft & down) | (downRight & (downLeft ^ down)));
+  }
+
+  /**
+   * {@inheritDoc} Like a tile of a board, the halo is computed from top to bottom, and the
+   * neighbours of every row are added up once.
+   */
+  @Override
+  public boolean computeHaloTile(long[] left, long[] middle, long[] right, long[] nextTiles,
+      int offset, int height, long mask) {
+    long upOnes = left[0] ^ middle[0] ^ right[0];
+    long upTwos = (left[0] & middle[0]) | (right[0] & (left[0] ^ middle[0]));
+    long changed = 0;
+    for (int row = 1; row <= height; row++) {
+      long downLeft = left[row + 1];
+      long down = middle[row + 1];
+      long downRight = right[row + 1];
+      long downOnes = downLeft ^ down ^ downRight;
+      long downTwos = (downLeft & down) | (downRight & (downLeft ^ down));
+
+      long alive = middle[row];
+      long word = applyRule(alive, upOnes, upTwos, left[row] ^ right[row], left[row] & right[row],
+          downOnes, downTwos) & mask;
+      nextTiles[offset + row - 1] = word;
+      changed |= word ^ alive;
+
+      //the row moves up, its sum now includes the cell itself
+      upOnes = left[row] ^ alive ^ right[row];
+      upTwos = (left[row] & alive) | (right[row] & (left[row] ^ alive));
+    }
+    return changed != 0;
+  }
+
+  /**
+   * Compute the next generation of the rows of a tile. The tile is computed from top to bottom,
+   * and the neighbours of every row are added up once and then used for the row below and the
+   * row above it.
+   *
+   * @param wordIndex the position of the word of the tile within its rows.
+   * @param mask      the bits of the word that belong to the board.
+   * @return true if any cell of the tile changed, false if not.
+   */
+  private static boolean computeTile(long[] board, long[] nextBoard, int wordsPerRow, int rowSize,
+      int wordIndex, int firstRow, int lastRow, long mask) {
+    boolean hasRight = wordIndex + 1 < wordsPerRow;
+    long upOnes = 0;
+    long upTwos = 0;
+    if (firstRow > 0) {
+      int offset = (firstRow - 1) * wordsPerRow + wordIndex;
+      long up = board[offset];
+      long upLeft = leftNeighbours(board, offset, wordIndex);
+      long upRight = rightNeighbours(board, offset, hasRight);
+      upOnes = upLeft ^ up ^ upRight;
+      upTwos = (upLeft & up) | (upRight & (upLeft ^ up));
+    }
+    int offset = firstRow * wordsPerRow + wordIndex;
+    long middle = board[offset];
+    long middleLeft = leftNeighbours(board, offset, wordIndex);
+    long middleRight = rightNeighbours(board, offset, hasRight);
+    boolean changed = false;
+    for (int rowIndex = firstRow; rowIndex < lastRow; rowIndex++) {
+      long down = 0;
+      long downLeft = 0;
+      long downRight = 0;
+      if (rowIndex + 1 < rowSize) {
+        down = board[offset + wordsPerRow];
+        downLeft = leftNeighbours(board, offset + wordsPerRow, wordIndex);
+        downRight = rightNeighbours(board, offset + wordsPerRow, hasRight);
+      }
+      long downOnes = downLeft ^ down ^ downRight;
+      long downTwos = (downLeft & down) | (downRight & (downLeft ^ down));
+
+      long word = applyRule(middle, upOnes, upTwos, middleLeft ^ middleRight,
+          middleLeft & middleRight, downOnes, downTwos) & mask;
+      nextBoard[offset] = word;
+      changed |= word != middle;
+
+      //the row moves up, its sum now includes the cell itself
+      upOnes = middleLeft ^ middle ^ middleRight;
+      upTwos = (middleLeft & middle) | (middleRight & (middleLeft ^ middle));
+      middle = down;
+      middleLeft = downLeft;
+      middleRight = downRight;
+      offset = offset + wordsPerRow;
+    }
+    return changed;
+  }
+
+  /**
+   * Get the left neighbours of the 64 cells of a word, the bit of each cell holds the cell to
+   * its left.
+   *
+   * @param board     the board.
+   * @param offset    the index of the word in the board.
+   * @param wordIndex the position of the word within its row.
+   * @return the left neighbours.
+   */
+  private static long leftNeighbours(long[] board, int offset, int wordIndex) {
+    long word = board[offset] << 1;
+    return wordIndex > 0 ? word | board[offset - 1] >>> (WORD_SIZE - 1) : word;
+  }
+
+  /**
+   * Get the right neighbours of the 64 cells of a word, the bit of each cell holds the cell to
+   * its right.
+   *
+   * @param board    the board.
+   * @param offset   the index of the word in the board.
+   * @param hasRight whether the word is followed by another word of the same row.
+   * @return the right neighbours.
+   */
+  private static long rightNeighbours(long[] board, int offset, boolean hasRight) {
+    long word = board[offset] >>> 1;
+    return hasRight ? word | board[offset + 1] << (WORD_SIZE - 1) : word;
+  }
+
+  /**
+   * Apply the rule to 64 cells at once. The neighbours of the cells are given as the sums of the
+   * three cells of the row above and below and the two cells of the row itself, each as a plane
+   * of ones and twos, and are added up to the neighbour count as four bit planes.
+   *
+   * @param alive the cells themselves.
+   * @return the next state of the cells.
+   */
+  private static long applyRule(long alive, long upOnes, long upTwos, long middleOnes,
+      long middleTwos, long downOnes, long downTwos) {
+    long ones = upOnes ^ middleOnes ^ downOnes;
+    long onesCarry = (upOnes & middleOnes) | (downOnes & (upOnes ^ middleOnes));
+    long twosSum = upTwos ^ middleTwos ^ downTwos;
+    long twosCarry = (upTwos & middleTwos) | (downTwos & (upTwos ^ middleTwos));
+    long twos = twosSum ^ onesCarry;
+    long fours = twosCarry ^ (twosSum & onesCarry);
+    long eights = twosCarry & twosSum & onesCarry;
+
+    long born = cellsWithCounts(BIRTH_COUNTS, ones, twos, fours, eights);
+    long survives = cellsWithCounts(SURVIVAL_COUNTS, ones, twos, fours, eights);
+    return born ^ ((born ^ survives) & alive);
+  }
+
+  /**
+   * Select the cells whose neighbour count is part of a mask of counts. The mask is a constant,
+   * so the counts that are not part of it are folded away.
+   *
+   * @param counts the mask of neighbour counts.
+   * @return the cells with one of the counts.
+   */
+  private static long cellsWithCounts(int counts, long ones, long twos, long fours, long eights) {
+    //counts of 0 to 3 and of 4 to 7 differ only in the fours, a count of 8 has only the eights
+    long low0 = ~ones & ~twos;
+    long low1 = ones & ~twos;
+    long low2 = ~ones & twos;
+    long low3 = ones & twos;
+    return (cellsWith(counts, 0, low0) | cellsWith(counts, 1, low1) | cellsWith(counts, 2, low2)
+        | cellsWith(counts, 3, low3)) & ~fours & ~eights
+        | (cellsWith(counts, 4, low0) | cellsWith(counts, 5, low1) | cellsWith(counts, 6, low2)
+        | cellsWith(counts, 7, low3)) & fours
+        | cellsWith(counts, 8, eights);
+  }
+
+  /**
+   * Keep the cells of a neighbour count if the count is part of a mask of counts.
+   *
+   * @param counts the mask of neighbour counts.
+   * @param count  the neighbour count.
+   * @param cells  the cells with the count.
+   * @return the cells, or no cells if the mask does not contain the count.
+   */
+  private static long cellsWith(int counts, int count, long cells) {
+    return (counts >>> count & 1) != 0 ? cells : 0;
+  }
+
+}
@@ -0,0 +1,450 @@
+package org.sosylab.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Manage a game of life that only stores its live cells. The position of every live cell is packed
+ * into a long and kept in a hash set, so the memory and the time needed for a generation depend on
+ * the population and not on the size of the board. This allows boards with millions of rows and
+ * columns as long as only few cells are alive.
+ */
+public class SparseGame implements Grid {
+
+  //the neighbour count of a cell is increased by one for every live neighbour,
+  //the count of a live cell is additionally increased by this flag
+  private static final int ALIVE = 16;
+
+
+  //the size of the columns of the game
+  private int columnSize;
+
+  //the size of the rows of the game
+  private int rowSize;
+
+  //the packed positions of all live cells
+  private LongSet liveCells;
+
+  //neighbour counts of the cells next to live cells, reused by every generation
+  private final LongCountMap neighbourCounts;
+
+  //number of the generation of the game
+  private long generation;
+
+  //the Zobrist hash of the live cells, kept up to date by every change of a cell
+  private long hash;
+
+  //the bounding box of the live cells, only meaningful if cells are alive
+  private int firstColumn;
+  private int firstRow;
+  private int lastColumn;
+  private int lastRow;
+
+  //false if a cell on the edge of the bounding box died, so the box has to be searched again
+  private boolean boundsValid;
+
+  //the rule of the game
+  private Rule rule;
+
+  //bit n is set if a cell with count n is alive in the next generation
+  private int nextAlive;
+
+  /**
+   * Create a sparse game of life.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public SparseGame(int cols, int rows) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    columnSize = cols;
+    rowSize = rows;
+    liveCells = new LongSet();
+    neighbourCounts = new LongCountMap();
+    generation = 0;
+    boundsValid = true;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Pack the position of a cell into a long.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the packed position.
+   */
+  private static long pack(int col, int row) {
+    return ((long) col << Integer.SIZE) | row;
+  }
+
+  /**
+   * Get the column of a packed position.
+   *
+   * @param position the packed position.
+   * @return x-position.
+   */
+  private static int columnOf(long position) {
+    return (int) (position >>> Integer.SIZE);
+  }
+
+  /**
+   * Get the row of a packed position.
+   *
+   * @param position the packed position.
+   * @return y-position.
+   */
+  private static int rowOf(long position) {
+    return (int) position;
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    if (liveCells.add(pack(col, row))) {
+      hash ^= Zobrist.cellKey(col, row);
+      include(col, row);
+    }
+  }
+
+  /**
+   * Grow the bounding box by a cell that has been added to the live cells.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void include(int col, int row) {
+    if (liveCells.size() == 1) {
+      firstColumn = col;
+      firstRow = row;
+      lastColumn = col;
+      lastRow = row;
+      boundsValid = true;
+    } else {
+      firstColumn = Math.min(firstColumn, col);
+      firstRow = Math.min(firstRow, row);
+      lastColumn = Math.max(lastColumn, col);
+      lastRow = Math.max(lastRow, row);
+    }
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return liveCells.contains(pack(col, row));
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    if (liveCells.remove(pack(col, row))) {
+      hash ^= Zobrist.cellKey(col, row);
+      if (col == firstColumn || col == lastColumn || row == firstRow || row == lastRow) {
+        boundsValid = false;
+      }
+    }
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} Rules with B0 are not supported, because they give birth to cells far away
+   * from any live cell.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    if (rule.isBornWithoutNeighbours()) {
+      throw new IllegalArgumentException("Rules with B0 are not supported");
+    }
+    this.rule = rule;
+    nextAlive = rule.getBirthMask() | rule.getSurvivalMask() << ALIVE;
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * {@inheritDoc} The view walks the set of live cells, so it visits the cells in no particular
+   * order.
+   */
+  @Override
+  public Collection<Cell> getPopulationView() {
+    return new PopulationView(this) {
+      @Override
+      public Iterator<Cell> iterator() {
+        return new SlotIterator();
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc} The cells are visited in no particular order.
+   */
+  @Override
+  public void forEachLive(IntIntConsumer action) {
+    for (int slot = 0; slot < liveCells.capacity(); slot++) {
+      long position = liveCells.slotValue(slot);
+      if (position != LongSet.EMPTY) {
+        action.accept(columnOf(position), rowOf(position));
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Regions with more cells than the set has slots are visited through the slots,
+   * smaller regions through the positions of the region.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    if ((long) width * height <= liveCells.capacity()) {
+      Grid.super.forEachLive(col, row, width, height, action);
+      return;
+    }
+    for (int slot = 0; slot < liveCells.capacity(); slot++) {
+      long position = liveCells.slotValue(slot);
+      if (position != LongSet.EMPTY) {
+        int columnIndex = columnOf(position);
+        int rowIndex = rowOf(position);
+        if (columnIndex >= col && columnIndex - col < width && rowIndex >= row
+            && rowIndex - row < height) {
+          action.accept(columnIndex, rowIndex);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The neighbour counts of the last generation hold every cell that was alive
+   * before it or may have been born, and whether it was alive, which is compared with its current
+   * state.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    for (int slot = 0; slot < neighbourCounts.capacity(); slot++) {
+      long position = neighbourCounts.slotKey(slot);
+      if (position == LongSet.EMPTY) {
+        continue;
+      }
+      int col = columnOf(position);
+      int row = rowOf(position);
+      //cells beyond the edges of a board that was shrunk since are left out
+      if (col < columnSize && row < rowSize
+          && (neighbourCounts.slotCount(slot) >= ALIVE) != liveCells.contains(position)) {
+        action.accept(col, row);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} A generation updates the hash by the cells that it flipped.
+   */
+  @Override
+  public long getBoardHash() {
+    return hash;
+  }
+
+  @Override
+  public long getPopulationCount() {
+    return liveCells.size();
+  }
+
+  /**
+   * {@inheritDoc} Only if a cell on the edge of the box has been set dead since the last
+   * generation, the box is searched among the live cells.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (liveCells.size() == 0) {
+      return null;
+    }
+    if (!boundsValid) {
+      firstColumn = Integer.MAX_VALUE;
+      firstRow = Integer.MAX_VALUE;
+      lastColumn = 0;
+      lastRow = 0;
+      for (int slot = 0; slot < liveCells.capacity(); slot++) {
+        long position = liveCells.slotValue(slot);
+        if (position != LongSet.EMPTY) {
+          firstColumn = Math.min(firstColumn, columnOf(position));
+          firstRow = Math.min(firstRow, rowOf(position));
+          lastColumn = Math.max(lastColumn, columnOf(position));
+          lastRow = Math.max(lastRow, rowOf(position));
+        }
+      }
+      boundsValid = true;
+    }
+    return new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+  }
+
+  @Override
+  public void clear() {
+    liveCells.clear();
+    hash = 0;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void next() {
+    generation = generation + 1;
+    //every live cell adds one to the count of each of its neighbours on the board
+    neighbourCounts.clear();
+    for (int slot = 0; slot < liveCells.capacity(); slot++) {
+      long position = liveCells.slotValue(slot);
+      if (position == LongSet.EMPTY) {
+        continue;
+      }
+      int col = columnOf(position);
+      int row = rowOf(position);
+      int lastRow = Math.min(row + 1, rowSize - 1);
+      int lastColumn = Math.min(col + 1, columnSize - 1);
+      for (int rowIndex = Math.max(row - 1, 0); rowIndex <= lastRow; rowIndex++) {
+        for (int columnIndex = Math.max(col - 1, 0); columnIndex <= lastColumn; columnIndex++) {
+          neighbourCounts.add(pack(columnIndex, rowIndex), 1);
+        }
+      }
+      //the loop above also counted the cell itself, replace that by the alive flag
+      neighbourCounts.add(position, ALIVE - 1);
+    }
+
+    //only cells with a count can be alive in the next generation
+    liveCells.clear();
+    for (int slot = 0; slot < neighbourCounts.capacity(); slot++) {
+      long position = neighbourCounts.slotKey(slot);
+      if (position == LongSet.EMPTY) {
+        continue;
+      }
+      int count = neighbourCounts.slotCount(slot);
+      boolean alive = (nextAlive >>> count & 1) != 0;
+      if (alive != (count >= ALIVE)) {
+        hash ^= Zobrist.cellKey(columnOf(position), rowOf(position));
+      }
+      if (alive) {
+        liveCells.add(position);
+        include(columnOf(position), rowOf(position));
+      }
+    }
+    boundsValid = true;
+  }
+
+  /**
+   * {@inheritDoc} Growing the board only changes its bounds; shrinking it additionally removes
+   * the live cells outside the new bounds, so neither depends on the size of the board.
+   */
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+
+    if (cols < columnSize || rows < rowSize) {
+      LongSet keptCells = new LongSet();
+      for (int slot = 0; slot < liveCells.capacity(); slot++) {
+        long position = liveCells.slotValue(slot);
+        if (position != LongSet.EMPTY && columnOf(position) < cols && rowOf(position) < rows) {
+          keptCells.add(position);
+        }
+      }
+      liveCells = keptCells;
+      //cells beyond the new edges may have been dropped
+      boundsValid = false;
+      hash = Zobrist.hashCells(this);
+    }
+    columnSize = cols;
+    rowSize = rows;
+  }
+
+  /**
+   * Iterate over the live cells slot by slot.
+   */
+  private final class SlotIterator implements Iterator<Cell> {
+
+    private final LongSet cells = liveCells;
+
+    //the next slot to look at
+    private int slot;
+
+    @Override
+    public boolean hasNext() {
+      while (slot < cells.capacity() && cells.slotValue(slot) == LongSet.EMPTY) {
+        slot++;
+      }
+      return slot < cells.capacity();
+    }
+
+    @Override
+    public Cell next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long position = cells.slotValue(slot);
+      slot++;
+      Cell cell = new Cell(columnOf(position), rowOf(position));
+      cell.setStatusAlive();
+      return cell;
+    }
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> population = new HashSet<>();
+    for (int slot = 0; slot < liveCells.capacity(); slot++) {
+      long position = liveCells.slotValue(slot);
+      if (position != LongSet.EMPTY) {
+        Cell cell = new Cell(columnOf(position), rowOf(position));
+        cell.setStatusAlive();
+        population.add(cell);
+      }
+    }
+    return population;
+  }
+
+}
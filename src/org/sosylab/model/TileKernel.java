@@ -0,0 +1,79 @@
+package org.sosylab.model;
+
+/**
+ * Computes the next generation of the tiles of a {@link BitGame} under a fixed rule. The board is
+ * stored row by row, and every word holds 64 cells of a row, with bit i of word w holding the cell
+ * in column w * 64 + i. A {@link TiledGame} stores every tile on its own instead and hands a tile
+ * to the kernel together with its halo, see
+ * {@link #computeHaloTile(long[], long[], long[], long[], int, int, long)}. Kernels are compiled
+ * for a rule by {@link TileKernels}.
+ */
+interface TileKernel {
+
+  /**
+   * Compute the next generation of a run of adjacent tiles, each one word wide, and write it into
+   * the next board. Rows outside the board are dead.
+   *
+   * @param board        the current board.
+   * @param nextBoard    the board that receives the next generation.
+   * @param wordsPerRow  the number of words of a row.
+   * @param rowSize      the number of rows of the board.
+   * @param lastWordMask the bits of the last word of a row that belong to the board.
+   * @param firstRow     the first row to compute.
+   * @param lastRow      the row after the last row to compute.
+   * @param firstWord    the position of the word of the first tile within its rows.
+   * @param lastWord     the position after the word of the last tile.
+   * @param changedTiles the flags that are set for the tiles in which any cell changed.
+   * @param tileOffset   the index of the flag of the tile in word 0.
+   */
+  void computeTiles(long[] board, long[] nextBoard, int wordsPerRow, int rowSize,
+      long lastWordMask, int firstRow, int lastRow, int firstWord, int lastWord,
+      boolean[] changedTiles, int tileOffset);
+
+  /**
+   * Compute the next generation of a single word from the words around it. Every neighbour is
+   * given as a word whose bit i holds the neighbour of the cell in bit i, so the caller decides
+   * which cells lie beyond the edges of the board.
+   *
+   * @param upLeft    the cells to the upper left.
+   * @param up        the cells above.
+   * @param upRight   the cells to the upper right.
+   * @param left      the cells to the left.
+   * @param middle    the cells themselves.
+   * @param right     the cells to the right.
+   * @param downLeft  the cells to the lower left.
+   * @param down      the cells below.
+   * @param downRight the cells to the lower right.
+   * @return the next state of the cells.
+   */
+  long computeWord(long upLeft, long up, long upRight, long left, long middle, long right,
+      long downLeft, long down, long downRight);
+
+  /**
+   * Compute the next generation of a tile, one word wide, from a halo that holds its rows and the
+   * row above and below it: word i of the halo holds row i - 1 of the tile. The left and right
+   * neighbours of the cells were gathered into halos of their own, so the kernel never looks
+   * beyond the tile.
+   *
+   * @param left      the left neighbours of the words of the halo.
+   * @param middle    the words of the halo.
+   * @param right     the right neighbours of the words of the halo.
+   * @param nextTiles the tiles that receive the next generation.
+   * @param offset    the index of the first row of the tile in the next tiles.
+   * @param height    the number of rows of the tile.
+   * @param mask      the bits of the words that belong to the board.
+   * @return true if any cell of the tile changed, false if not.
+   */
+  default boolean computeHaloTile(long[] left, long[] middle, long[] right, long[] nextTiles,
+      int offset, int height, long mask) {
+    boolean changed = false;
+    for (int row = 1; row <= height; row++) {
+      long word = computeWord(left[row - 1], middle[row - 1], right[row - 1], left[row],
+          middle[row], right[row], left[row + 1], middle[row + 1], right[row + 1]) & mask;
+      nextTiles[offset + row - 1] = word;
+      changed |= word != middle[row];
+    }
+    return changed;
+  }
+
+}
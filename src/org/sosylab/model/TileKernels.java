@@ -0,0 +1,94 @@
+package org.sosylab.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles rules into tile kernels. A kernel class is a template whose rule is a static constant:
+ * every rule gets its own copy of the template, defined as a hidden class whose class data is the
+ * rule, so the just-in-time compiler folds the rule into the code of the copy. The template
+ * itself computes Conway's rule.
+ */
+final class TileKernels {
+
+  //the kernels compiled so far, by template and rule, so every copy is only defined once
+  private static final Map<String, TileKernel> KERNELS = new ConcurrentHashMap<>();
+
+  private TileKernels() {
+  }
+
+  /**
+   * Get the kernel of a template for a rule.
+   *
+   * @param template the kernel class to copy.
+   * @param rule     the rule.
+   * @return a kernel that computes the rule.
+   */
+  static TileKernel compile(Class<? extends TileKernel> template, Rule rule) {
+    String key = template.getName() + " " + rule;
+    TileKernel kernel = KERNELS.get(key);
+    if (kernel == null) {
+      kernel = rule.equals(Rule.CONWAY) ? newKernel(template) : define(template, rule);
+      TileKernel other = KERNELS.putIfAbsent(key, kernel);
+      if (other != null) {
+        kernel = other;
+      }
+    }
+    return kernel;
+  }
+
+  /**
+   * Get the rule of a kernel class.
+   *
+   * @param lookup a lookup of the kernel class itself.
+   * @return the class data of a copy, or Conway's rule for the template.
+   */
+  static Rule ruleOf(MethodHandles.Lookup lookup) {
+    try {
+      Rule rule = MethodHandles.classData(lookup, ConstantDescs.DEFAULT_NAME, Rule.class);
+      return rule == null ? Rule.CONWAY : rule;
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot read the rule of " + lookup.lookupClass(), e);
+    }
+  }
+
+  /**
+   * Define a copy of a template for a rule.
+   *
+   * @param template the kernel class to copy.
+   * @param rule     the rule.
+   * @return a new kernel of the copy.
+   */
+  private static TileKernel define(Class<? extends TileKernel> template, Rule rule) {
+    String file = template.getSimpleName() + ".class";
+    try (InputStream in = template.getResourceAsStream(file)) {
+      if (in == null) {
+        throw new IllegalStateException("Cannot find " + file);
+      }
+      Class<?> copy = MethodHandles.lookup()
+          .defineHiddenClassWithClassData(in.readAllBytes(), rule, true).lookupClass();
+      return newKernel(copy.asSubclass(TileKernel.class));
+    } catch (IOException | IllegalAccessException e) {
+      throw new IllegalStateException("Cannot compile rule " + rule, e);
+    }
+  }
+
+  /**
+   * Create a kernel of a class.
+   *
+   * @param kernelClass the class.
+   * @return the new kernel.
+   */
+  private static TileKernel newKernel(Class<? extends TileKernel> kernelClass) {
+    try {
+      return kernelClass.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot create " + kernelClass, e);
+    }
+  }
+
+}
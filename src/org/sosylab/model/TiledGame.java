@@ -0,0 +1,792 @@
+package org.sosylab.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Manage a game of life whose board is stored in tiles of 64 times 64 cells. Every tile is one
+ * word wide and its 64 rows lie next to each other in memory, so a tile fills eight cache lines
+ * and is computed without touching any other memory but the rows and columns along its edges.
+ * The tiles are stored row of tiles after row of tiles; bit i of row r of tile (x, y) is the cell
+ * in column x * 64 + i and row y * 64 + r.
+ *
+ * <p>A tile is computed from a halo: its rows and the rows next to it, with the neighbours of the
+ * cells along its left and right edges taken from the tiles next to it, see
+ * {@link TileKernel#computeHaloTile(long[], long[], long[], long[], int, int, long)}. On a torus,
+ * the halo of the tiles along the edges is taken from the opposite edges.
+ *
+ * <p>Every tile carries flags: whether it changed in the last generation, and how many live cells
+ * it has. Like in {@link BitGame}, only the tiles that changed and their neighbours are computed,
+ * and an empty tile whose halo is empty as well is skipped too, unless the rule bears cells
+ * without neighbours. The next generation is written into a second buffer of tiles, and the two
+ * buffers are swapped afterwards.
+ */
+public class TiledGame implements Grid {
+
+  //number of cells packed into one word, the width and the height of a tile
+  private static final int TILE_SIZE = Long.SIZE;
+
+  //the size of the columns of the game
+  private int columnSize;
+
+  //the size of the rows of the game
+  private int rowSize;
+
+  //number of tiles of a row of tiles and of a column of tiles
+  private int tilesPerRow;
+  private int tileRows;
+
+  //mask of the bits in the tiles of the last column of tiles that belong to the board
+  private long lastWordMask;
+
+  //position of the last column within the tiles of the last column of tiles
+  private int lastColumnBit;
+
+  //the tiles, 64 words each; both buffers hold the same cells in all tiles that did not change
+  private long[] tiles;
+  private long[] nextTiles;
+
+  //tiles that changed in the last generation or by setting cells, and in the one before
+  private boolean[] changedTiles;
+  private boolean[] previouslyChangedTiles;
+
+  //the halo of the tile being computed, word i holds row i - 1 of the tile
+  private final long[] haloLeft = new long[TILE_SIZE + 2];
+  private final long[] haloMiddle = new long[TILE_SIZE + 2];
+  private final long[] haloRight = new long[TILE_SIZE + 2];
+
+  //live cells of each tile, its columns with live cells, and its rows with live cells
+  private int[] tilePopulations;
+  private long[] tileColumns;
+  private long[] tileRowMasks;
+
+  //tiles whose cells were set since their statistics were computed
+  private boolean[] staleTiles;
+  private boolean statisticsStale;
+
+  //number of live cells and their bounding box, only meaningful if cells are alive
+  private long population;
+  private int firstColumn;
+  private int firstRow;
+  private int lastColumn;
+  private int lastRow;
+
+  //the bounding box as handed out, null if not created since the box changed
+  private BoundingBox bounds;
+
+  //the Zobrist hash of the words of the board in the layout of BitGame, updated by the words
+  //that a generation changed; stale once cells were set otherwise
+  private long hash;
+  private boolean hashStale;
+
+  //number of tiles computed and skipped by all generations so far
+  private long computedTiles;
+  private long skippedTiles;
+
+  //number of the generation of the game
+  private long generation;
+
+  //whether the edges of the board wrap around
+  private boolean torus;
+
+  //the rule of the game and the kernel compiled for it
+  private Rule rule;
+  private TileKernel kernel;
+
+  /**
+   * Create a tiled game of life.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public TiledGame(int cols, int rows) {
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+    setDimensions(cols, rows);
+    createTiles();
+    generation = 0;
+    setRule(Rule.CONWAY);
+  }
+
+  /**
+   * Set the size of the board and derive the layout of the tiles from it.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  private void setDimensions(int cols, int rows) {
+    columnSize = cols;
+    rowSize = rows;
+    tilesPerRow = (cols + TILE_SIZE - 1) / TILE_SIZE;
+    tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+    lastWordMask = -1L >>> (tilesPerRow * TILE_SIZE - cols);
+    lastColumnBit = (cols - 1) % TILE_SIZE;
+  }
+
+  /**
+   * Create empty tiles and their flags for the current size of the board.
+   */
+  private void createTiles() {
+    int tileCount = tileRows * tilesPerRow;
+    tiles = new long[tileCount * TILE_SIZE];
+    nextTiles = new long[tiles.length];
+    changedTiles = new boolean[tileCount];
+    previouslyChangedTiles = new boolean[tileCount];
+    tilePopulations = new int[tileCount];
+    tileColumns = new long[tileCount];
+    tileRowMasks = new long[tileCount];
+    staleTiles = new boolean[tileCount];
+    statisticsStale = false;
+    population = 0;
+    bounds = null;
+    hash = 0;
+    hashStale = false;
+  }
+
+  /**
+   * Check that a position lies on the board.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   */
+  private void checkPosition(int col, int row) {
+    if (col >= columnSize || row >= rowSize) {
+      throw new IllegalArgumentException(
+          "Parameters for column and row may not exceed the maximum number of columns and rows");
+    }
+
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Number of column and row may not be negative");
+    }
+  }
+
+  /**
+   * Get the index of the tile that holds a cell.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the index of the tile.
+   */
+  private int tileOf(int col, int row) {
+    return row / TILE_SIZE * tilesPerRow + col / TILE_SIZE;
+  }
+
+  /**
+   * Get the index of the word that holds a cell in the tiles.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the index of the word.
+   */
+  private int wordOf(int col, int row) {
+    return tileOf(col, row) * TILE_SIZE + row % TILE_SIZE;
+  }
+
+  /**
+   * Mark a tile as changed by setting cells.
+   *
+   * @param tile the index of the tile.
+   */
+  private void touch(int tile) {
+    changedTiles[tile] = true;
+    staleTiles[tile] = true;
+    statisticsStale = true;
+    hashStale = true;
+  }
+
+  @Override
+  public void setCellAlive(int col, int row) {
+    checkPosition(col, row);
+    tiles[wordOf(col, row)] |= 1L << col;
+    touch(tileOf(col, row));
+  }
+
+  @Override
+  public boolean isCellAlive(int col, int row) {
+    checkPosition(col, row);
+    return (tiles[wordOf(col, row)] & (1L << col)) != 0;
+  }
+
+  @Override
+  public void setCellDead(int col, int row) {
+    checkPosition(col, row);
+    tiles[wordOf(col, row)] &= ~(1L << col);
+    touch(tileOf(col, row));
+  }
+
+  @Override
+  public void setCellsAlive(int col, int row, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Number of cells may not be negative");
+    }
+    if (count == 0) {
+      return;
+    }
+    checkPosition(col, row);
+    checkPosition(col + count - 1, row);
+    int end = col + count;
+    while (col < end) {
+      //the cells of the run within the tile of col
+      int wordEnd = Math.min(end, (col / TILE_SIZE + 1) * TILE_SIZE);
+      tiles[wordOf(col, row)] |= -1L >>> (TILE_SIZE - (wordEnd - col)) << col;
+      touch(tileOf(col, row));
+      col = wordEnd;
+    }
+  }
+
+  @Override
+  public int getRunEnd(int col, int row) {
+    checkPosition(col, row);
+    int offset = row / TILE_SIZE * tilesPerRow * TILE_SIZE + row % TILE_SIZE;
+    int tileColumn = col / TILE_SIZE;
+    //a dead run ends at the next live cell, a live run at the next dead cell
+    long word = tiles[offset + tileColumn * TILE_SIZE];
+    long flip = (word & (1L << col)) != 0 ? -1L : 0L;
+    long ends = (word ^ flip) & (-1L << col);
+    while (ends == 0 && ++tileColumn < tilesPerRow) {
+      ends = tiles[offset + tileColumn * TILE_SIZE] ^ flip;
+    }
+    if (ends == 0) {
+      return columnSize;
+    }
+    return Math.min(columnSize, tileColumn * TILE_SIZE + Long.numberOfTrailingZeros(ends));
+  }
+
+  @Override
+  public void copyRowTo(int row, LongBuffer words) {
+    checkPosition(0, row);
+    int offset = row / TILE_SIZE * tilesPerRow * TILE_SIZE + row % TILE_SIZE;
+    for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+      words.put(tiles[offset + tileColumn * TILE_SIZE]);
+    }
+  }
+
+  @Override
+  public void copyRowFrom(int row, LongBuffer words) {
+    checkPosition(0, row);
+    int offset = row / TILE_SIZE * tilesPerRow * TILE_SIZE + row % TILE_SIZE;
+    for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+      long word = words.get();
+      tiles[offset + tileColumn * TILE_SIZE] =
+          tileColumn == tilesPerRow - 1 ? word & lastWordMask : word;
+      touch(row / TILE_SIZE * tilesPerRow + tileColumn);
+    }
+  }
+
+  @Override
+  public int getColumns() {
+    return columnSize;
+  }
+
+  @Override
+  public int getRows() {
+    return rowSize;
+  }
+
+  @Override
+  public long getGenerations() {
+    return generation;
+  }
+
+  @Override
+  public void setGenerations(long generations) {
+    if (generations < 0) {
+      throw new IllegalArgumentException("Number of generations may not be negative");
+    }
+    generation = generations;
+  }
+
+  /**
+   * {@inheritDoc} The rule is compiled into the kernel that computes the tiles, see
+   * {@link RuleKernel}.
+   */
+  @Override
+  public void setRule(Rule rule) {
+    this.rule = rule;
+    kernel = RuleKernel.compile(rule);
+    //the next state of stable tiles may differ under the new rule
+    Arrays.fill(changedTiles, true);
+  }
+
+  @Override
+  public Rule getRule() {
+    return rule;
+  }
+
+  /**
+   * {@inheritDoc} The tiles along the edges take their halo from the opposite edges.
+   */
+  @Override
+  public void setTorus(boolean torus) {
+    this.torus = torus;
+    //the next state of the cells along the edges may differ
+    Arrays.fill(changedTiles, true);
+  }
+
+  @Override
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+   * Get the number of tiles that were computed by all generations so far.
+   *
+   * @return the number of computed tiles.
+   */
+  public long getComputedTiles() {
+    return computedTiles;
+  }
+
+  /**
+   * Get the number of tiles that were skipped by all generations so far, because neither they nor
+   * their neighbours changed in the previous generation, or because they and their halo were
+   * empty.
+   *
+   * @return the number of skipped tiles.
+   */
+  public long getSkippedTiles() {
+    return skippedTiles;
+  }
+
+  /**
+   * {@inheritDoc} Only the tiles within the bounding box are visited, and only the set bits of
+   * each of their rows.
+   */
+  @Override
+  public void forEachLive(int col, int row, int width, int height, IntIntConsumer action) {
+    BoundingBox box = getBoundingBox();
+    BoundingBox region = box == null ? null : box.intersect(col, row, width, height);
+    if (region == null) {
+      return;
+    }
+    int firstTileColumn = region.getFirstColumn() / TILE_SIZE;
+    int lastTileColumn = region.getLastColumn() / TILE_SIZE;
+    //masks of the columns of the region within its first and last column of tiles
+    long firstMask = -1L << region.getFirstColumn();
+    long lastMask = -1L >>> (TILE_SIZE - 1 - region.getLastColumn() % TILE_SIZE);
+    for (int rowIndex = region.getFirstRow(); rowIndex <= region.getLastRow(); rowIndex++) {
+      int offset = rowIndex / TILE_SIZE * tilesPerRow * TILE_SIZE + rowIndex % TILE_SIZE;
+      for (int tileColumn = firstTileColumn; tileColumn <= lastTileColumn; tileColumn++) {
+        long word = tiles[offset + tileColumn * TILE_SIZE];
+        if (tileColumn == firstTileColumn) {
+          word &= firstMask;
+        }
+        if (tileColumn == lastTileColumn) {
+          word &= lastMask;
+        }
+        while (word != 0) {
+          action.accept(tileColumn * TILE_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} Only the tiles that changed are visited, row by row; the buffer of the next
+   * generation still holds the previous generation in them, so the changed cells are the bits
+   * that differ.
+   */
+  @Override
+  public void forEachChanged(IntIntConsumer action) {
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      int tileOffset = rowIndex / TILE_SIZE * tilesPerRow;
+      for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+        if (!changedTiles[tileOffset + tileColumn]) {
+          continue;
+        }
+        int offset = (tileOffset + tileColumn) * TILE_SIZE + rowIndex % TILE_SIZE;
+        long word = tiles[offset] ^ nextTiles[offset];
+        while (word != 0) {
+          action.accept(tileColumn * TILE_SIZE + Long.numberOfTrailingZeros(word), rowIndex);
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc} The rows of the tiles are copied into the layout of the snapshot.
+   */
+  @Override
+  public BoardSnapshot snapshot() {
+    long[] board = new long[rowSize * tilesPerRow];
+    for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+      int offset = rowIndex / TILE_SIZE * tilesPerRow * TILE_SIZE + rowIndex % TILE_SIZE;
+      for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+        board[rowIndex * tilesPerRow + tileColumn] = tiles[offset + tileColumn * TILE_SIZE];
+      }
+    }
+    return new BoardSnapshot(this, board);
+  }
+
+  /**
+   * {@inheritDoc} The hash has a key for every row of every tile and its cells, keyed like the
+   * words of {@link BitGame}, so a generation updates it by the words that changed.
+   */
+  @Override
+  public long getBoardHash() {
+    if (hashStale) {
+      hash = 0;
+      for (int tile = 0; tile < tilePopulations.length; tile++) {
+        hash ^= hashTile(tile, tiles);
+      }
+      hashStale = false;
+    }
+    return hash;
+  }
+
+  /**
+   * Compute the hash of the rows of a tile.
+   *
+   * @param tile  the index of the tile.
+   * @param cells the buffer that holds the tile.
+   * @return the hash.
+   */
+  private long hashTile(int tile, long[] cells) {
+    long tileHash = 0;
+    int tileColumn = tile % tilesPerRow;
+    int firstRow = tile / tilesPerRow * TILE_SIZE;
+    for (int row = 0; row < TILE_SIZE && firstRow + row < rowSize; row++) {
+      long word = cells[tile * TILE_SIZE + row];
+      if (word != 0) {
+        tileHash ^= Zobrist.wordKey((firstRow + row) * tilesPerRow + tileColumn, word);
+      }
+    }
+    return tileHash;
+  }
+
+  /**
+   * {@inheritDoc} The count is summed up from the tiles that changed while computing the last
+   * generation; only tiles whose cells were set since then are counted again.
+   */
+  @Override
+  public long getPopulationCount() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    return population;
+  }
+
+  /**
+   * {@inheritDoc} The box is put together from the tiles while computing the last generation;
+   * only tiles whose cells were set since then are searched again.
+   */
+  @Override
+  public BoundingBox getBoundingBox() {
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    if (population == 0) {
+      return null;
+    }
+    if (bounds == null) {
+      bounds = new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+    }
+    return bounds;
+  }
+
+  /**
+   * Count the live cells of the tiles that are stale, and put together the population and the
+   * bounding box of the board.
+   */
+  private void updateStatistics() {
+    for (int tile = 0; tile < staleTiles.length; tile++) {
+      if (staleTiles[tile]) {
+        staleTiles[tile] = false;
+        countTile(tile, tiles);
+      }
+    }
+    sumStatistics();
+  }
+
+  /**
+   * Count the live cells of a tile and find its columns and rows with live cells.
+   *
+   * @param tile  the index of the tile.
+   * @param cells the buffer that holds the tile.
+   */
+  private void countTile(int tile, long[] cells) {
+    int count = 0;
+    long columns = 0;
+    long rows = 0;
+    for (int row = 0; row < TILE_SIZE; row++) {
+      long word = cells[tile * TILE_SIZE + row];
+      count += Long.bitCount(word);
+      columns |= word;
+      //the sign bit of (word | -word) is set for all words but 0
+      rows |= ((word | -word) >>> (TILE_SIZE - 1)) << row;
+    }
+    tilePopulations[tile] = count;
+    tileColumns[tile] = columns;
+    tileRowMasks[tile] = rows;
+  }
+
+  /**
+   * Put together the population and the bounding box of the board from the live cells, columns
+   * and rows of its tiles. The box is only created when it is asked for, so computing generations
+   * allocates nothing.
+   */
+  private void sumStatistics() {
+    statisticsStale = false;
+    bounds = null;
+    population = 0;
+    firstColumn = Integer.MAX_VALUE;
+    firstRow = Integer.MAX_VALUE;
+    lastColumn = 0;
+    lastRow = 0;
+    for (int tile = 0; tile < tilePopulations.length; tile++) {
+      if (tilePopulations[tile] == 0) {
+        continue;
+      }
+      int tileColumn = tile % tilesPerRow;
+      int tileRow = tile / tilesPerRow;
+      population = population + tilePopulations[tile];
+      long columns = tileColumns[tile];
+      long rows = tileRowMasks[tile];
+      firstColumn = Math.min(firstColumn, tileColumn * TILE_SIZE
+          + Long.numberOfTrailingZeros(columns));
+      lastColumn = Math.max(lastColumn, tileColumn * TILE_SIZE + TILE_SIZE - 1
+          - Long.numberOfLeadingZeros(columns));
+      firstRow = Math.min(firstRow, tileRow * TILE_SIZE + Long.numberOfTrailingZeros(rows));
+      lastRow = Math.max(lastRow, tileRow * TILE_SIZE + TILE_SIZE - 1
+          - Long.numberOfLeadingZeros(rows));
+    }
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(tiles, 0L);
+    Arrays.fill(nextTiles, 0L);
+    //under a rule with B0, the empty tiles are born in the next generation
+    Arrays.fill(changedTiles, rule.isBornWithoutNeighbours());
+    Arrays.fill(tilePopulations, 0);
+    Arrays.fill(tileColumns, 0L);
+    Arrays.fill(tileRowMasks, 0L);
+    Arrays.fill(staleTiles, false);
+    statisticsStale = false;
+    population = 0;
+    bounds = null;
+    hash = 0;
+    hashStale = false;
+    generation = 0;
+  }
+
+  @Override
+  public String toString() {
+    return BoardRenderer.toString(this);
+  }
+
+  @Override
+  public void next() {
+    //the flags of empty tiles have to be up to date before they are skipped
+    if (statisticsStale) {
+      updateStatistics();
+    }
+    generation = generation + 1;
+    boolean[] changed = previouslyChangedTiles;
+    previouslyChangedTiles = changedTiles;
+    changedTiles = changed;
+    Arrays.fill(changedTiles, false);
+    boolean skipEmpty = !rule.isBornWithoutNeighbours();
+    for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+      for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+        int tile = tileRow * tilesPerRow + tileColumn;
+        if (!isActive(tileRow, tileColumn)) {
+          skippedTiles = skippedTiles + 1;
+          continue;
+        }
+        boolean haloAlive = gatherHalo(tileRow, tileColumn);
+        //an empty tile that did not just become empty already holds its next state in both
+        //buffers, if no cell around it can bear a cell in it
+        if (skipEmpty && !haloAlive && !previouslyChangedTiles[tile]) {
+          skippedTiles = skippedTiles + 1;
+          continue;
+        }
+        computedTiles = computedTiles + 1;
+        int height = Math.min(TILE_SIZE, rowSize - tileRow * TILE_SIZE);
+        long mask = tileColumn == tilesPerRow - 1 ? lastWordMask : -1L;
+        if (kernel.computeHaloTile(haloLeft, haloMiddle, haloRight, nextTiles, tile * TILE_SIZE,
+            height, mask)) {
+          changedTiles[tile] = true;
+          countTile(tile, nextTiles);
+        }
+      }
+    }
+    //swap the buffers, the old tiles are overwritten by the following generation
+    long[] currentTiles = tiles;
+    tiles = nextTiles;
+    nextTiles = currentTiles;
+    sumStatistics();
+    if (!hashStale) {
+      for (int tile = 0; tile < changedTiles.length; tile++) {
+        if (changedTiles[tile]) {
+          hash ^= hashTile(tile, nextTiles) ^ hashTile(tile, tiles);
+        }
+      }
+    }
+  }
+
+  /**
+   * Check whether a tile or one of its neighbours changed in the previous generation, so that
+   * the tile has to be computed.
+   *
+   * @param tileRow    the row of tiles of the tile.
+   * @param tileColumn the column of tiles of the tile.
+   * @return true if the tile has to be computed.
+   */
+  private boolean isActive(int tileRow, int tileColumn) {
+    for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+      int row = wrap(tileRow + rowOffset, tileRows);
+      if (row < 0) {
+        continue;
+      }
+      for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+        int column = wrap(tileColumn + columnOffset, tilesPerRow);
+        if (column >= 0 && previouslyChangedTiles[row * tilesPerRow + column]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Wrap an index of a row or column around the edges of a torus.
+   *
+   * @param index the index, at most one beyond the edges.
+   * @param size  the number of rows or columns.
+   * @return the index on a torus, or -1 if it lies beyond the edges of a bounded board.
+   */
+  private int wrap(int index, int size) {
+    if (index >= 0 && index < size) {
+      return index;
+    }
+    if (!torus) {
+      return -1;
+    }
+    return index < 0 ? size - 1 : 0;
+  }
+
+  /**
+   * Gather the halo of a tile: its rows and the rows above and below it, and the left and right
+   * neighbours of all of them, taken from the tiles next to it.
+   *
+   * @param tileRow    the row of tiles of the tile.
+   * @param tileColumn the column of tiles of the tile.
+   * @return true if any cell of the halo or the tile is alive.
+   */
+  private boolean gatherHalo(int tileRow, int tileColumn) {
+    int height = Math.min(TILE_SIZE, rowSize - tileRow * TILE_SIZE);
+    //the neighbours beyond the first and last column of a torus are its last and first column
+    int leftColumn = wrap(tileColumn - 1, tilesPerRow);
+    int leftShift = tileColumn > 0 ? TILE_SIZE - 1 : lastColumnBit;
+    int rightColumn = wrap(tileColumn + 1, tilesPerRow);
+    int rightShift = tileColumn + 1 < tilesPerRow ? TILE_SIZE - 1 : lastColumnBit;
+    //the rows of the tile lie in the tiles next to it, only the rows above and below it may lie
+    //beyond the edges
+    long alive = gatherHaloRow(0, wrap(tileRow * TILE_SIZE - 1, rowSize), tileColumn,
+        leftColumn, leftShift, rightColumn, rightShift);
+    alive |= gatherHaloRow(height + 1, wrap(tileRow * TILE_SIZE + height, rowSize), tileColumn,
+        leftColumn, leftShift, rightColumn, rightShift);
+    int offset = (tileRow * tilesPerRow + tileColumn) * TILE_SIZE;
+    int leftOffset = (tileRow * tilesPerRow + leftColumn) * TILE_SIZE;
+    int rightOffset = (tileRow * tilesPerRow + rightColumn) * TILE_SIZE;
+    for (int index = 1; index <= height; index++) {
+      long middle = tiles[offset + index - 1];
+      long left = middle << 1;
+      if (leftColumn >= 0) {
+        left |= tiles[leftOffset + index - 1] >>> leftShift & 1;
+      }
+      long right = middle >>> 1;
+      if (rightColumn >= 0) {
+        right |= (tiles[rightOffset + index - 1] & 1) << rightShift;
+      }
+      haloLeft[index] = left;
+      haloMiddle[index] = middle;
+      haloRight[index] = right;
+      alive |= left | middle | right;
+    }
+    return alive != 0;
+  }
+
+  /**
+   * Gather a row of the halo of a tile from the row of the board next to the tile.
+   *
+   * @param index       the index of the row in the halo.
+   * @param row         the row of the board, -1 if it lies beyond the edges.
+   * @param tileColumn  the column of tiles of the tile.
+   * @param leftColumn  the column of tiles to the left, -1 if it lies beyond the edges.
+   * @param leftShift   the position of the left neighbour of the first column in its tile.
+   * @param rightColumn the column of tiles to the right, -1 if it lies beyond the edges.
+   * @param rightShift  the position of the last column, whose right neighbour is taken.
+   * @return the cells of the row and their neighbours, non-zero if any cell is alive.
+   */
+  private long gatherHaloRow(int index, int row, int tileColumn, int leftColumn, int leftShift,
+      int rightColumn, int rightShift) {
+    if (row < 0) {
+      haloLeft[index] = 0;
+      haloMiddle[index] = 0;
+      haloRight[index] = 0;
+      return 0;
+    }
+    int offset = row / TILE_SIZE * tilesPerRow * TILE_SIZE + row % TILE_SIZE;
+    long middle = tiles[offset + tileColumn * TILE_SIZE];
+    long left = middle << 1;
+    if (leftColumn >= 0) {
+      left |= tiles[offset + leftColumn * TILE_SIZE] >>> leftShift & 1;
+    }
+    long right = middle >>> 1;
+    if (rightColumn >= 0) {
+      right |= (tiles[offset + rightColumn * TILE_SIZE] & 1) << rightShift;
+    }
+    haloLeft[index] = left;
+    haloMiddle[index] = middle;
+    haloRight[index] = right;
+    return left | middle | right;
+  }
+
+  @Override
+  public void resize(int cols, int rows) {
+
+    if (!(cols > 0 && rows > 0)) {
+      throw new IllegalArgumentException("Number of columns and rows must be positive");
+    }
+
+    long[] oldTiles = tiles;
+    int oldTilesPerRow = tilesPerRow;
+    int keptRows = Math.min(rows, rowSize);
+    setDimensions(cols, rows);
+    createTiles();
+    //the buffers differ until every tile has been computed once
+    Arrays.fill(changedTiles, true);
+    Arrays.fill(staleTiles, true);
+    statisticsStale = true;
+    hashStale = true;
+    int keptColumns = Math.min(oldTilesPerRow, tilesPerRow);
+    for (int rowIndex = 0; rowIndex < keptRows; rowIndex++) {
+      int oldOffset = rowIndex / TILE_SIZE * oldTilesPerRow * TILE_SIZE + rowIndex % TILE_SIZE;
+      int offset = rowIndex / TILE_SIZE * tilesPerRow * TILE_SIZE + rowIndex % TILE_SIZE;
+      for (int tileColumn = 0; tileColumn < keptColumns; tileColumn++) {
+        tiles[offset + tileColumn * TILE_SIZE] = oldTiles[oldOffset + tileColumn * TILE_SIZE];
+      }
+      //cells of the old board beyond the new last column are dropped
+      tiles[offset + (tilesPerRow - 1) * TILE_SIZE] &= lastWordMask;
+    }
+  }
+
+  @Override
+  public Collection<Cell> getPopulation() {
+    HashSet<Cell> cells = new HashSet<>();
+    forEachLive((col, row) -> {
+      Cell cell = new Cell(col, row);
+      cell.setStatusAlive();
+      cells.add(cell);
+    });
+    return cells;
+  }
+
+}
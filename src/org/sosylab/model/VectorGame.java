@@ -0,0 +1,43 @@
+package org.sosylab.model;
+
+/**
+ * Manage a bit-packed game of life whose tiles are computed with the Vector API of the incubator
+ * module {@code jdk.incubator.vector}. Adjacent tiles are computed together, one per lane of the
+ * widest vector the CPU supports. The board and everything else work like {@link BitGame}.
+ *
+ * <p>The module has to be added to the JVM with {@code --add-modules jdk.incubator.vector}.
+ * Without it, the game falls back to the scalar kernel of {@link BitGame}, see
+ * {@link #isVectorized()}.
+ */
+public class VectorGame extends BitGame {
+
+  //whether the Vector API is available to this class
+  private static final boolean VECTOR_API = ModuleLayer.boot()
+      .findModule("jdk.incubator.vector").isPresent();
+
+  /**
+   * Create a game of life computed with the Vector API.
+   *
+   * @param cols the size of the columns.
+   * @param rows the size of the rows.
+   */
+  public VectorGame(int cols, int rows) {
+    super(cols, rows);
+  }
+
+  /**
+   * Check whether the game is computed with the Vector API or has fallen back to the scalar
+   * kernel, because the module of the Vector API was not added to the JVM.
+   *
+   * @return true if the game is computed with vectors, false if not.
+   */
+  public boolean isVectorized() {
+    return VECTOR_API;
+  }
+
+  @Override
+  TileKernel compileKernel(Rule rule) {
+    return VECTOR_API ? VectorRuleKernel.compile(rule) : super.compileKernel(rule);
+  }
+
+}
@@ -0,0 +1,237 @@
+package org.sosylab.model;
+
+import static jdk.incubator.vector.VectorOperators.AND_NOT;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.NE;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import java.lang.invoke.MethodHandles;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The tile kernel of a {@link VectorGame}, compiled for one rule. It computes the cells just like
+ * {@link RuleKernel}, but with the Vector API: every vector holds the words of as many adjacent
+ * tiles as the CPU has lanes of 64 bits, for example eight tiles with AVX-512, so the neighbour
+ * sums and the rule are computed for 512 cells per instruction.
+ *
+ * <p>This class is a template, see {@link TileKernels}.
+ */
+final class VectorRuleKernel implements TileKernel {
+
+  //the widest vector of longs of the CPU
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  //number of cells packed into one word
+  private static final int WORD_SIZE = Long.SIZE;
+
+  //the rule of this copy of the class, Conway's rule for the template
+  private static final Rule RULE = TileKernels.ruleOf(MethodHandles.lookup());
+
+  //bit n is set if a dead cell with n neighbours is born or a live cell with n neighbours stays
+  //alive
+  private static final int BIRTH_COUNTS = RULE.getBirthMask();
+  private static final int SURVIVAL_COUNTS = RULE.getSurvivalMask();
+
+  //number of words in a vector
+  private static final int LANES = SPECIES.length();
+
+  private static final LongVector NO_CELLS = LongVector.zero(SPECIES);
+
+  //the scalar kernel of the same rule, for the words that do not fill a vector
+  private static final TileKernel SCALAR = RuleKernel.compile(RULE);
+
+  /**
+   * Get the kernel of a rule.
+   *
+   * @param rule the rule.
+   * @return the kernel that computes the rule.
+   */
+  static TileKernel compile(Rule rule) {
+    return TileKernels.compile(VectorRuleKernel.class, rule);
+  }
+
+  /**
+   * {@inheritDoc} The run is computed in groups of tiles, one per lane. The words left over at
+   * the end of the run, and groups whose neighbours would lie outside the board, are computed by
+   * the scalar kernel of the same rule.
+   */
+  @Override
+  public void computeTiles(long[] board, long[] nextBoard, int wordsPerRow, int rowSize,
+      long lastWordMask, int firstRow, int lastRow, int firstWord, int lastWord,
+      boolean[] changedTiles, int tileOffset) {
+    int wordIndex = firstWord;
+    while (wordIndex < lastWord) {
+      //the first and the last word of the board have no word to their left and right
+      boolean inBoard = (firstRow > 1 || wordIndex > 0)
+          && (lastRow < rowSize - 1 || wordIndex + LANES < wordsPerRow);
+      if (wordIndex + LANES > lastWord || !inBoard) {
+        int nextWord = wordIndex + LANES > lastWord ? lastWord : wordIndex + 1;
+        SCALAR.computeTiles(board, nextBoard, wordsPerRow, rowSize, lastWordMask, firstRow,
+            lastRow, wordIndex, nextWord, changedTiles, tileOffset);
+        wordIndex = nextWord;
+        continue;
+      }
+      //the words to the left of the first word of a row and to the right of the last word belong
+      //to the rows above and below, cells beyond the last column have to stay dead
+      long leftMask = wordIndex == 0 ? -2L : -1L;
+      long rightMask = wordIndex + LANES == wordsPerRow ? ~(1L << (LANES - 1)) : -1L;
+      long changed = computeGroup(board, nextBoard, wordsPerRow, rowSize, wordIndex, firstRow,
+          lastRow, leftMask, rightMask, wordIndex + LANES == wordsPerRow ? lastWordMask : -1L);
+      while (changed != 0) {
+        changedTiles[tileOffset + wordIndex + Long.numberOfTrailingZeros(changed)] = true;
+        changed &= changed - 1;
+      }
+      wordIndex += LANES;
+    }
+  }
+
+  @Override
+  public long computeWord(long upLeft, long up, long upRight, long left, long middle,
+      long right, long downLeft, long down, long downRight) {
+    return SCALAR.computeWord(upLeft, up, upRight, left, middle, right, downLeft, down,
+        downRight);
+  }
+
+  @Override
+  public boolean computeHaloTile(long[] left, long[] middle, long[] right, long[] nextTiles,
+      int offset, int height, long mask) {
+    return SCALAR.computeHaloTile(left, middle, right, nextTiles, offset, height, mask);
+  }
+
+  /**
+   * Compute the next generation of the rows of a group of adjacent tiles, from top to bottom
+   * like {@link RuleKernel}. The masks are given as lanes, bit i for lane i.
+   *
+   * @param wordIndex    the position of the word of the first tile within its rows.
+   * @param leftMask     the lanes whose word has a word to its left.
+   * @param rightMask    the lanes whose word has a word to its right.
+   * @param lastWordMask the bits of the word of the last lane that belong to the board.
+   * @return the lanes in which any cell changed.
+   */
+  private static long computeGroup(long[] board, long[] nextBoard, int wordsPerRow,
+      int rowSize, int wordIndex, int firstRow, int lastRow, long leftMask, long rightMask,
+      long lastWordMask) {
+    LongVector hasLeft = LongVector.broadcast(SPECIES, -1L)
+        .blend(0L, VectorMask.fromLong(SPECIES, ~leftMask));
+    LongVector hasRight = LongVector.broadcast(SPECIES, -1L)
+        .blend(0L, VectorMask.fromLong(SPECIES, ~rightMask));
+    LongVector mask = LongVector.broadcast(SPECIES, -1L)
+        .blend(lastWordMask, VectorMask.fromLong(SPECIES, 1L << (LANES - 1)));
+    LongVector upOnes = NO_CELLS;
+    LongVector upTwos = NO_CELLS;
+    if (firstRow > 0) {
+      int offset = (firstRow - 1) * wordsPerRow + wordIndex;
+      LongVector up = LongVector.fromArray(SPECIES, board, offset);
+      LongVector upLeft = leftNeighbours(board, offset, up, hasLeft);
+      LongVector upRight = rightNeighbours(board, offset, up, hasRight);
+      upOnes = upLeft.lanewise(XOR, up).lanewise(XOR, upRight);
+      upTwos = upLeft.and(up).or(upRight.and(upLeft.lanewise(XOR, up)));
+    }
+    int offset = firstRow * wordsPerRow + wordIndex;
+    LongVector middle = LongVector.fromArray(SPECIES, board, offset);
+    LongVector middleLeft = leftNeighbours(board, offset, middle, hasLeft);
+    LongVector middleRight = rightNeighbours(board, offset, middle, hasRight);
+    LongVector changed = NO_CELLS;
+    for (int rowIndex = firstRow; rowIndex < lastRow; rowIndex++) {
+      LongVector down = NO_CELLS;
+      LongVector downLeft = NO_CELLS;
+      LongVector downRight = NO_CELLS;
+      if (rowIndex + 1 < rowSize) {
+        down = LongVector.fromArray(SPECIES, board, offset + wordsPerRow);
+        downLeft = leftNeighbours(board, offset + wordsPerRow, down, hasLeft);
+        downRight = rightNeighbours(board, offset + wordsPerRow, down, hasRight);
+      }
+      LongVector downOnes = downLeft.lanewise(XOR, down).lanewise(XOR, downRight);
+      LongVector downTwos = downLeft.and(down).or(downRight.and(downLeft.lanewise(XOR, down)));
+
+      //the rule is applied here and not in a method of its own, since vector code is too large
+      //to be inlined once it has been compiled on its own, and vectors passed to a method that
+      //is not inlined are allocated on the heap
+      LongVector middleOnes = middleLeft.lanewise(XOR, middleRight);
+      LongVector middleTwos = middleLeft.and(middleRight);
+      LongVector ones = upOnes.lanewise(XOR, middleOnes).lanewise(XOR, downOnes);
+      LongVector onesCarry = upOnes.and(middleOnes)
+          .or(downOnes.and(upOnes.lanewise(XOR, middleOnes)));
+      LongVector twosSum = upTwos.lanewise(XOR, middleTwos).lanewise(XOR, downTwos);
+      LongVector twosCarry = upTwos.and(middleTwos)
+          .or(downTwos.and(upTwos.lanewise(XOR, middleTwos)));
+      LongVector twos = twosSum.lanewise(XOR, onesCarry);
+      LongVector fours = twosCarry.lanewise(XOR, twosSum.and(onesCarry));
+      LongVector eights = twosCarry.and(twosSum).and(onesCarry);
+
+      //counts of 0 to 3 and of 4 to 7 differ only in the fours, a count of 8 has only the eights
+      LongVector low0 = ones.or(twos).not();
+      LongVector low1 = ones.lanewise(AND_NOT, twos);
+      LongVector low2 = twos.lanewise(AND_NOT, ones);
+      LongVector low3 = ones.and(twos);
+      LongVector belowFour = fours.or(eights).not();
+      //the counts are constants, so the counts that are not part of the rule are never compiled
+      LongVector born = NO_CELLS;
+      LongVector survives = NO_CELLS;
+      born = (BIRTH_COUNTS & 1 << 0) != 0 ? born.or(low0.and(belowFour)) : born;
+      born = (BIRTH_COUNTS & 1 << 1) != 0 ? born.or(low1.and(belowFour)) : born;
+      born = (BIRTH_COUNTS & 1 << 2) != 0 ? born.or(low2.and(belowFour)) : born;
+      born = (BIRTH_COUNTS & 1 << 3) != 0 ? born.or(low3.and(belowFour)) : born;
+      born = (BIRTH_COUNTS & 1 << 4) != 0 ? born.or(low0.and(fours)) : born;
+      born = (BIRTH_COUNTS & 1 << 5) != 0 ? born.or(low1.and(fours)) : born;
+      born = (BIRTH_COUNTS & 1 << 6) != 0 ? born.or(low2.and(fours)) : born;
+      born = (BIRTH_COUNTS & 1 << 7) != 0 ? born.or(low3.and(fours)) : born;
+      born = (BIRTH_COUNTS & 1 << 8) != 0 ? born.or(eights) : born;
+      survives = (SURVIVAL_COUNTS & 1 << 0) != 0 ? survives.or(low0.and(belowFour)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 1) != 0 ? survives.or(low1.and(belowFour)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 2) != 0 ? survives.or(low2.and(belowFour)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 3) != 0 ? survives.or(low3.and(belowFour)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 4) != 0 ? survives.or(low0.and(fours)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 5) != 0 ? survives.or(low1.and(fours)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 6) != 0 ? survives.or(low2.and(fours)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 7) != 0 ? survives.or(low3.and(fours)) : survives;
+      survives = (SURVIVAL_COUNTS & 1 << 8) != 0 ? survives.or(eights) : survives;
+      LongVector words = born.lanewise(XOR, born.lanewise(XOR, survives).and(middle)).and(mask);
+      words.intoArray(nextBoard, offset);
+      changed = changed.or(words.lanewise(XOR, middle));
+
+      //the row moves up, its sum now includes the cell itself
+      upOnes = middleOnes.lanewise(XOR, middle);
+      upTwos = middleTwos.or(middleOnes.and(middle));
+      middle = down;
+      middleLeft = downLeft;
+      middleRight = downRight;
+      offset = offset + wordsPerRow;
+    }
+    return changed.compare(NE, 0L).toLong();
+  }
+
+  /**
+   * Get the left neighbours of the cells of a vector of words.
+   *
+   * @param board   the board.
+   * @param offset  the index of the word of the first lane in the board.
+   * @param words   the words.
+   * @param hasLeft all bits set in the lanes whose word has a word to its left.
+   * @return the left neighbours.
+   */
+  private static LongVector leftNeighbours(long[] board, int offset, LongVector words,
+      LongVector hasLeft) {
+    LongVector previous = LongVector.fromArray(SPECIES, board, offset - 1).and(hasLeft);
+    return words.lanewise(LSHL, 1).or(previous.lanewise(LSHR, WORD_SIZE - 1));
+  }
+
+  /**
+   * Get the right neighbours of the cells of a vector of words.
+   *
+   * @param board    the board.
+   * @param offset   the index of the word of the first lane in the board.
+   * @param words    the words.
+   * @param hasRight all bits set in the lanes whose word has a word to its right.
+   * @return the right neighbours.
+   */
+  private static LongVector rightNeighbours(long[] board, int offset, LongVector words,
+      LongVector hasRight) {
+    LongVector following = LongVector.fromArray(SPECIES, board, offset + 1).and(hasRight);
+    return words.lanewise(LSHR, 1).or(following.lanewise(LSHL, WORD_SIZE - 1));
+  }
+
+}
@@ -0,0 +1,81 @@
+package org.sosylab.model;
+
+/**
+ * Keys of a Zobrist hash of a board, see {@link Grid#getBoardHash()}. The hash of a board is the
+ * exclusive or of the keys of its live cells, so flipping a cell flips its key in the hash and
+ * a generation updates the hash by the cells that changed. Instead of a table of random keys,
+ * which would be as large as the board, the keys are derived from the positions by a mixing
+ * function. Grids that store cells in words may use a key per word and its cells instead.
+ */
+final class Zobrist {
+
+  //added to the positions before mixing, so position 0 does not have key 0
+  private static final long SEED = 0x9e3779b97f4a7c15L;
+
+  /**
+   * The class only has static methods.
+   */
+  private Zobrist() {
+  }
+
+  /**
+   * Get the key of a live cell.
+   *
+   * @param col x-position.
+   * @param row y-position.
+   * @return the key.
+   */
+  static long cellKey(int col, int row) {
+    return mix(((long) col << Integer.SIZE | row & 0xffffffffL) + SEED);
+  }
+
+  /**
+   * Get the key of a word of cells, 0 for a word without live cells.
+   *
+   * @param index the position of the word on the board.
+   * @param word  the cells of the word.
+   * @return the key.
+   */
+  static long wordKey(long index, long word) {
+    return word == 0 ? 0 : mix(word ^ mix(index + SEED));
+  }
+
+  /**
+   * Compute the hash of the live cells of a grid from the keys of the cells.
+   *
+   * @param grid the grid.
+   * @return the hash.
+   */
+  static long hashCells(Grid grid) {
+    long[] hash = new long[1];
+    grid.forEachLive((col, row) -> hash[0] ^= cellKey(col, row));
+    return hash[0];
+  }
+
+  /**
+   * Compute the hash of an array of words of cells from the keys of the words.
+   *
+   * @param words the words.
+   * @return the hash.
+   */
+  static long hashWords(long[] words) {
+    long hash = 0;
+    for (int index = 0; index < words.length; index++) {
+      hash ^= wordKey(index, words[index]);
+    }
+    return hash;
+  }
+
+  /**
+   * Mix the bits of a number, so that every bit of the result depends on every bit of the
+   * number; the finalizer of SplitMix64.
+   *
+   * @param value the number.
+   * @return the mixed number.
+   */
+  static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -0,0 +1,113 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link BitGame}. Besides the common {@link Grid} tests, the bit-packed engine has to
+ * produce the same generations as the reference implementation {@link Game}.
+ */
+public class BitGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new BitGame(col, row);
+  }
+
+  @Test
+  public void next_randomSoup_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, false, new int[] {131, 37});
+  }
+
+  @Test
+  public void next_withOtherRules_matchesReferenceGame() {
+    for (String notation : new String[] {"B36/S23", "B3678/S34678", "B0/S8", "B2/S"}) {
+      assertMatchesReference(Rule.parse(notation), false, new int[] {97, 70});
+    }
+  }
+
+  @Test
+  public void next_onTorus_matchesReferenceGame() {
+    for (String notation : new String[] {"B3/S23", "B36/S23"}) {
+      assertMatchesReference(Rule.parse(notation), true,
+          new int[] {131, 70}, new int[] {64, 65}, new int[] {40, 3}, new int[] {200, 1});
+    }
+  }
+
+  @Test
+  public void next_gliderOnTorus_returnsToItsStart() {
+    for (Grid world : new Grid[] {new Game(20, 30), newWorld(20, 30)}) {
+      world.setTorus(true);
+      Shapes.loadGlider(world);
+      String start = world.toString();
+
+      //a glider moves one cell diagonally every four generations
+      world.advance(4 * 20 * 30);
+
+      assertEquals(start, world.toString());
+    }
+  }
+
+  @Test
+  public void next_gliderCrossingTiles_matchesSparseGame() {
+    assertGliderMatchesSparseGame(300, 700);
+  }
+
+  @Test
+  public void next_stillLife_skipsAllTiles() {
+    BitGame world = new BitGame(512, 512);
+    Shapes.loadBlock(world);
+    world.next();
+    long computedTiles = world.getComputedTiles();
+    long skippedTiles = world.getSkippedTiles();
+
+    for (int i = 0; i < 10; i++) {
+      world.next();
+    }
+
+    assertEquals(computedTiles, world.getComputedTiles());
+    assertEquals(skippedTiles + 10 * 8 * 8, world.getSkippedTiles());
+  }
+
+  @Test
+  public void next_inSteadyState_allocatesNothing() {
+    assertSteadyStateAllocatesNothing();
+  }
+
+  @Test
+  public void next_withSeveralThreads_matchesSequentialResult() {
+    int columns = 200;
+    int rows = 101;
+    Grid sequential = newWorld(columns, rows);
+    Grid parallel = newWorld(columns, rows);
+    parallel.setThreads(4);
+    fillRandomly(7, sequential, parallel);
+
+    for (int i = 0; i < 30; i++) {
+      sequential.next();
+      parallel.next();
+      assertEquals(sequential.toString(), parallel.toString(), "Generation " + (i + 1));
+    }
+  }
+
+  @Test
+  public void getPopulationCount_withThreadsAndOnTorus_matchesReferenceGame() {
+    for (boolean torus : new boolean[] {false, true}) {
+      Grid reference = new Game(300, 200);
+      Grid world = newWorld(300, 200);
+      reference.setTorus(torus);
+      world.setTorus(torus);
+      world.setThreads(3);
+      fillRandomly(11, reference, world);
+
+      for (int i = 0; i < 20; i++) {
+        reference.next();
+        world.next();
+        assertEquals(reference.getPopulationCount(), world.getPopulationCount(),
+            "Generation " + (i + 1));
+        assertEquals(reference.getBoundingBox(), world.getBoundingBox(), "Generation " + (i + 1));
+      }
+    }
+  }
+}
@@ -1,13 +1,29 @@
 package org.sosylab.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Tests for the implementation of the {@link Grid} interface.
@@ -275,6 +291,509 @@ public class GridTest {
     worldIsExactly(world, line);
   }
 
+  @Test
+  public void next_withSeedsRule_bearsCellsWithTwoNeighbours() {
+    Set<Cell> pair = new HashSet<>();
+    addCell(pair, 2, 2);
+    addCell(pair, 3, 2);
+
+    Set<Cell> seeds = new HashSet<>();
+    addCell(seeds, 2, 1);
+    addCell(seeds, 3, 1);
+    addCell(seeds, 2, 3);
+    addCell(seeds, 3, 3);
+
+    Grid world = newWorld(pair);
+    world.setRule(Rule.parse("B2/S"));
+
+    world.next();
+
+    worldIsExactly(world, seeds);
+  }
+
+  @Test
+  public void getPopulationCount_whenComputingGenerations_matchesPopulation() {
+    Grid world = newWorld(150, 130);
+    for (int col = 0; col < 150; col = col + 11) {
+      Shapes.loadGlider(world);
+      world.setCellsAlive(col, 70 + col % 7, 4);
+      world.setCellAlive(149 - col, 129 - col % 5);
+    }
+
+    for (int i = 0; i < 40; i++) {
+      Collection<Cell> population = world.getPopulation();
+      assertEquals(population.size(), world.getPopulationCount(), "Generation " + i);
+      assertEquals(boundsOf(population), world.getBoundingBox(), "Generation " + i);
+      world.next();
+    }
+  }
+
+  @Test
+  public void getBoundingBox_afterKillingCellOnEdge_shrinks() {
+    Grid world = newWorld(100, 100);
+    world.setCellAlive(3, 40);
+    world.setCellAlive(70, 5);
+    world.setCellAlive(90, 99);
+    assertEquals(new BoundingBox(3, 5, 90, 99), world.getBoundingBox());
+
+    world.setCellDead(90, 99);
+    world.setCellDead(90, 99);
+
+    assertEquals(2, world.getPopulationCount());
+    assertEquals(new BoundingBox(3, 5, 70, 40), world.getBoundingBox());
+    world.clear();
+    assertEquals(0, world.getPopulationCount());
+    assertEquals(null, world.getBoundingBox());
+  }
+
+  @Test
+  public void forEachLive_visitsEveryLiveCellOnce() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadPulsar(world);
+    world.setCellsAlive(60, 3, 70);
+    world.setCellAlive(0, 0);
+    world.setCellAlive(149, 129);
+    world.next();
+    List<Cell> visited = new ArrayList<>();
+
+    world.forEachLive((col, row) -> visited.add(new Cell(col, row)));
+
+    assertEquals(world.getPopulationCount(), visited.size());
+    assertEquals(world.getPopulation(), new HashSet<>(visited));
+  }
+
+  @Test
+  public void getPopulationView_followsTheGrid() {
+    Grid world = newWorld(150, 130);
+    Collection<Cell> view = world.getPopulationView();
+    assertTrue(view.isEmpty());
+
+    Shapes.loadGlider(world);
+    world.setCellsAlive(60, 3, 70);
+    world.setCellAlive(149, 129);
+    world.next();
+
+    assertEquals(world.getPopulation(), new HashSet<>(view));
+    assertEquals(world.getPopulationCount(), view.size());
+    assertTrue(view.contains(new Cell(100, 3)));
+    assertFalse(view.contains(new Cell(500, 3)));
+  }
+
+  @Test
+  public void forEachLive_inRegion_visitsOnlyTheRegion() {
+    Grid world = newWorld(150, 130);
+    world.setCellsAlive(0, 3, 150);
+    world.setCellAlive(63, 64);
+    world.setCellAlive(64, 64);
+    world.setCellAlive(128, 129);
+    Set<Cell> expected = new HashSet<>();
+    for (Cell cell : world.getPopulation()) {
+      if (cell.getColumn() >= 63 && cell.getColumn() < 129 && cell.getRow() >= 3) {
+        expected.add(cell);
+      }
+    }
+    Set<Cell> visited = new HashSet<>();
+
+    world.forEachLive(63, 3, 66, 500, (col, row) -> visited.add(new Cell(col, row)));
+
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  public void render_inBandsAndRegions_matchesToString() throws IOException {
+    Grid world = newWorld(300, 400);
+    Shapes.loadPulsar(world);
+    world.setCellsAlive(0, 399, 300);
+    world.setCellAlive(299, 398);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BoardRenderer renderer = new BoardRenderer(Channels.newChannel(out));
+    String separator = System.lineSeparator();
+
+    renderer.render(world);
+    assertEquals(world.toString(), out.toString(StandardCharsets.US_ASCII));
+
+    out.reset();
+    renderer.render(world, 297, 398, 3, 2);
+    assertEquals("..X" + separator + "XXX" + separator, out.toString(StandardCharsets.US_ASCII));
+    try {
+      renderer.render(world, 298, 0, 3, 1);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void forEachChanged_afterNext_visitsEveryChangedCell() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    world.setCellsAlive(60, 3, 70);
+    world.setCellsAlive(147, 129, 3);
+    for (int generation = 0; generation < 3; generation++) {
+      Set<Cell> before = new HashSet<>(world.getPopulation());
+      world.next();
+      Set<Cell> changed = new HashSet<>(world.getPopulation());
+      changed.removeAll(before);
+      for (Cell cell : before) {
+        if (!world.isCellAlive(cell.getColumn(), cell.getRow())) {
+          changed.add(cell);
+        }
+      }
+      Set<Cell> visited = new HashSet<>();
+
+      world.forEachChanged((col, row) -> visited.add(new Cell(col, row)));
+
+      assertTrue(visited.containsAll(changed), "Generation " + world.getGenerations());
+    }
+  }
+
+  @Test
+  public void snapshot_whenGridGoesOn_keepsItsGeneration() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    world.setCellsAlive(60, 3, 70);
+    world.next();
+    String board = world.toString();
+
+    BoardSnapshot snapshot = world.snapshot();
+    world.next();
+
+    assertEquals(board, snapshot.toString());
+    assertEquals(1, snapshot.getGenerations());
+    assertEquals(boundsOf(snapshot.getPopulation()), snapshot.getBoundingBox());
+    assertEquals(snapshot.getPopulation().size(), snapshot.getPopulationCount());
+    try {
+      snapshot.setCellAlive(0, 0);
+      fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void framePipeline_withSlowConsumer_dropsOldestFrames() throws Exception {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    CountDownLatch consumerBlocked = new CountDownLatch(1);
+    List<Long> consumed = Collections.synchronizedList(new ArrayList<>());
+    List<BoardSnapshot> frames = Collections.synchronizedList(new ArrayList<>());
+    FramePipeline pipeline = new FramePipeline(2, FramePipeline.DropPolicy.DROP_OLDEST,
+        frame -> {
+          try {
+            consumerBlocked.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          consumed.add(frame.getGenerations());
+          frames.add(frame);
+        });
+
+    pipeline.publish(world);
+    for (int generation = 0; generation < 10; generation++) {
+      world.next();
+      pipeline.publish(world);
+    }
+    consumerBlocked.countDown();
+    pipeline.close();
+
+    assertEquals(Long.valueOf(10), consumed.get(consumed.size() - 1));
+    assertTrue(consumed.size() <= 3);
+    assertEquals(11, consumed.size() + pipeline.getDroppedFrames());
+    //each frame carries the changes of the frames dropped before it
+    for (int index = 1; index < frames.size(); index++) {
+      BoardSnapshot before = frames.get(index - 1);
+      BoardSnapshot frame = frames.get(index);
+      Set<Cell> changed = new HashSet<>();
+      frame.forEachChanged((col, row) -> changed.add(new Cell(col, row)));
+      assertTrue(frame.knowsChanges());
+      before.forEachLive((col, row) -> {
+        if (!frame.isCellAlive(col, row)) {
+          assertTrue(changed.contains(new Cell(col, row)), "Generation " + frame.getGenerations());
+        }
+      });
+      frame.forEachLive((col, row) -> {
+        if (!before.isCellAlive(col, row)) {
+          assertTrue(changed.contains(new Cell(col, row)), "Generation " + frame.getGenerations());
+        }
+      });
+    }
+  }
+
+  @Test
+  public void framePipeline_withPacedProducerAndFastConsumer_seesEveryGeneration()
+      throws Exception {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    List<Long> consumed = Collections.synchronizedList(new ArrayList<>());
+    //a frame every 5 ms is far slower than the consumer, so no frame has to be dropped
+    FramePipeline pipeline = new FramePipeline(8, FramePipeline.DropPolicy.DROP_OLDEST,
+        5_000_000L, frame -> consumed.add(frame.getGenerations()));
+
+    pipeline.publish(world);
+    for (int generation = 0; generation < 20; generation++) {
+      world.next();
+      pipeline.publish(world);
+    }
+    pipeline.close();
+
+    assertEquals(0, pipeline.getDroppedFrames());
+    assertEquals(21, consumed.size());
+    for (int generation = 0; generation <= 20; generation++) {
+      assertEquals(Long.valueOf(generation), consumed.get(generation));
+    }
+  }
+
+  @Test
+  public void getBoardHash_whenComputingGenerations_matchesTheHashOfTheSameCells() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    world.setCellsAlive(60, 3, 70);
+    world.setCellAlive(149, 129);
+
+    for (int i = 0; i < 30; i++) {
+      Grid copy = newWorld(150, 130);
+      world.forEachLive(copy::setCellAlive);
+      assertEquals(copy.getBoardHash(), world.getBoardHash(), "Generation " + i);
+      world.next();
+    }
+  }
+
+  @Test
+  public void cycleDetector_findsStillLifesOscillatorsAndExtinction() {
+    Set<Cell> block = new HashSet<>();
+    addCell(block, 1, 1);
+    addCell(block, 1, 2);
+    addCell(block, 2, 1);
+    addCell(block, 2, 2);
+    Set<Cell> line = new HashSet<>();
+    addCell(line, 1, 2);
+    addCell(line, 2, 2);
+    addCell(line, 3, 2);
+    Set<Cell> lonely = new HashSet<>();
+    addCell(lonely, 2, 2);
+
+    assertEquals(1, periodOf(newWorld(block)));
+    assertEquals(2, periodOf(newWorld(line)));
+    assertEquals(1, periodOf(newWorld(lonely)));
+  }
+
+  @Test
+  public void cycleDetector_emptyBoardWithBornWithoutNeighbours_isNotExtinct() {
+    Grid world = newWorld();
+    try {
+      world.setRule(Rule.parse("B03/S23"));
+    } catch (IllegalArgumentException e) {
+      //the engine does not support rules with B0
+      return;
+    }
+    CycleDetector detector = new CycleDetector(8);
+
+    assertEquals(0, detector.observe(world));
+    world.next();
+    assertEquals(WORLD_TOTAL_COLUMNS * WORLD_TOTAL_ROWS, world.getPopulationCount());
+    assertEquals(0, detector.observe(world));
+  }
+
+  @Test
+  public void generationHistory_restoresEveryRecordedGeneration() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    world.setCellsAlive(60, 3, 70);
+    world.setCellAlive(149, 129);
+    GenerationHistory history = new GenerationHistory(8, Long.MAX_VALUE);
+    List<String> boards = new ArrayList<>();
+
+    history.continueFrom(world);
+    boards.add(world.toString());
+    for (int i = 0; i < 40; i++) {
+      world.next();
+      history.record(world);
+      boards.add(world.toString());
+    }
+
+    for (int generation : new int[] {3, 0, 17, 40, 16, 9}) {
+      history.restore(world, generation);
+      assertEquals(generation, world.getGenerations());
+      assertEquals(boards.get(generation), world.toString(), "Generation " + generation);
+    }
+    history.continueFrom(world);
+    assertEquals(9, history.getLastGeneration());
+    world.next();
+    history.record(world);
+    history.restore(world, 10);
+    assertEquals(boards.get(10), world.toString());
+  }
+
+  @Test
+  public void generationHistory_whenFull_dropsTheOldestGenerations() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    GenerationHistory history = new GenerationHistory(4, 10_000);
+
+    history.continueFrom(world);
+    for (int i = 0; i < 100; i++) {
+      world.next();
+      history.record(world);
+    }
+
+    assertTrue(history.getSize() <= 10_000);
+    assertFalse(history.contains(0));
+    assertTrue(history.contains(96));
+    assertEquals(100, history.getLastGeneration());
+  }
+
+  @Test
+  public void generationHistory_whenBoardExceedsTheCapacity_recordsNothing() {
+    Grid world = newWorld(150, 130);
+    Shapes.loadGlider(world);
+    GenerationHistory history = new GenerationHistory(4, 1_000);
+
+    history.continueFrom(world);
+    world.next();
+    history.record(world);
+
+    assertEquals(-1, history.getLastGeneration());
+    assertEquals(0, history.getSize());
+  }
+
+  private static int periodOf(Grid world) {
+    CycleDetector detector = new CycleDetector(8);
+    int period = detector.observe(world);
+    for (int i = 0; i < 20 && period == 0; i++) {
+      world.next();
+      period = detector.observe(world);
+    }
+    return period;
+  }
+
+  private static BoundingBox boundsOf(Collection<Cell> cells) {
+    if (cells.isEmpty()) {
+      return null;
+    }
+    int firstColumn = Integer.MAX_VALUE;
+    int firstRow = Integer.MAX_VALUE;
+    int lastColumn = 0;
+    int lastRow = 0;
+    for (Cell cell : cells) {
+      firstColumn = Math.min(firstColumn, cell.getColumn());
+      firstRow = Math.min(firstRow, cell.getRow());
+      lastColumn = Math.max(lastColumn, cell.getColumn());
+      lastRow = Math.max(lastRow, cell.getRow());
+    }
+    return new BoundingBox(firstColumn, firstRow, lastColumn, lastRow);
+  }
+
+  @Test
+  public void getRule_isInitiallyConway() {
+    Grid world = newWorld();
+    assertEquals(Rule.CONWAY, world.getRule());
+  }
+
+  @Test
+  public void readInto_glider_setsCellsOfPattern() throws IOException {
+    RleReader reader = new RleReader(new StringReader("#N Glider\nx = 3, y = 3\nbob$2bo$3o!"));
+    Grid world = newWorld();
+    reader.readInto(world);
+
+    Set<Cell> cells = new HashSet<>();
+    addCell(cells, 1, 0);
+    addCell(cells, 2, 1);
+    addCell(cells, 0, 2);
+    addCell(cells, 1, 2);
+    addCell(cells, 2, 2);
+    worldIsExactly(world, cells);
+  }
+
+  @Test
+  public void readInto_runBeyondPattern_throwsException() throws IOException {
+    RleReader reader = new RleReader(new StringReader("x = 3, y = 3\n4o!"));
+    try {
+      reader.readInto(newWorld());
+      fail("A run may not exceed the size of the pattern");
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void clear_withBornWithoutNeighbours_fillsTheBoardInTheNextGeneration() {
+    Grid world = newWorld(70, 70);
+    try {
+      world.setRule(Rule.parse("B0/S8"));
+    } catch (IllegalArgumentException e) {
+      //the engine does not support rules with B0
+      return;
+    }
+    world.setCellAlive(3, 3);
+    world.clear();
+
+    world.next();
+
+    assertEquals(70 * 70, world.getPopulationCount());
+    assertTrue(world.isCellAlive(69, 69));
+  }
+
+  @Test
+  public void write_thenRead_restoresCellsAndRule() throws IOException {
+    Grid world = newWorld(150, 7);
+    world.setRule(Rule.parse("B36/S23"));
+    world.setCellsAlive(3, 1, 140);
+    world.setCellsAlive(60, 4, 10);
+    world.setCellAlive(149, 4);
+    world.setCellAlive(0, 6);
+    StringWriter out = new StringWriter();
+    RleWriter.write(world, out);
+
+    RleReader reader = new RleReader(new StringReader(out.toString()));
+    Grid copy = newWorld(reader.getColumns(), reader.getRows());
+    reader.readInto(copy);
+
+    assertEquals(world.getRule(), reader.getRule());
+    assertEquals(world.toString(), copy.toString());
+    assertEquals(70, world.getRunEnd(60, 4));
+    assertEquals(150, world.getRunEnd(70, 5));
+  }
+
+  @Test
+  public void checkpoint_thenRestore_restoresCellsGenerationAndRule(@TempDir Path directory)
+      throws IOException {
+    Path file = directory.resolve("world.ckpt");
+    Grid world = newWorld(130, 9);
+    world.setRule(Rule.parse("B36/S23"));
+    world.setCellsAlive(3, 1, 120);
+    world.setCellsAlive(60, 4, 10);
+    world.setCellAlive(129, 8);
+    world.advance(2);
+    CheckpointWriter.write(world, file);
+
+    Grid copy;
+    try (CheckpointReader reader = new CheckpointReader(file)) {
+      copy = newWorld(reader.getColumns(), reader.getRows());
+      copy.setRule(reader.getRule());
+      reader.readInto(copy);
+    }
+
+    assertEquals(world.getRule(), copy.getRule());
+    assertEquals(2, copy.getGenerations());
+    assertEquals(world.toString(), copy.toString());
+    world.next();
+    copy.next();
+    assertEquals(world.toString(), copy.toString());
+  }
+
+  @Test
+  public void restore_invalidCheckpoint_throwsException(@TempDir Path directory)
+      throws IOException {
+    Path file = directory.resolve("world.ckpt");
+    Files.write(file, new byte[100]);
+    try {
+      new CheckpointReader(file).close();
+      fail("A file without the header of a checkpoint may not be restored");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid checkpoint", e.getMessage());
+    }
+  }
+
   @Test
   public void getGenerations_isInitiallyZero() {
     Grid world = newWorld();
@@ -316,5 +835,74 @@ public class GridTest {
       }
     }
   }
+
+  //compares the engine under test with the reference implementation Game on random cells
+  void assertMatchesReference(Rule rule, boolean torus, int[]... sizes) {
+    for (int[] size : sizes) {
+      Grid reference = new Game(size[0], size[1]);
+      Grid world = newWorld(size[0], size[1]);
+      reference.setRule(rule);
+      world.setRule(rule);
+      reference.setTorus(torus);
+      world.setTorus(torus);
+      fillRandomly(rule.hashCode() * 31L + size[0] * size[1], reference, world);
+      String board = rule + (torus ? " torus " : " ") + size[0] + "x" + size[1];
+
+      for (int i = 0; i < 20; i++) {
+        reference.next();
+        world.next();
+        assertEquals(reference.toString(), world.toString(), board + " generation " + (i + 1));
+      }
+    }
+  }
+
+  //compares a glider crossing the board in the engine under test with SparseGame
+  void assertGliderMatchesSparseGame(int size, int generations) {
+    Grid reference = new SparseGame(size, size);
+    Grid world = newWorld(size, size);
+    Shapes.loadGlider(reference);
+    Shapes.loadGlider(world);
+
+    for (int i = 0; i < generations; i++) {
+      reference.next();
+      world.next();
+      assertEquals(reference.getPopulation(), world.getPopulation(), "Generation " + (i + 1));
+    }
+  }
+
+  //measures the bytes allocated by generations of a pulsar after warming up the engine under test
+  void assertSteadyStateAllocatesNothing() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    Grid world = newWorld(512, 512);
+    Shapes.loadPulsar(world);
+    //warm up, so that neither class loading nor compilation is measured
+    for (int i = 0; i < 2000; i++) {
+      world.next();
+    }
+
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100; i++) {
+      world.next();
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+    assertEquals(0, allocated, "Bytes allocated by 100 generations");
+  }
+
+  //sets about one in three cells alive, the same cells in every grid
+  static void fillRandomly(long seed, Grid... worlds) {
+    Random random = new Random(seed);
+    for (int row = 0; row < worlds[0].getRows(); row++) {
+      for (int col = 0; col < worlds[0].getColumns(); col++) {
+        if (random.nextInt(3) == 0) {
+          for (Grid world : worlds) {
+            world.setCellAlive(col, row);
+          }
+        }
+      }
+    }
+  }
 }
 
@@ -0,0 +1,189 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link HashLifeGame}. Besides the common {@link Grid} tests, HashLife has to produce
+ * the same generations as the reference implementation {@link Game}, no matter how many
+ * generations are computed at once.
+ */
+public class HashLifeGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new HashLifeGame(col, row);
+  }
+
+  @Test
+  public void advance_randomSoup_matchesReferenceGame() {
+    int columns = 45;
+    int rows = 29;
+    Grid reference = new Game(columns, rows);
+    Grid world = newWorld(columns, rows);
+    fillRandomly(42, reference, world);
+
+    int[] steps = {1, 1, 2, 3, 8, 13, 32};
+    for (int step : steps) {
+      reference.advance(step);
+      world.advance(step);
+      assertEquals(reference.toString(), world.toString(),
+          "Generation " + reference.getGenerations());
+    }
+    assertEquals(reference.getGenerations(), world.getGenerations());
+  }
+
+  @Test
+  public void advance_afterChangingRule_matchesReferenceGame() {
+    Grid reference = new Game(40, 40);
+    Grid world = newWorld(40, 40);
+    Shapes.loadPulsar(reference);
+    Shapes.loadPulsar(world);
+    //memoise results under Conway's rule, which must not be reused under HighLife
+    reference.advance(6);
+    world.advance(6);
+
+    Rule highLife = Rule.parse("B36/S23");
+    reference.setRule(highLife);
+    world.setRule(highLife);
+    for (int i = 0; i < 10; i++) {
+      reference.advance(4);
+      world.advance(4);
+      assertEquals(reference.toString(), world.toString(), "Generation " + (i + 1));
+    }
+  }
+
+  @Test
+  public void setRule_withBirthWithoutNeighbours_throwsException() {
+    Grid world = newWorld(10, 10);
+    try {
+      world.setRule(Rule.parse("B0/S23"));
+      fail("Rules with B0 may not be set");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Rules with B0 are not supported", e.getMessage());
+    }
+  }
+
+  @Test
+  public void advance_billionsOfGenerations_keepsOscillatorInPhase() {
+    Grid world = newWorld(64, 64);
+    Shapes.loadPulsar(world);
+    Grid reference = newWorld(64, 64);
+    Shapes.loadPulsar(reference);
+    long generations = 3_000_000_001L;
+
+    world.advance(generations);
+    //the pulsar has period three
+    reference.advance(generations % 3);
+
+    assertEquals(reference.toString(), world.toString());
+    assertEquals(generations, world.getGenerations());
+  }
+
+  @Test
+  public void advance_differentPowersOfTwo_reusesMemoisedResults() {
+    HashLifeGame world = new HashLifeGame(64, 64);
+    Shapes.loadBlinker(world);
+    //three generations are a step of one and a step of two generations; the blinker has period
+    //two, so both of its boards are advanced by both steps
+    world.advance(3);
+    world.advance(3);
+    long computedResults = world.getComputedResults();
+
+    world.advance(3);
+
+    assertEquals(computedResults, world.getComputedResults());
+  }
+
+  @Test
+  public void advance_withSmallNodeLimit_evictsAndStaysCorrect() {
+    HashLifeGame world = new HashLifeGame(40, 40);
+    world.setMaxNodes(64);
+    Grid reference = new BitGame(40, 40);
+    Shapes.loadSpaceship(world);
+    Shapes.loadSpaceship(reference);
+
+    for (int i = 0; i < 20; i++) {
+      world.advance(3);
+      reference.advance(3);
+      assertEquals(reference.toString(), world.toString());
+    }
+  }
+
+  @Test
+  public void advance_largeStepWithSmallNodeLimit_splitsStepAndStaysCorrect() {
+    HashLifeGame world = new HashLifeGame(40, 40);
+    world.setMaxNodes(64);
+    HashLifeGame reference = new HashLifeGame(40, 40);
+    Shapes.loadSpaceship(world);
+    Shapes.loadSpaceship(reference);
+
+    //a single step of 64 generations needs far more than 64 nodes
+    world.advance(64);
+    for (int i = 0; i < 64; i++) {
+      reference.advance(1);
+    }
+
+    assertEquals(reference.toString(), world.toString());
+    assertEquals(64, world.getGenerations());
+  }
+
+  @Test
+  public void writeMacrocell_thenRead_restoresBoardRuleAndGeneration() throws IOException {
+    HashLifeGame world = new HashLifeGame(150, 70);
+    world.setRule(Rule.parse("B36/S23"));
+    fillRandomly(7, world);
+    world.advance(5);
+    StringWriter out = new StringWriter();
+
+    MacrocellWriter.write(world, out);
+    HashLifeGame copy = MacrocellReader.read(new StringReader(out.toString()));
+
+    assertEquals(world.toString(), copy.toString());
+    assertEquals(world.getRule(), copy.getRule());
+    assertEquals(5, copy.getGenerations());
+    //the frame of walls has to be restored as well
+    world.advance(20);
+    copy.advance(20);
+    assertEquals(world.toString(), copy.toString());
+  }
+
+  @Test
+  public void writeMacrocell_repeatedPattern_writesEachSquareOnce() throws IOException {
+    HashLifeGame world = new HashLifeGame(1024, 1024);
+    for (int row = 0; row < 1024; row = row + 16) {
+      for (int col = 0; col < 1024; col = col + 16) {
+        world.setCellAlive(col + 1, row);
+        world.setCellAlive(col + 2, row + 1);
+        world.setCellAlive(col, row + 2);
+        world.setCellAlive(col + 1, row + 2);
+        world.setCellAlive(col + 2, row + 2);
+      }
+    }
+    StringWriter out = new StringWriter();
+
+    MacrocellWriter.write(world, out);
+    HashLifeGame copy = MacrocellReader.read(new StringReader(out.toString()));
+
+    //4096 gliders, but a single line per level
+    assertTrue(out.toString().lines().count() < 20, out.toString());
+    assertEquals(world.toString(), copy.toString());
+  }
+
+  @Test
+  public void readMacrocell_quadrantOfWrongLevel_throwsException() throws IOException {
+    String pattern = "[M2]\n.*$..*$***$\n5 1 0 0 0\n";
+    try {
+      MacrocellReader.read(new StringReader(pattern));
+      fail("The quadrants of a node have to be one level smaller");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid quadrant of the node: 5 1 0 0 0", e.getMessage());
+    }
+  }
+}
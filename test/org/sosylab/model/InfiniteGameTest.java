@@ -0,0 +1,134 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link InfiniteGame}. Its board grows, so it does not run the common {@link Grid}
+ * tests, which expect cells to die at the edges; away from the edges, it has to produce the same
+ * generations as the reference implementation {@link Game}.
+ */
+public class InfiniteGameTest {
+
+  @Test
+  public void next_soupAroundTheOrigin_matchesReferenceGame() {
+    //the soup spans chunks on both sides of the origin, and the board around it
+    Grid reference = new Game(400, 400);
+    Grid world = new InfiniteGame(10, 10);
+    Random random = new Random(42);
+    for (int y = -70; y < 70; y++) {
+      for (int x = -70; x < 70; x++) {
+        if (random.nextInt(3) == 0) {
+          reference.setCellAlive(x + 200, y + 200);
+          world.setCellAliveAt(x, y);
+        }
+      }
+    }
+
+    for (int i = 0; i < 60; i++) {
+      reference.next();
+      world.next();
+      assertEquals(reference.getPopulationCount(), world.getPopulationCount(),
+          "Generation " + (i + 1));
+    }
+    reference.forEachLive((col, row) -> assertTrue(world.isCellAliveAt(col - 200, row - 200)));
+    BoundingBox box = world.getBoundingBox();
+    BoundingBox expected = reference.getBoundingBox();
+    assertEquals(expected.getFirstColumn() - 200, box.getFirstColumn() + world.getFirstColumn());
+    assertEquals(expected.getLastRow() - 200, box.getLastRow() + world.getFirstRow());
+  }
+
+  @Test
+  public void next_gliderLeavingTheBoard_growsTheBoard() {
+    InfiniteGame world = new InfiniteGame(10, 10);
+    //a glider that moves up and to the left by one cell every four generations
+    world.setCellsAlive(1, 1, 3);
+    world.setCellAlive(1, 2);
+    world.setCellAlive(2, 3);
+
+    world.advance(400);
+
+    assertEquals(5, world.getPopulationCount());
+    assertTrue(world.isCellAliveAt(-99, -99));
+    assertEquals(-99, world.getFirstColumn());
+    assertEquals(-99, world.getFirstRow());
+    assertEquals(109, world.getColumns());
+    assertEquals(new BoundingBox(0, 0, 2, 2), world.getBoundingBox());
+    assertTrue(world.isCellAlive(0, 0));
+    //the chunks the glider left behind were dropped
+    assertTrue(world.getChunkCount() <= 4);
+  }
+
+  @Test
+  public void setCellAliveAt_negativePosition_growsTheBoardToTheCell() {
+    Grid world = new InfiniteGame(5, 5);
+    world.setCellAliveAt(3, 3);
+    world.setCellAliveAt(-100, -1);
+
+    assertTrue(world.isCellAliveAt(-100, -1));
+    assertFalse(world.isCellAliveAt(-101, -1));
+    assertEquals(-100, world.getFirstColumn());
+    assertEquals(-1, world.getFirstRow());
+    assertEquals(105, world.getColumns());
+    assertEquals(6, world.getRows());
+    assertTrue(world.isCellAlive(0, 0));
+    assertTrue(world.isCellAlive(103, 4));
+    assertEquals(new BoundingBox(0, 0, 103, 4), world.getBoundingBox());
+
+    world.setCellDeadAt(-100, -1);
+    assertEquals(1, world.getPopulationCount());
+    assertEquals(-100, world.getFirstColumn());
+  }
+
+  @Test
+  public void getBoardHash_whenTheBoardGrows_matchesTheHashOfTheSameCells() {
+    Grid world = new InfiniteGame(20, 20);
+    Shapes.loadGlider(world);
+    world.setCellAliveAt(-5, 0);
+    world.setCellAliveAt(-5, 1);
+    world.setCellAliveAt(-5, 2);
+
+    for (int i = 0; i < 100; i++) {
+      world.next();
+      Grid same = new InfiniteGame(20, 20);
+      world.forEachLive((col, row) -> same.setCellAliveAt(col + world.getFirstColumn(),
+          row + world.getFirstRow()));
+      assertEquals(same.getBoardHash(), world.getBoardHash(), "Generation " + (i + 1));
+    }
+  }
+
+  @Test
+  public void generationHistory_whenTheBoardGrows_continuesFromTheGrownBoard() {
+    Grid world = new InfiniteGame(10, 10);
+    //a blinker that grows the board by a row in the first generation
+    world.setCellsAlive(4, 0, 3);
+    GenerationHistory history = new GenerationHistory(8, Long.MAX_VALUE);
+    history.continueFrom(world);
+
+    for (int i = 0; i < 10; i++) {
+      world.next();
+      history.record(world);
+    }
+    String board = world.toString();
+    world.advance(3);
+    history.restore(world, 10);
+
+    assertEquals(board, world.toString());
+    assertEquals(1, history.getFirstGeneration());
+  }
+
+  @Test
+  public void setRule_bornWithoutNeighbours_isNotSupported() {
+    try {
+      new InfiniteGame(10, 10).setRule(Rule.parse("B0/S8"));
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+}
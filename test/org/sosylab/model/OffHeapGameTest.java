@@ -0,0 +1,74 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OffHeapGame}. Besides the common {@link Grid} tests, the off-heap engine has to
+ * produce the same generations as the reference implementation {@link Game}, also when its
+ * buffers are split into many chunks, and free its memory once it is closed.
+ */
+public class OffHeapGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new OffHeapGame(col, row);
+  }
+
+  @Test
+  public void next_randomSoup_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, false, new int[] {131, 137});
+  }
+
+  @Test
+  public void next_withSmallChunks_matchesReferenceGame() {
+    //a chunk of 40 bytes holds a single row, or two rows of two words after resizing
+    int[][] sizes = {{131, 137}, {700, 70}};
+    for (int[] size : sizes) {
+      Grid reference = new Game(size[0], size[1]);
+      Grid world = new OffHeapGame(size[0], size[1], 40);
+      fillRandomly(size[0], reference, world);
+      world.resize(size[0] - 3, size[1] - 5);
+      reference.resize(size[0] - 3, size[1] - 5);
+
+      for (int i = 0; i < 20; i++) {
+        reference.next();
+        world.next();
+        assertEquals(reference.toString(), world.toString(),
+            size[0] + "x" + size[1] + " generation " + (i + 1));
+      }
+    }
+  }
+
+  @Test
+  public void next_onTorusWithOtherRules_matchesReferenceGame() {
+    for (String notation : new String[] {"B3/S23", "B36/S23", "B0/S8"}) {
+      assertMatchesReference(Rule.parse(notation), true,
+          new int[] {131, 70}, new int[] {64, 65}, new int[] {40, 3}, new int[] {200, 1},
+          new int[] {1, 130});
+    }
+  }
+
+  @Test
+  public void close_freesTheMemoryAtOnce() {
+    BufferPoolMXBean directBuffers = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)
+        .stream().filter(pool -> pool.getName().equals("direct")).findFirst().orElseThrow();
+    long before = directBuffers.getMemoryUsed();
+    Grid world = newWorld(1000, 1000);
+    assertEquals(before + 2 * 1000 * 16 * 8, directBuffers.getMemoryUsed());
+
+    world.close();
+
+    assertEquals(before, directBuffers.getMemoryUsed());
+    try {
+      world.next();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      //expected
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Collection;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SparseGame}. Besides the common {@link Grid} tests, the sparse engine has to
+ * produce the same generations as the reference implementation {@link Game} and has to handle
+ * boards that are far too large to be stored cell by cell.
+ */
+public class SparseGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new SparseGame(col, row);
+  }
+
+  @Test
+  public void setRule_withBirthWithoutNeighbours_throwsException() {
+    Grid world = newWorld(10, 10);
+    try {
+      world.setRule(Rule.parse("B0/S23"));
+      fail("Rules with B0 may not be set");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Rules with B0 are not supported", e.getMessage());
+    }
+  }
+
+  @Test
+  public void next_randomSoup_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, false, new int[] {57, 43});
+  }
+
+  @Test
+  public void next_afterPopulationDiesBack_matchesReferenceGame() {
+    Grid reference = new Game(100, 100);
+    Grid world = newWorld(100, 100);
+    for (int row = 0; row < 100; row++) {
+      for (int col = 0; col < 100; col++) {
+        reference.setCellAlive(col, row);
+        world.setCellAlive(col, row);
+      }
+    }
+
+    //only the four corners survive the full board, which leaves the tables almost empty
+    for (int i = 0; i < 3; i++) {
+      reference.next();
+      world.next();
+      assertEquals(reference.toString(), world.toString(), "Generation " + (i + 1));
+    }
+    Shapes.loadGlider(reference);
+    Shapes.loadGlider(world);
+    for (int i = 0; i < 8; i++) {
+      reference.next();
+      world.next();
+      assertEquals(reference.toString(), world.toString(), "Generation " + (i + 4));
+    }
+  }
+
+  @Test
+  public void next_gliderOnHugeBoard_movesDiagonally() {
+    int size = 1_000_000;
+    Grid world = newWorld(size, size);
+    Shapes.loadGlider(world);
+    Collection<Cell> start = world.getPopulation();
+
+    for (int i = 0; i < 4; i++) {
+      world.next();
+    }
+
+    assertEquals(start.size(), world.getPopulation().size());
+    for (Cell cell : start) {
+      assertTrue(world.isCellAlive(cell.getColumn() - 1, cell.getRow() - 1),
+          "Cell " + cell + " must have moved one column to the left and one row up");
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TiledGame}. Besides the common {@link Grid} tests, the tiled engine has to
+ * produce the same generations as the reference implementation {@link Game}, across the edges of
+ * its tiles and of the board.
+ */
+public class TiledGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new TiledGame(col, row);
+  }
+
+  @Test
+  public void next_randomSoup_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, false, new int[] {131, 137});
+  }
+
+  @Test
+  public void next_withOtherRules_matchesReferenceGame() {
+    for (String notation : new String[] {"B36/S23", "B3678/S34678", "B0/S8", "B2/S"}) {
+      assertMatchesReference(Rule.parse(notation), false, new int[] {97, 70});
+    }
+  }
+
+  @Test
+  public void next_onTorus_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, true,
+        new int[] {131, 70}, new int[] {64, 65}, new int[] {40, 3}, new int[] {200, 1},
+        new int[] {1, 130});
+  }
+
+  @Test
+  public void next_gliderCrossingTiles_matchesSparseGame() {
+    assertGliderMatchesSparseGame(300, 700);
+  }
+
+  @Test
+  public void next_gliderWithinTile_skipsTheEmptyTilesAroundIt() {
+    TiledGame world = new TiledGame(512, 512);
+    world.setCellsAlive(10, 10, 3);
+    world.setCellAlive(10, 11);
+    world.setCellAlive(11, 12);
+    world.next();
+    long computedTiles = world.getComputedTiles();
+    long skippedTiles = world.getSkippedTiles();
+
+    for (int i = 0; i < 10; i++) {
+      world.next();
+    }
+
+    //the neighbours of the changed tile are active, but they and their halos are empty
+    assertEquals(computedTiles + 10, world.getComputedTiles());
+    assertEquals(skippedTiles + 10 * (8 * 8 - 1), world.getSkippedTiles());
+  }
+
+  @Test
+  public void next_inSteadyState_allocatesNothing() {
+    assertSteadyStateAllocatesNothing();
+  }
+}
@@ -0,0 +1,34 @@
+package org.sosylab.model;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link VectorGame}. The boards are wide enough for several vectors of tiles, so the
+ * vectors, the words left over and the edges of the board all have to match {@link Game}.
+ */
+public class VectorGameTest extends GridTest {
+
+  @Override
+  Grid newWorld(int col, int row) {
+    return new VectorGame(col, row);
+  }
+
+  @Test
+  public void isVectorized_withVectorModule_isTrue() {
+    assertTrue(new VectorGame(10, 10).isVectorized());
+  }
+
+  @Test
+  public void next_randomSoup_matchesReferenceGame() {
+    assertMatchesReference(Rule.CONWAY, false, new int[] {1250, 131});
+  }
+
+  @Test
+  public void next_withOtherRules_matchesReferenceGame() {
+    for (String notation : new String[] {"B36/S23", "B3678/S34678", "B0/S8", "B2/S"}) {
+      assertMatchesReference(Rule.parse(notation), false, new int[] {1024, 100});
+    }
+  }
+}